@@ -1,8 +1,9 @@
 package rit.eyeTracking;
 
 import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -10,12 +11,16 @@ import java.util.Map;
 public abstract class AbstractEvent implements Event, Serializable {
 	
 	private static final long serialVersionUID = -6719375361854591315L;
-	private final ID id;
+	private ID id;
 	private final Map<String,Object> attributes;
+	private int flags;
+	private transient Map<String,Object> attributesView;
+	private transient int hashCode;
 	
 	public AbstractEvent(ID id, Map<String,Object> initialAttributes) {
 		this.id = id;
 		this.attributes = initialAttributes;
+		this.flags = Flags.of(id);
 	}
 
 	@Override
@@ -23,9 +28,51 @@ public abstract class AbstractEvent implements Event, Serializable {
 		return id;
 	}
 	
+	@Override
+	public int getFlags() {
+		return flags;
+	}
+
+	@Override
+	public boolean hasFlags(int mask) {
+		return (flags & mask) != 0;
+	}
+
+	@Override
+	public void addFlags(int mask) {
+		flags |= mask;
+	}
+
+	/**
+	 * Replaces the ID of the event, e.g. when it is recycled. The flags are
+	 * not changed.
+	 */
+	protected void setID(ID id) {
+		this.id = id;
+		hashCode = 0;
+	}
+
+	/**
+	 * Replaces the flags of the event, e.g. when a recycled event is
+	 * given a new ID.
+	 */
+	protected void setFlags(int flags) {
+		this.flags = flags;
+	}
+	
 	@Override
 	public void addAttribute(String name, Object value) {
 		attributes.put(name, value);
+		hashCode = 0;
+	}
+	
+	/**
+	 * Removes an attribute from the map, e.g. when a sub-class stores it
+	 * elsewhere.
+	 */
+	protected void removeAttribute(String name) {
+		if(attributes.remove(name) != null)
+			hashCode = 0;
 	}
 	
 	@SuppressWarnings("unchecked")
@@ -34,14 +81,121 @@ public abstract class AbstractEvent implements Event, Serializable {
 		return (T)attributes.get(name);
 	}
 
+	@Override
+	public void addAttribute(String name, int value) {
+		addAttribute(name, Integer.valueOf(value));
+	}
+
+	@Override
+	public void addAttribute(String name, long value) {
+		addAttribute(name, Long.valueOf(value));
+	}
+
+	@Override
+	public void addAttribute(String name, float value) {
+		addAttribute(name, Float.valueOf(value));
+	}
+
+	@Override
+	public boolean hasAttribute(String name) {
+		return attributes.containsKey(name);
+	}
+
+	@Override
+	public int getInt(String name) {
+		Integer value = getAttribute(name);
+		if(value == null)
+			throw new IllegalArgumentException("No attribute "+name);
+		return value;
+	}
+
+	@Override
+	public long getLong(String name) {
+		Long value = getAttribute(name);
+		if(value == null)
+			throw new IllegalArgumentException("No attribute "+name);
+		return value;
+	}
+
+	@Override
+	public float getFloat(String name) {
+		Float value = getAttribute(name);
+		if(value == null)
+			throw new IllegalArgumentException("No attribute "+name);
+		return value;
+	}
+
+	@Override
+	public <T> void addAttribute(AttributeKey<T> key, T value) {
+		addAttribute(key.getName(), value);
+	}
+
+	@Override
+	public void addAttribute(AttributeKey<Integer> key, int value) {
+		addAttribute(key.getName(), value);
+	}
+
+	@Override
+	public void addAttribute(AttributeKey<Long> key, long value) {
+		addAttribute(key.getName(), value);
+	}
+
+	@Override
+	public void addAttribute(AttributeKey<Float> key, float value) {
+		addAttribute(key.getName(), value);
+	}
+
+	@Override
+	public <T> T getAttribute(AttributeKey<T> key) {
+		return getAttribute(key.getName());
+	}
+
+	@Override
+	public boolean hasAttribute(AttributeKey<?> key) {
+		return hasAttribute(key.getName());
+	}
+
+	@Override
+	public int getInt(AttributeKey<Integer> key) {
+		return getInt(key.getName());
+	}
+
+	@Override
+	public long getLong(AttributeKey<Long> key) {
+		return getLong(key.getName());
+	}
+
+	@Override
+	public float getFloat(AttributeKey<Float> key) {
+		return getFloat(key.getName());
+	}
+
+	/**
+	 * Returns a non-modifiable view of the attributes that is created once
+	 * and reflects later changes of the event.
+	 */
 	@Override
 	public Map<String, Object> getAttributes() {
-		return Collections.unmodifiableMap(attributes);
+		Map<String,Object> view = attributesView;
+		if(view == null) {
+			view = Collections.unmodifiableMap(attributes);
+			attributesView = view;
+		}
+		return view;
 	}
 
 	@Override
 	public void clear() {
 		attributes.clear();
+		hashCode = 0;
+	}
+	
+	/**
+	 * Discards the cached hash code. To be invoked by sub-classes that
+	 * store attributes outside of the attribute map whenever they change.
+	 */
+	protected final void invalidateHashCode() {
+		hashCode = 0;
 	}
 
 	@Override
@@ -52,24 +206,86 @@ public abstract class AbstractEvent implements Event, Serializable {
 	@Override
 	public Event getSerializable(EventFactory factory) {
 		Map<String,Object> attr = new HashMap<String,Object>(attributes.size());
-		Event copy = factory.createEvent(id, attr);
-		for(String key: attributes.keySet()) {
-			Object value = attributes.get(key);
-			if(value instanceof Serializable
-				|| value instanceof Externalizable) {
-				copy.addAttribute(key, value);
-			}
+		Event copy = factory.createEvent(getID(), attr);
+		copyFlags(copy);
+		for(Map.Entry<String,Object> entry: attributes.entrySet()) {
+			if(isSerializable(entry.getValue()))
+				copy.addAttribute(entry.getKey(), entry.getValue());
 		}
 		return copy;
 	}
+	
+	/**
+	 * Adds flags that are not implied by the ID to the given copy of this
+	 * event.
+	 */
+	protected void copyFlags(Event copy) {
+		int extraFlags = getExtraFlags();
+		if(extraFlags != 0)
+			copy.addFlags(extraFlags);
+	}
+	
+	/**
+	 * Returns the flags that have been added to the event and are not
+	 * implied by its ID.
+	 */
+	protected final int getExtraFlags() {
+		return getFlags() & ~Flags.of(getID());
+	}
+	
+	/**
+	 * Adds the flags implied by the ID, since events serialized before
+	 * flags were introduced have none.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		flags |= Flags.of(id);
+	}
+	
+	/**
+	 * Returns true, if the given value is {@link Serializable} or
+	 * {@link Externalizable}. The result is cached per class of value.
+	 */
+	protected static boolean isSerializable(Object value) {
+		return value != null && SERIALIZABLE.get(value.getClass());
+	}
+	
+	private static final ClassValue<Boolean> SERIALIZABLE = new ClassValue<Boolean>() {
+		@Override
+		protected Boolean computeValue(Class<?> type) {
+			return Serializable.class.isAssignableFrom(type)
+				|| Externalizable.class.isAssignableFrom(type);
+		}
+	};
 
+	/**
+	 * Returns the hash code, which is cached until an attribute is added or
+	 * the event is cleared.
+	 */
 	@Override
 	public int hashCode() {
+		int result = hashCode;
+		if(result == 0) {
+			result = computeHashCode();
+			hashCode = result;
+		}
+		return result;
+	}
+	
+	/**
+	 * Computes the hash code returned by {@link #hashCode()}. Flags that
+	 * are not implied by the ID are only included if there are any, so
+	 * other events keep the hash code of their ID and attributes.
+	 */
+	protected int computeHashCode() {
 		final int prime = 31;
 		int result = 1;
 		result = prime * result
 				+ ((attributes == null) ? 0 : attributes.hashCode());
 		result = prime * result + ((id == null) ? 0 : id.hashCode());
+		int extraFlags = flags & ~Flags.of(id);
+		if (extraFlags != 0)
+			result = prime * result + extraFlags;
 		return result;
 	}
 
@@ -82,15 +298,18 @@ public abstract class AbstractEvent implements Event, Serializable {
 		if (getClass() != obj.getClass())
 			return false;
 		AbstractEvent other = (AbstractEvent) obj;
+		// IDs are compared first, since they are usually identical objects
+		if (id != other.id && (id == null || !id.equals(other.id)))
+			return false;
+		// Equal IDs imply equal flags unless flags have been added
+		if (flags != other.flags)
+			return false;
 		if (attributes == null) {
 			if (other.attributes != null)
 				return false;
-		} else if (!attributes.equals(other.attributes))
-			return false;
-		if (id == null) {
-			if (other.id != null)
-				return false;
-		} else if (!id.equals(other.id))
+		} else if (other.attributes == null
+				|| attributes.size() != other.attributes.size()
+				|| !attributes.equals(other.attributes))
 			return false;
 		return true;
 	}
@@ -0,0 +1,590 @@
+package rit.eyeTracking;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An {@link AbstractEvent} that stores attributes with a registered
+ * {@link AttributeKey} in arrays indexed by the ordinal of the key instead of
+ * the attribute map. {@link Integer}, {@link Long} and {@link Float}
+ * attributes like {@link Event#POR_X}, {@link Event#TRACKER_TIMESTAMP_MU} or
+ * {@link Event#PUPIL_DIA_L_PX} are stored in primitive form, so setting and
+ * reading them via {@link #addAttribute(AttributeKey, int)},
+ * {@link #getInt(AttributeKey)} etc. neither boxes values nor hashes
+ * attribute names. Attributes without a registered key are kept in the map.
+ *
+ * {@link #getAttribute(String)} and {@link #getAttributes()} remain
+ * available for compatibility, but box the primitive values on access.
+ *
+ * Since ordinals are only valid within one JVM, attributes stored in arrays
+ * are serialized as pairs of names and values, and are stored under the keys
+ * registered for these names when the event is deserialized.
+ *
+ * @see Event.Keys
+ */
+public abstract class AbstractPrimitiveEvent extends AbstractEvent {
+
+	private static final long serialVersionUID = -2265148497012306318L;
+
+	static {
+		// Register the standard keys before the first event is created
+		Event.Keys.register();
+	}
+
+	private transient long[] primitives;
+	private transient Object[] objects;
+	private transient long[] present;
+	private transient Map<String,Object> attributesView;
+
+	/**
+	 * Creates a new event. Initial attributes that have a registered
+	 * {@link AttributeKey} are moved from the given map into the arrays.
+	 *
+	 * @param id The event id
+	 * @param initialAttributes The initial attributes, also used as storage
+	 * 	for attributes without a registered key
+	 */
+	public AbstractPrimitiveEvent(ID id, Map<String,Object> initialAttributes) {
+		super(id, initialAttributes);
+		int size = AttributeKey.size();
+		primitives = new long[size];
+		present = new long[(size+63)>>>6];
+		if(!initialAttributes.isEmpty()) {
+			// Stored attributes are removed from the map
+			for(String name: initialAttributes.keySet().toArray(new String[initialAttributes.size()])) {
+				AttributeKey<?> key = AttributeKey.forName(name);
+				if(key != null)
+					store(key, initialAttributes.get(name));
+			}
+		}
+	}
+
+	/**
+	 * Returns true, if the named attribute is stored in primitive form
+	 * by events of this class.
+	 */
+	public static boolean isPrimitive(String name) {
+		AttributeKey<?> key = AttributeKey.forName(name);
+		return key != null && key.isPrimitive();
+	}
+
+	@Override
+	public void addAttribute(String name, Object value) {
+		AttributeKey<?> key = AttributeKey.forName(name);
+		if(key == null || !store(key, value)) {
+			if(key != null)
+				unset(key.getOrdinal());
+			super.addAttribute(name, value);
+		}
+	}
+
+	@Override
+	public <T> void addAttribute(AttributeKey<T> key, T value) {
+		if(!store(key, value)) {
+			unset(key.getOrdinal());
+			super.addAttribute(key.getName(), value);
+		}
+	}
+
+	@Override
+	public void addAttribute(String name, int value) {
+		AttributeKey<?> key = AttributeKey.forName(name);
+		if(key != null && key.getKind() == AttributeKey.INT)
+			setPrimitive(key.getOrdinal(), value);
+		else
+			super.addAttribute(name, value);
+	}
+
+	@Override
+	public void addAttribute(AttributeKey<Integer> key, int value) {
+		setPrimitive(key.getOrdinal(), value);
+	}
+
+	@Override
+	public void addAttribute(String name, long value) {
+		AttributeKey<?> key = AttributeKey.forName(name);
+		if(key != null && key.getKind() == AttributeKey.LONG)
+			setPrimitive(key.getOrdinal(), value);
+		else
+			super.addAttribute(name, value);
+	}
+
+	@Override
+	public void addAttribute(AttributeKey<Long> key, long value) {
+		setPrimitive(key.getOrdinal(), value);
+	}
+
+	@Override
+	public void addAttribute(String name, float value) {
+		AttributeKey<?> key = AttributeKey.forName(name);
+		if(key != null && key.getKind() == AttributeKey.FLOAT)
+			setPrimitive(key.getOrdinal(), Float.floatToRawIntBits(value));
+		else
+			super.addAttribute(name, value);
+	}
+
+	@Override
+	public void addAttribute(AttributeKey<Float> key, float value) {
+		setPrimitive(key.getOrdinal(), Float.floatToRawIntBits(value));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T getAttribute(String name) {
+		return (T)getStored(name);
+	}
+
+	private Object getStored(String name) {
+		AttributeKey<?> key = AttributeKey.forName(name);
+		if(key != null && isSet(key.getOrdinal()))
+			return box(key);
+		return super.getAttribute(name);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T getAttribute(AttributeKey<T> key) {
+		if(isSet(key.getOrdinal()))
+			return (T)box(key);
+		return super.getAttribute(key.getName());
+	}
+
+	@Override
+	public boolean hasAttribute(String name) {
+		return isStored(name);
+	}
+
+	private boolean isStored(String name) {
+		AttributeKey<?> key = AttributeKey.forName(name);
+		if(key != null && isSet(key.getOrdinal()))
+			return true;
+		return super.hasAttribute(name);
+	}
+
+	@Override
+	public boolean hasAttribute(AttributeKey<?> key) {
+		return isSet(key.getOrdinal()) || super.hasAttribute(key.getName());
+	}
+
+	@Override
+	public int getInt(String name) {
+		AttributeKey<?> key = AttributeKey.forName(name);
+		if(key != null && key.getKind() == AttributeKey.INT && isSet(key.getOrdinal()))
+			return (int)primitives[key.getOrdinal()];
+		return super.getInt(name);
+	}
+
+	@Override
+	public int getInt(AttributeKey<Integer> key) {
+		int ordinal = key.getOrdinal();
+		if(isSet(ordinal))
+			return (int)primitives[ordinal];
+		return super.getInt(key.getName());
+	}
+
+	@Override
+	public long getLong(String name) {
+		AttributeKey<?> key = AttributeKey.forName(name);
+		if(key != null && key.getKind() == AttributeKey.LONG && isSet(key.getOrdinal()))
+			return primitives[key.getOrdinal()];
+		return super.getLong(name);
+	}
+
+	@Override
+	public long getLong(AttributeKey<Long> key) {
+		int ordinal = key.getOrdinal();
+		if(isSet(ordinal))
+			return primitives[ordinal];
+		return super.getLong(key.getName());
+	}
+
+	@Override
+	public float getFloat(String name) {
+		AttributeKey<?> key = AttributeKey.forName(name);
+		if(key != null && key.getKind() == AttributeKey.FLOAT && isSet(key.getOrdinal()))
+			return Float.intBitsToFloat((int)primitives[key.getOrdinal()]);
+		return super.getFloat(name);
+	}
+
+	@Override
+	public float getFloat(AttributeKey<Float> key) {
+		int ordinal = key.getOrdinal();
+		if(isSet(ordinal))
+			return Float.intBitsToFloat((int)primitives[ordinal]);
+		return super.getFloat(key.getName());
+	}
+
+	/**
+	 * Returns a non-modifiable view of all attributes, including those
+	 * stored in arrays. The view is created once and reflects later
+	 * changes of the event. Primitive values are boxed on access.
+	 */
+	@Override
+	public Map<String, Object> getAttributes() {
+		Map<String,Object> view = attributesView;
+		if(view == null) {
+			view = new AttributesView();
+			attributesView = view;
+		}
+		return view;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(present, 0L);
+		if(objects != null)
+			Arrays.fill(objects, null);
+		super.clear();
+	}
+
+	/**
+	 * Returns a copy of the event without attributes that are not
+	 * serializable. If the factory creates {@link AbstractPrimitiveEvent}s,
+	 * attributes stored in arrays are copied in bulk. Values of keys with
+	 * a final, serializable type are not checked individually.
+	 *
+	 * @see EventFactory#createSerializable(Event)
+	 */
+	@Override
+	public Event getSerializable(EventFactory factory) {
+		Event copy = factory.createEvent(getID());
+		copyFlags(copy);
+		if(copy instanceof AbstractPrimitiveEvent) {
+			copySlotsTo((AbstractPrimitiveEvent)copy);
+		} else {
+			for(int ordinal=nextSet(0); ordinal >= 0; ordinal=nextSet(ordinal+1)) {
+				AttributeKey<?> key = AttributeKey.forOrdinal(ordinal);
+				Object value = box(key);
+				if(key.isSerializable() || isSerializable(value))
+					copy.addAttribute(key.getName(), value);
+			}
+		}
+		for(Map.Entry<String,Object> entry: superAttributes().entrySet()) {
+			if(isSerializable(entry.getValue()))
+				copy.addAttribute(entry.getKey(), entry.getValue());
+		}
+		return copy;
+	}
+
+	/**
+	 * Copies the attributes stored in arrays to the given event that has
+	 * been newly created, omitting values that are not serializable.
+	 */
+	private void copySlotsTo(AbstractPrimitiveEvent copy) {
+		if(copy.primitives.length < primitives.length)
+			copy.ensureCapacity(primitives.length-1);
+		System.arraycopy(primitives, 0, copy.primitives, 0, primitives.length);
+		System.arraycopy(present, 0, copy.present, 0, present.length);
+		if(objects != null) {
+			for(int ordinal=nextSet(0); ordinal >= 0; ordinal=nextSet(ordinal+1)) {
+				AttributeKey<?> key = AttributeKey.forOrdinal(ordinal);
+				if(key.getKind() != AttributeKey.OBJECT)
+					continue;
+				Object value = objects[ordinal];
+				if(key.isSerializable() || isSerializable(value)) {
+					copy.ensureCapacity(ordinal);
+					if(copy.objects == null)
+						copy.objects = new Object[copy.primitives.length];
+					copy.objects[ordinal] = value;
+				} else {
+					copy.present[ordinal>>>6] &= ~(1L << ordinal);
+				}
+			}
+		}
+		copy.invalidateHashCode();
+	}
+
+	@Override
+	public String toString() {
+		return getID().toString()+" "+getAttributes().toString();
+	}
+
+	/**
+	 * Computes the hash code of the ID, the attributes and the flags
+	 * without boxing primitive values. The result equals the hash code
+	 * computed from the boxed attributes.
+	 */
+	@Override
+	protected int computeHashCode() {
+		int attributesHashCode = super.getAttributes().hashCode();
+		for(int ordinal=nextSet(0); ordinal >= 0; ordinal=nextSet(ordinal+1)) {
+			AttributeKey<?> key = AttributeKey.forOrdinal(ordinal);
+			long value = primitives[ordinal];
+			int valueHashCode;
+			switch(key.getKind()) {
+			case AttributeKey.INT: valueHashCode = (int)value; break;
+			case AttributeKey.LONG: valueHashCode = (int)(value ^ (value >>> 32)); break;
+			case AttributeKey.FLOAT: valueHashCode = Float.floatToIntBits(Float.intBitsToFloat((int)value)); break;
+			default: valueHashCode = objects[ordinal] == null ? 0 : objects[ordinal].hashCode();
+			}
+			attributesHashCode += key.getName().hashCode() ^ valueHashCode;
+		}
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + attributesHashCode;
+		result = prime * result + ((getID() == null) ? 0 : getID().hashCode());
+		int extraFlags = getExtraFlags();
+		if(extraFlags != 0)
+			result = prime * result + extraFlags;
+		return result;
+	}
+
+	/**
+	 * Compares the IDs, flags and the sets of attributes stored in arrays
+	 * before comparing attribute values.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		AbstractPrimitiveEvent other = (AbstractPrimitiveEvent) obj;
+		ID id = getID();
+		ID otherID = other.getID();
+		if (id != otherID && (id == null || !id.equals(otherID)))
+			return false;
+		if (getFlags() != other.getFlags())
+			return false;
+		int words = Math.max(present.length, other.present.length);
+		for(int word=0; word<words; word++) {
+			long bits = word < present.length ? present[word] : 0L;
+			long otherBits = word < other.present.length ? other.present[word] : 0L;
+			if(bits != otherBits)
+				return false;
+		}
+		for(int ordinal=nextSet(0); ordinal >= 0; ordinal=nextSet(ordinal+1)) {
+			switch(AttributeKey.forOrdinal(ordinal).getKind()) {
+			case AttributeKey.INT:
+			case AttributeKey.LONG:
+				if(primitives[ordinal] != other.primitives[ordinal])
+					return false;
+				break;
+			case AttributeKey.FLOAT:
+				if(Float.floatToIntBits(Float.intBitsToFloat((int)primitives[ordinal]))
+					!= Float.floatToIntBits(Float.intBitsToFloat((int)other.primitives[ordinal])))
+					return false;
+				break;
+			default:
+				Object value = objects[ordinal];
+				Object otherValue = other.objects[ordinal];
+				if(value == null ? otherValue != null : !value.equals(otherValue))
+					return false;
+			}
+		}
+		return super.getAttributes().equals(other.superAttributes());
+	}
+
+	/**
+	 * Writes the attributes stored in arrays as pairs of names and boxed
+	 * values, because ordinals depend on the order in which keys have been
+	 * registered in a JVM.
+	 *
+	 * @serialData The number of attributes stored in arrays, followed by
+	 * 	the name (as UTF) and value (as object) of each attribute
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeInt(countSet());
+		for(int ordinal=nextSet(0); ordinal >= 0; ordinal=nextSet(ordinal+1)) {
+			AttributeKey<?> key = AttributeKey.forOrdinal(ordinal);
+			out.writeUTF(key.getName());
+			out.writeObject(box(key));
+		}
+	}
+
+	/**
+	 * Reads the attributes written by {@link #writeObject(ObjectOutputStream)}
+	 * and stores them under the keys registered in this JVM. Attributes
+	 * without a registered key are kept in the map.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		int size = AttributeKey.size();
+		primitives = new long[size];
+		present = new long[(size+63)>>>6];
+		int count = in.readInt();
+		for(int i=0; i<count; i++) {
+			String name = in.readUTF();
+			Object value = in.readObject();
+			AttributeKey<?> key = AttributeKey.forName(name);
+			if(key == null || !store(key, value))
+				super.addAttribute(name, value);
+		}
+	}
+
+	private Map<String,Object> superAttributes() {
+		return super.getAttributes();
+	}
+
+	private boolean store(AttributeKey<?> key, Object value) {
+		int ordinal = key.getOrdinal();
+		switch(key.getKind()) {
+		case AttributeKey.INT:
+			if(!(value instanceof Integer))
+				return false;
+			setPrimitive(ordinal, (Integer)value);
+			return true;
+		case AttributeKey.LONG:
+			if(!(value instanceof Long))
+				return false;
+			setPrimitive(ordinal, (Long)value);
+			return true;
+		case AttributeKey.FLOAT:
+			if(!(value instanceof Float))
+				return false;
+			setPrimitive(ordinal, Float.floatToRawIntBits((Float)value));
+			return true;
+		default:
+			if(!key.getType().isInstance(value))
+				return false;
+			ensureCapacity(ordinal);
+			if(objects == null)
+				objects = new Object[primitives.length];
+			objects[ordinal] = value;
+			set(ordinal);
+			return true;
+		}
+	}
+
+	private Object box(AttributeKey<?> key) {
+		int ordinal = key.getOrdinal();
+		switch(key.getKind()) {
+		case AttributeKey.INT: return (int)primitives[ordinal];
+		case AttributeKey.LONG: return primitives[ordinal];
+		case AttributeKey.FLOAT: return Float.intBitsToFloat((int)primitives[ordinal]);
+		default: return objects[ordinal];
+		}
+	}
+
+	private void setPrimitive(int ordinal, long value) {
+		ensureCapacity(ordinal);
+		primitives[ordinal] = value;
+		set(ordinal);
+	}
+
+	private void set(int ordinal) {
+		present[ordinal>>>6] |= 1L << ordinal;
+		invalidateHashCode();
+		// A value stored earlier with a different type is replaced
+		if(!super.getAttributes().isEmpty())
+			removeAttribute(AttributeKey.forOrdinal(ordinal).getName());
+	}
+
+	private void ensureCapacity(int ordinal) {
+		if(ordinal >= primitives.length) {
+			int size = Math.max(ordinal+1, AttributeKey.size());
+			primitives = Arrays.copyOf(primitives, size);
+			if(objects != null)
+				objects = Arrays.copyOf(objects, size);
+			present = Arrays.copyOf(present, (size+63)>>>6);
+		} else if(objects != null && ordinal >= objects.length) {
+			objects = Arrays.copyOf(objects, primitives.length);
+		}
+	}
+
+	private boolean isSet(int ordinal) {
+		int word = ordinal>>>6;
+		return word < present.length && (present[word] & (1L << ordinal)) != 0;
+	}
+
+	private void unset(int ordinal) {
+		int word = ordinal>>>6;
+		if(word < present.length && (present[word] & (1L << ordinal)) != 0) {
+			present[word] &= ~(1L << ordinal);
+			invalidateHashCode();
+		}
+	}
+
+	private int countSet() {
+		int count = 0;
+		for(long bits: present)
+			count += Long.bitCount(bits);
+		return count;
+	}
+
+	private int nextSet(int ordinal) {
+		int word = ordinal>>>6;
+		if(word >= present.length)
+			return -1;
+		long bits = present[word] & (-1L << ordinal);
+		while(true) {
+			if(bits != 0)
+				return (word<<6) + Long.numberOfTrailingZeros(bits);
+			if(++word == present.length)
+				return -1;
+			bits = present[word];
+		}
+	}
+
+	/**
+	 * A read-only view of the attributes stored in arrays and in the map.
+	 */
+	private final class AttributesView extends AbstractMap<String,Object> {
+
+		private final Set<Map.Entry<String,Object>> entrySet = new AbstractSet<Map.Entry<String,Object>>() {
+
+			@Override
+			public Iterator<Map.Entry<String,Object>> iterator() {
+				final Iterator<Map.Entry<String,Object>> mapEntries = superAttributes().entrySet().iterator();
+				return new Iterator<Map.Entry<String,Object>>() {
+
+					private int ordinal = nextSet(0);
+
+					@Override
+					public boolean hasNext() {
+						return ordinal >= 0 || mapEntries.hasNext();
+					}
+
+					@Override
+					public Map.Entry<String,Object> next() {
+						if(ordinal < 0)
+							return mapEntries.next();
+						AttributeKey<?> key = AttributeKey.forOrdinal(ordinal);
+						ordinal = nextSet(ordinal+1);
+						return new AbstractMap.SimpleImmutableEntry<String,Object>(key.getName(), box(key));
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return AttributesView.this.size();
+			}
+		};
+
+		@Override
+		public Set<Map.Entry<String,Object>> entrySet() {
+			return entrySet;
+		}
+
+		@Override
+		public int size() {
+			return countSet() + superAttributes().size();
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return key instanceof String && isStored((String)key);
+		}
+
+		@Override
+		public Object get(Object key) {
+			return key instanceof String ? getStored((String)key) : null;
+		}
+	}
+}
@@ -0,0 +1,186 @@
+package rit.eyeTracking;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An interned attribute name with a declared value type and a dense
+ * ordinal. Each attribute name is registered at most once per JVM, so keys
+ * can be compared by identity and events can store attributes in arrays
+ * indexed by {@link #getOrdinal()} instead of hashing attribute names.
+ *
+ * Keys for the vendor-neutral standard attributes are available from
+ * {@link Event.Keys}.
+ *
+ * @param <T> The type of the attribute values
+ *
+ * @see Event#getAttribute(AttributeKey)
+ * @see Event#addAttribute(AttributeKey, Object)
+ */
+public final class AttributeKey<T> implements Serializable {
+
+	private static final long serialVersionUID = 2412386010548417011L;
+
+	static final int OBJECT = 0;
+	static final int INT = 1;
+	static final int LONG = 2;
+	static final int FLOAT = 3;
+
+	private static final ConcurrentMap<String,AttributeKey<?>> keysByName
+		= new ConcurrentHashMap<String,AttributeKey<?>>();
+	private static volatile AttributeKey<?>[] keysByOrdinal = new AttributeKey<?>[0];
+
+	private final String name;
+	private final Class<T> type;
+	private final transient int ordinal;
+	private final transient int kind;
+	private final transient boolean serializable;
+
+	private AttributeKey(String name, Class<T> type, int ordinal) {
+		this.name = name;
+		this.type = type;
+		this.ordinal = ordinal;
+		if(type == Integer.class)
+			kind = INT;
+		else if(type == Long.class)
+			kind = LONG;
+		else if(type == Float.class)
+			kind = FLOAT;
+		else
+			kind = OBJECT;
+		serializable = Serializable.class.isAssignableFrom(type)
+			&& Modifier.isFinal(type.getModifiers());
+	}
+
+	/**
+	 * Registers the given attribute name with the given value type, or
+	 * returns the key that has already been registered for the name.
+	 *
+	 * @param name The name of the attribute
+	 * @param type The type of the attribute values
+	 * @return The key for the attribute
+	 * @throws IllegalArgumentException If the name has already been
+	 * 	registered with a different value type.
+	 */
+	@SuppressWarnings("unchecked")
+	public static synchronized <T> AttributeKey<T> register(String name, Class<T> type) {
+		if(name == null)
+			throw new NullPointerException("name is null");
+		if(type == null)
+			throw new NullPointerException("type is null");
+		AttributeKey<?> key = keysByName.get(name);
+		if(key != null) {
+			if(key.type != type)
+				throw new IllegalArgumentException("Attribute "+name+" already registered with type "
+						+key.type.getName()+", cannot register it with type "+type.getName());
+			return (AttributeKey<T>)key;
+		}
+		AttributeKey<T> newKey = new AttributeKey<T>(name, type, keysByOrdinal.length);
+		AttributeKey<?>[] keys = Arrays.copyOf(keysByOrdinal, keysByOrdinal.length+1);
+		keys[newKey.ordinal] = newKey;
+		keysByName.put(name, newKey);
+		keysByOrdinal = keys;
+		return newKey;
+	}
+
+	/**
+	 * Returns the key registered for the given attribute name, or null.
+	 */
+	public static AttributeKey<?> forName(String name) {
+		return keysByName.get(name);
+	}
+
+	/**
+	 * Returns the key with the given ordinal.
+	 *
+	 * @throws ArrayIndexOutOfBoundsException If no key with the given
+	 * 	ordinal has been registered.
+	 */
+	public static AttributeKey<?> forOrdinal(int ordinal) {
+		return keysByOrdinal[ordinal];
+	}
+
+	/**
+	 * Returns the number of registered keys. All ordinals are smaller than
+	 * this number.
+	 */
+	public static int size() {
+		return keysByOrdinal.length;
+	}
+
+	/**
+	 * Returns the names of the given keys, e.g. to implement
+	 * {@link Source#getAttributesCreated()} or
+	 * {@link Filter#getAttributesRequired()} in terms of keys.
+	 */
+	public static String[] names(AttributeKey<?>... keys) {
+		String[] names = new String[keys.length];
+		for(int i=0; i<keys.length; i++)
+			names[i] = keys[i].name;
+		return names;
+	}
+
+	/**
+	 * Returns the keys registered for the given names. Elements of the
+	 * returned array are null for names that have not been registered.
+	 */
+	public static AttributeKey<?>[] keys(String... names) {
+		AttributeKey<?>[] keys = new AttributeKey<?>[names.length];
+		for(int i=0; i<names.length; i++)
+			keys[i] = keysByName.get(names[i]);
+		return keys;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Class<T> getType() {
+		return type;
+	}
+
+	/**
+	 * Returns the dense ordinal of this key. Ordinals are assigned in
+	 * registration order and are only valid within the current JVM.
+	 */
+	public int getOrdinal() {
+		return ordinal;
+	}
+
+	/**
+	 * Returns true, if values of this key are {@link Integer}s, {@link Long}s
+	 * or {@link Float}s that events may store in primitive form.
+	 */
+	public boolean isPrimitive() {
+		return kind != OBJECT;
+	}
+
+	/**
+	 * Returns true, if all values of this key are serializable, because
+	 * the type of the key is a final class that is {@link Serializable}.
+	 * Events do not need to check the values of such keys individually
+	 * when creating serializable copies.
+	 *
+	 * @see Event#getSerializable(EventFactory)
+	 */
+	public boolean isSerializable() {
+		return serializable;
+	}
+
+	int getKind() {
+		return kind;
+	}
+
+	private Object readResolve() throws ObjectStreamException {
+		return register(name, type);
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
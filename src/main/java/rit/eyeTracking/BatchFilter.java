@@ -0,0 +1,35 @@
+package rit.eyeTracking;
+
+import java.util.List;
+
+/**
+ * A {@link Filter} that can process several consecutive events at once,
+ * e.g. to write them to a file in bulk. Filters implementing this
+ * interface are passed the events delivered by
+ * {@link FilterChain#notifyBatch(List, EyeTrackingListener, Mode)} at once
+ * instead of being notified of each event.
+ * 
+ * @param <T> The type of configuration object provided when starting
+ * 	/ stopping the filter.
+ * @param <E> The type of event passed through the filter chain
+ * 	({@link Event} by default)
+ * @see BatchingFilterChain
+ */
+public interface BatchFilter<T,E extends Event> extends Filter<T,E> {
+	
+	/**
+	 * Provides consecutive events to the filter, in the order in which
+	 * they were created. The filter may add attributes to the events.
+	 * 
+	 * The list must not be modified and should be read before this method
+	 * returns, for it will be re-used afterwards. Like in
+	 * {@link #notify(Event, EyeTrackingListener, Mode)}, events that are
+	 * kept need to be retained.
+	 * 
+	 * @param events The events, in the order they were created
+	 * @param listener A listener to create new events
+	 * @param mode The mode of the application
+	 * @see PooledEventFactory#retain(Event)
+	 */
+	public void notifyBatch(List<E> events, EyeTrackingListener<E> listener, Mode mode);
+}
@@ -0,0 +1,176 @@
+package rit.eyeTracking;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A filter chain that collects events and delivers them to its filters
+ * in batches via {@link #notifyBatch(List, EyeTrackingListener, Mode)}, so
+ * {@link BatchFilter}s can amortize work over several events.
+ *
+ * A batch is delivered when it contains a given number of events, when
+ * its first event is older than a given time, when the mode or listener
+ * changes, when the chain is stopped and when {@link #flush()} is invoked.
+ * Batches that become too old while no events arrive are delivered by a
+ * timer thread shared by all chains, so filters need to tolerate being
+ * notified on that thread. In pass-through modes, {@link Mode#TRACKING_MODE} by default,
+ * events are delivered immediately, because filters delay the feedback
+ * given to the user otherwise.
+ *
+ * Pooled events are retained until the batch has been delivered. Events
+ * that filters create while a batch is delivered are passed to the filters
+ * immediately.
+ *
+ * @param <T> The type of configuration object provided when starting
+ * 	/ stopping the filter.
+ * @param <E> The type of event passed through the filter chain
+ * 	({@link Event} by default)
+ */
+public class BatchingFilterChain<T,E extends Event> extends FilterChain<T,E> {
+
+	private static final ScheduledThreadPoolExecutor timer = createTimer();
+
+	private final int maxEvents;
+	private final long maxDelayNanos;
+	private final Set<Mode> passThroughModes = EnumSet.of(Mode.TRACKING_MODE);
+	private final List<E> batch;
+	private long batchStart;
+	private EyeTrackingListener<E> batchListener;
+	private Mode batchMode;
+	private boolean delivering;
+	private ScheduledFuture<?> timeout;
+	/** The number of batches delivered, identifying the current batch */
+	private long delivered;
+
+	/**
+	 * @param filters The filters
+	 * @param maxEvents The maximum number of events per batch
+	 * @param maxDelayMicros The maximum age of the first event of a batch
+	 * 	in microseconds
+	 * @throws IllegalArgumentException If maxEvents is smaller than 1 or
+	 * 	maxDelayMicros is negative
+	 */
+	public BatchingFilterChain(Filter<T,E>[] filters, int maxEvents, long maxDelayMicros) {
+		super(filters);
+		if(maxEvents < 1)
+			throw new IllegalArgumentException("maxEvents must be positive: "+maxEvents);
+		if(maxDelayMicros < 0)
+			throw new IllegalArgumentException("maxDelayMicros must not be negative: "+maxDelayMicros);
+		this.maxEvents = maxEvents;
+		this.maxDelayNanos = maxDelayMicros * 1000L;
+		this.batch = new ArrayList<E>(maxEvents);
+	}
+
+	private static ScheduledThreadPoolExecutor createTimer() {
+		ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "BatchingFilterChain-timer");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		timer.setRemoveOnCancelPolicy(true);
+		return timer;
+	}
+
+	/**
+	 * Sets whether events are delivered immediately in the given mode.
+	 */
+	public synchronized void setPassThrough(Mode mode, boolean passThrough) {
+		if(passThrough)
+			passThroughModes.add(mode);
+		else
+			passThroughModes.remove(mode);
+	}
+
+	public synchronized boolean isPassThrough(Mode mode) {
+		return passThroughModes.contains(mode);
+	}
+
+	/**
+	 * Adds the event to the current batch and delivers the batch if it is
+	 * full or too old, or passes the event to the filters immediately in
+	 * pass-through modes.
+	 */
+	@Override
+	public synchronized void notify(E e, EyeTrackingListener<E> listener, Mode mode) {
+		if(delivering || passThroughModes.contains(mode)) {
+			if(!delivering)
+				flush();
+			super.notify(e, listener, mode);
+			return;
+		}
+		long now = System.nanoTime();
+		if(!batch.isEmpty() && (listener != batchListener || mode != batchMode
+				|| now - batchStart >= maxDelayNanos))
+			flush();
+		if(batch.isEmpty()) {
+			batchStart = now;
+			batchListener = listener;
+			batchMode = mode;
+			if(maxEvents > 1)
+				scheduleTimeout();
+		}
+		PooledEventFactory.retain(e);
+		batch.add(e);
+		if(batch.size() >= maxEvents)
+			flush();
+	}
+
+	/**
+	 * Schedules the delivery of the current batch once its first event is
+	 * too old.
+	 */
+	private void scheduleTimeout() {
+		final long number = delivered;
+		timeout = timer.schedule(new Runnable() {
+				@Override
+				public void run() {
+					synchronized(BatchingFilterChain.this) {
+						if(!batch.isEmpty() && delivered == number)
+							flush();
+					}
+				}
+			}, maxDelayNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Delivers the current batch, if any.
+	 */
+	public synchronized void flush() {
+		if(batch.isEmpty() || delivering)
+			return;
+		if(timeout != null) {
+			timeout.cancel(false);
+			timeout = null;
+		}
+		delivering = true;
+		delivered++;
+		try {
+			notifyBatch(batch, batchListener, batchMode);
+		} finally {
+			delivering = false;
+			for(E e: batch)
+				PooledEventFactory.release(e);
+			batch.clear();
+			batchListener = null;
+			batchMode = null;
+		}
+	}
+
+	/**
+	 * Delivers the current batch and stops the filters.
+	 */
+	@Override
+	public void stop(T obj, EyeTrackingListener<E> listener, Mode mode) {
+		flush();
+		super.stop(obj, listener, mode);
+	}
+}
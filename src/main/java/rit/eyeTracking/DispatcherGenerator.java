@@ -0,0 +1,218 @@
+package rit.eyeTracking;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates subclasses of {@link FilterDispatcher} whose notify method
+ * is unrolled, so each filter is notified from a call site of its own:
+ *
+ * <pre>
+ * int flags = e.getFlags();
+ * if(accepts(0, e, flags))               // omitted if interested in all events
+ *     filters[0].notify(e, listener, mode);
+ * filters[1].notify(e, listener, mode);
+ * ...
+ * </pre>
+ *
+ * The class files are written directly, in version 49 that requires no
+ * stack map frames. Each class is defined by a class loader of its own, so
+ * it can be unloaded when its dispatcher is no longer used.
+ */
+final class DispatcherGenerator {
+
+	private static final String SUPER = "rit/eyeTracking/FilterDispatcher";
+	private static final String FILTER = "rit/eyeTracking/Filter";
+	private static final String EVENT = "rit/eyeTracking/Event";
+	private static final String NOTIFY_DESCRIPTOR = "(L"+EVENT+";Lrit/eyeTracking/EyeTrackingListener;"
+			+"Lrit/eyeTracking/EyeTrackingListener$Mode;)V";
+	private static final AtomicInteger count = new AtomicInteger();
+
+	private static final int CONSTANT_UTF8 = 1;
+	private static final int CONSTANT_CLASS = 7;
+	private static final int CONSTANT_FIELDREF = 9;
+	private static final int CONSTANT_METHODREF = 10;
+	private static final int CONSTANT_INTERFACE_METHODREF = 11;
+	private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+	private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+	private final DataOutputStream pool = new DataOutputStream(poolBytes);
+	private final Map<String,Integer> constants = new HashMap<String,Integer>();
+	private int poolSize = 1;
+
+	private DispatcherGenerator() {
+	}
+
+	/**
+	 * Generates and defines a dispatcher class for the given filters.
+	 */
+	static Class<?> generate(Filter<?,?>[] filters) throws IOException {
+		String name = "rit.eyeTracking.generated.FilterDispatcher$"+count.incrementAndGet();
+		byte[] bytes = new DispatcherGenerator().write(name.replace('.', '/'), filters);
+		return new Loader(FilterDispatcher.class.getClassLoader()).define(name, bytes);
+	}
+
+	private byte[] write(String name, Filter<?,?>[] filters) throws IOException {
+		int thisClass = classConstant(name);
+		int superClass = classConstant(SUPER);
+		int superInit = memberConstant(CONSTANT_METHODREF, SUPER, "<init>", "([L"+FILTER+";)V");
+		int filtersField = memberConstant(CONSTANT_FIELDREF, SUPER, "filters", "[L"+FILTER+";");
+		int accepts = memberConstant(CONSTANT_METHODREF, SUPER, "accepts", "(IL"+EVENT+";I)Z");
+		int getFlags = memberConstant(CONSTANT_INTERFACE_METHODREF, EVENT, "getFlags", "()I");
+		int notify = memberConstant(CONSTANT_INTERFACE_METHODREF, FILTER, "notify", NOTIFY_DESCRIPTOR);
+		int code = utf8Constant("Code");
+		int initName = utf8Constant("<init>");
+		int initDescriptor = utf8Constant("([L"+FILTER+";)V");
+		int notifyName = utf8Constant("notify");
+		int notifyDescriptor = utf8Constant(NOTIFY_DESCRIPTOR);
+
+		// public <init>(Filter[] filters) { super(filters); }
+		ByteArrayOutputStream initBytes = new ByteArrayOutputStream();
+		DataOutputStream init = new DataOutputStream(initBytes);
+		init.writeByte(0x2a); // aload_0
+		init.writeByte(0x2b); // aload_1
+		init.writeByte(0xb7); // invokespecial
+		init.writeShort(superInit);
+		init.writeByte(0xb1); // return
+
+		// public void notify(Event e, EyeTrackingListener listener, Mode mode)
+		ByteArrayOutputStream notifyBytes = new ByteArrayOutputStream();
+		DataOutputStream body = new DataOutputStream(notifyBytes);
+		body.writeByte(0x2b); // aload_1
+		body.writeByte(0xb9); // invokeinterface
+		body.writeShort(getFlags);
+		body.writeByte(1);
+		body.writeByte(0);
+		body.writeByte(0x36); // istore
+		body.writeByte(4);
+		for(int i=0; i<filters.length; i++) {
+			ByteArrayOutputStream callBytes = new ByteArrayOutputStream();
+			DataOutputStream call = new DataOutputStream(callBytes);
+			call.writeByte(0x2a); // aload_0
+			call.writeByte(0xb4); // getfield
+			call.writeShort(filtersField);
+			pushInt(call, i);
+			call.writeByte(0x32); // aaload
+			call.writeByte(0x2b); // aload_1
+			call.writeByte(0x2c); // aload_2
+			call.writeByte(0x2d); // aload_3
+			call.writeByte(0xb9); // invokeinterface
+			call.writeShort(notify);
+			call.writeByte(4);
+			call.writeByte(0);
+			if(!FilterInterest.of(filters[i]).isAll()) {
+				body.writeByte(0x2a); // aload_0
+				pushInt(body, i);
+				body.writeByte(0x2b); // aload_1
+				body.writeByte(0x15); // iload
+				body.writeByte(4);
+				body.writeByte(0xb6); // invokevirtual
+				body.writeShort(accepts);
+				body.writeByte(0x99); // ifeq, relative to the ifeq instruction
+				body.writeShort(3 + callBytes.size());
+			}
+			callBytes.writeTo(body);
+		}
+		body.writeByte(0xb1); // return
+
+		ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(classBytes);
+		out.writeInt(0xCAFEBABE);
+		out.writeShort(0);
+		out.writeShort(49);
+		out.writeShort(poolSize);
+		pool.flush();
+		poolBytes.writeTo(out);
+		out.writeShort(0x0001 | 0x0010 | 0x0020); // public final super
+		out.writeShort(thisClass);
+		out.writeShort(superClass);
+		out.writeShort(0); // interfaces
+		out.writeShort(0); // fields
+		out.writeShort(2); // methods
+		writeMethod(out, initName, initDescriptor, code, 2, 2, initBytes);
+		writeMethod(out, notifyName, notifyDescriptor, code, 6, 5, notifyBytes);
+		out.writeShort(0); // attributes
+		out.flush();
+		return classBytes.toByteArray();
+	}
+
+	private static void writeMethod(DataOutputStream out, int name, int descriptor, int code,
+			int maxStack, int maxLocals, ByteArrayOutputStream bytecode) throws IOException {
+		out.writeShort(0x0001); // public
+		out.writeShort(name);
+		out.writeShort(descriptor);
+		out.writeShort(1); // attributes
+		out.writeShort(code);
+		out.writeInt(12 + bytecode.size());
+		out.writeShort(maxStack);
+		out.writeShort(maxLocals);
+		out.writeInt(bytecode.size());
+		bytecode.writeTo(out);
+		out.writeShort(0); // exception table
+		out.writeShort(0); // attributes
+	}
+
+	private static void pushInt(DataOutputStream out, int value) throws IOException {
+		if(value <= 5) {
+			out.writeByte(0x03 + value); // iconst_<value>
+		} else if(value <= Byte.MAX_VALUE) {
+			out.writeByte(0x10); // bipush
+			out.writeByte(value);
+		} else {
+			out.writeByte(0x11); // sipush
+			out.writeShort(value);
+		}
+	}
+
+	private int utf8Constant(String value) throws IOException {
+		Integer index = constants.get("U"+value);
+		if(index == null) {
+			pool.writeByte(CONSTANT_UTF8);
+			pool.writeUTF(value);
+			index = poolSize++;
+			constants.put("U"+value, index);
+		}
+		return index;
+	}
+
+	private int classConstant(String internalName) throws IOException {
+		Integer index = constants.get("C"+internalName);
+		if(index == null) {
+			int name = utf8Constant(internalName);
+			pool.writeByte(CONSTANT_CLASS);
+			pool.writeShort(name);
+			index = poolSize++;
+			constants.put("C"+internalName, index);
+		}
+		return index;
+	}
+
+	private int memberConstant(int tag, String owner, String name, String descriptor) throws IOException {
+		int ownerIndex = classConstant(owner);
+		int nameIndex = utf8Constant(name);
+		int descriptorIndex = utf8Constant(descriptor);
+		pool.writeByte(CONSTANT_NAME_AND_TYPE);
+		pool.writeShort(nameIndex);
+		pool.writeShort(descriptorIndex);
+		int nameAndType = poolSize++;
+		pool.writeByte(tag);
+		pool.writeShort(ownerIndex);
+		pool.writeShort(nameAndType);
+		return poolSize++;
+	}
+
+	private static final class Loader extends ClassLoader {
+
+		private Loader(ClassLoader parent) {
+			super(parent);
+		}
+
+		private Class<?> define(String name, byte[] bytes) {
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+	}
+}
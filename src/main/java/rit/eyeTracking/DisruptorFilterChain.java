@@ -0,0 +1,250 @@
+package rit.eyeTracking;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.BusySpinWaitStrategy;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.ExceptionHandler;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.WaitStrategy;
+import com.lmax.disruptor.YieldingWaitStrategy;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.EventHandlerGroup;
+import com.lmax.disruptor.dsl.ProducerType;
+
+/**
+ * A filter chain that hands events over to its filters via a pre-allocated
+ * ring buffer of the LMAX Disruptor, so the thread receiving samples from
+ * the eye tracker never runs filters itself.
+ *
+ * While the chain is started, each level of filters computed by
+ * {@link FilterChainCompiler#compileLevels()} is run by an event handler
+ * with a thread of its own, so consecutive events are processed in a
+ * pipeline. Each event is processed by one handler at a time, so events
+ * need not be thread-safe, but filters are notified on handler threads.
+ * Filters added or removed while the chain is started are notified by the
+ * handler of their level, or by the last handler if there are more levels
+ * than when the chain was started.
+ *
+ * {@link #notify(Event, EyeTrackingListener, Mode)} retains pooled events
+ * until all filters have been notified. Filters that notify this chain of
+ * new events while it is started must not do so if the ring buffer may be
+ * full, because publishing would wait for the handler that is publishing.
+ * Events passed while the chain is stopped and batches are passed to the
+ * filters synchronously. Sources should be stopped before the chain.
+ *
+ * @param <T> The type of configuration object provided when starting
+ * 	/ stopping the filter.
+ * @param <E> The type of event passed through the filter chain
+ * 	({@link Event} by default)
+ */
+public class DisruptorFilterChain<T,E extends Event> extends FilterChain<T,E> {
+
+	/**
+	 * Strategies of handlers waiting for events.
+	 */
+	public enum Wait {
+		/**
+		 * Spin, which gives the lowest latency but keeps one core busy per
+		 * level of filters.
+		 */
+		BUSY_SPIN,
+		/**
+		 * Spin and yield, which gives low latency and lets other threads
+		 * use idle cores.
+		 */
+		YIELDING,
+		/**
+		 * Wait on a lock, which uses the least CPU time.
+		 */
+		BLOCKING;
+
+		WaitStrategy create() {
+			switch(this) {
+			case BUSY_SPIN: return new BusySpinWaitStrategy();
+			case YIELDING: return new YieldingWaitStrategy();
+			default: return new BlockingWaitStrategy();
+			}
+		}
+	}
+
+	private final int bufferSize;
+	private final Wait wait;
+	private volatile FilterLevels<T,E> levels;
+	private Disruptor<Slot<T,E>> disruptor;
+	private ExecutorService executor;
+	private volatile RingBuffer<Slot<T,E>> ringBuffer;
+
+	/**
+	 * Creates a chain with 1024 slots whose handlers wait
+	 * {@link Wait#BLOCKING blocking}.
+	 */
+	public DisruptorFilterChain(Filter<T,E>[] filters) {
+		this(filters, 1024, Wait.BLOCKING);
+	}
+
+	/**
+	 * @param filters The filters
+	 * @param bufferSize The number of events in the ring buffer, a power
+	 * 	of two
+	 * @param wait How handlers wait for events
+	 * @throws IllegalArgumentException If the buffer size is not a power
+	 * 	of two
+	 */
+	public DisruptorFilterChain(Filter<T,E>[] filters, int bufferSize, Wait wait) {
+		super(filters);
+		if(bufferSize < 1 || Integer.bitCount(bufferSize) != 1)
+			throw new IllegalArgumentException("Buffer size must be a power of 2: "+bufferSize);
+		this.bufferSize = bufferSize;
+		this.wait = wait;
+	}
+
+	@Override
+	protected synchronized void updateDispatch() {
+		super.updateDispatch();
+		levels = new FilterLevels<T,E>(createCompiler().compileLevels());
+	}
+
+	/**
+	 * Starts the filters and the handlers.
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public synchronized void start(T obj, EyeTrackingListener<E> listener, Mode mode) {
+		if(disruptor != null)
+			throw new IllegalStateException("Already started");
+		super.start(obj, listener, mode);
+		executor = Executors.newCachedThreadPool(new HandlerThreadFactory());
+		disruptor = new Disruptor<Slot<T,E>>(new com.lmax.disruptor.EventFactory<Slot<T,E>>() {
+				@Override
+				public Slot<T,E> newInstance() {
+					return new Slot<T,E>();
+				}
+			}, bufferSize, executor, ProducerType.MULTI, wait.create());
+		disruptor.handleExceptionsWith(new PrintingExceptionHandler());
+		int stages = Math.max(1, levels.filters.length);
+		EventHandlerGroup<Slot<T,E>> group = disruptor.handleEventsWith(new Stage<T,E>(0, stages == 1));
+		for(int i=1; i<stages; i++)
+			group = group.then(new Stage<T,E>(i, i == stages-1));
+		ringBuffer = disruptor.start();
+	}
+
+	/**
+	 * Waits until all published events have been processed, stops the
+	 * handlers and then stops the filters.
+	 */
+	@Override
+	public synchronized void stop(T obj, EyeTrackingListener<E> listener, Mode mode) {
+		if(disruptor != null) {
+			ringBuffer = null;
+			disruptor.shutdown();
+			executor.shutdown();
+			disruptor = null;
+			executor = null;
+		}
+		super.stop(obj, listener, mode);
+	}
+
+	/**
+	 * Publishes the event to the ring buffer, or passes it to the filters
+	 * if the chain is not started. If the ring buffer is full, waits for
+	 * the handlers.
+	 */
+	@Override
+	public void notify(E e, EyeTrackingListener<E> listener, Mode mode) {
+		RingBuffer<Slot<T,E>> ringBuffer = this.ringBuffer;
+		if(ringBuffer == null) {
+			super.notify(e, listener, mode);
+			return;
+		}
+		PooledEventFactory.retain(e);
+		long sequence = ringBuffer.next();
+		Slot<T,E> slot = ringBuffer.get(sequence);
+		slot.event = e;
+		slot.listener = listener;
+		slot.mode = mode;
+		slot.levels = levels;
+		ringBuffer.publish(sequence);
+	}
+
+	/**
+	 * A pre-allocated entry of the ring buffer.
+	 */
+	private static final class Slot<T,E extends Event> {
+		private E event;
+		private EyeTrackingListener<E> listener;
+		private Mode mode;
+		private FilterLevels<T,E> levels;
+	}
+
+	/**
+	 * Notifies the filters of one level, and of all following levels if
+	 * it is the last stage. The last stage releases the event.
+	 */
+	private static final class Stage<T,E extends Event> implements EventHandler<Slot<T,E>> {
+
+		private final int level;
+		private final boolean last;
+
+		private Stage(int level, boolean last) {
+			this.level = level;
+			this.last = last;
+		}
+
+		@Override
+		public void onEvent(Slot<T,E> slot, long sequence, boolean endOfBatch) {
+			FilterLevels<T,E> levels = slot.levels;
+			try {
+				int end = last ? levels.filters.length : Math.min(level+1, levels.filters.length);
+				for(int l=level; l<end; l++)
+					levels.notify(l, slot.event, slot.listener, slot.mode);
+			} finally {
+				if(last) {
+					E e = slot.event;
+					slot.event = null;
+					slot.listener = null;
+					slot.levels = null;
+					PooledEventFactory.release(e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Prints exceptions thrown by filters, like the other asynchronous
+	 * chains do, and lets the handlers continue with the next event.
+	 */
+	private static final class PrintingExceptionHandler implements ExceptionHandler {
+
+		@Override
+		public void handleEventException(Throwable t, long sequence, Object slot) {
+			t.printStackTrace();
+		}
+
+		@Override
+		public void handleOnStartException(Throwable t) {
+			t.printStackTrace();
+		}
+
+		@Override
+		public void handleOnShutdownException(Throwable t) {
+			t.printStackTrace();
+		}
+	}
+
+	private static final class HandlerThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "DisruptorFilterChain-"+count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
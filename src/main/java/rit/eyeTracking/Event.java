@@ -1,7 +1,11 @@
 package rit.eyeTracking;
 
+import java.io.ObjectStreamException;
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * An event contains a map of attributes that can be extended but not modified.
@@ -10,6 +14,13 @@ import java.util.Map;
  */
 public interface Event {
 
+	/*
+	 * The ordinals of the standard IDs are fixed, so they can be used as
+	 * case labels when switching on ID#getOrdinal(). Ordinals below
+	 * IDImpl.FIRST_DYNAMIC_ORDINAL are reserved for IDs declared by this
+	 * API, e.g. in IViewX.
+	 */
+	public static final int RAW_EVENT_ORDINAL = 0;
 	public static final String RAW_EVENT_ID = "RAW";
 	/**
 	 * Name of the vendor-neutral standard {@link Boolean} attribute
@@ -24,8 +35,9 @@ public interface Event {
 	 * @see #FIXATION_START
 	 * @see #FIXATION_END
 	 */
-	public static final ID RAW_EVENT = new IDImpl(RAW_EVENT_ID);
+	public static final ID RAW_EVENT = new IDImpl(RAW_EVENT_ID, RAW_EVENT_ORDINAL);
 
+	public static final int FIXATION_START_ORDINAL = 1;
 	public static final String FIXATION_START_ID = "FS";
 	/**
 	 * Name of the vendor-neutral standard {@link Boolean} attribute
@@ -45,8 +57,9 @@ public interface Event {
 	 * @see #FIXATION_END
 	 * @see #RAW_EVENT
 	 */
-	public static final ID FIXATION_START = new IDImpl(FIXATION_START_ID);
+	public static final ID FIXATION_START = new IDImpl(FIXATION_START_ID, FIXATION_START_ORDINAL);
 	
+	public static final int FIXATION_END_ORDINAL = 2;
 	public static final String FIXATION_END_ID = "FE";
 	/**
 	 * Name of the vendor-neutral standard {@link Boolean} attribute
@@ -63,14 +76,17 @@ public interface Event {
 	 * @see #FIXATION_START
 	 * @see #RAW_EVENT
 	 */
-	public static final ID FIXATION_END = new IDImpl(FIXATION_END_ID);
+	public static final ID FIXATION_END = new IDImpl(FIXATION_END_ID, FIXATION_END_ORDINAL);
 	
+	public static final int SACCADE_START_ORDINAL = 3;
 	public static final String SACCADE_START_ID = "SaccS";
-	public static final ID SACCADE_START = new IDImpl(SACCADE_START_ID);
+	public static final ID SACCADE_START = new IDImpl(SACCADE_START_ID, SACCADE_START_ORDINAL);
 	
+	public static final int SACCADE_END_ORDINAL = 4;
 	public static final String SACCADE_END_ID = "SaccE";
-	public static final ID SACCADE_END = new IDImpl(SACCADE_END_ID);
+	public static final ID SACCADE_END = new IDImpl(SACCADE_END_ID, SACCADE_END_ORDINAL);
 
+	public static final int BLINK_ORDINAL = 5;
 	public static final String BLINK_ID = "BL";
 	/**
 	 * A blink event to be detected when a single data sample or a short
@@ -78,13 +94,15 @@ public interface Event {
 	 * 
 	 * @deprecated Use BLINK_START and BLINK_END instead
 	 */
-	public static final ID BLINK = new IDImpl(BLINK_ID);
+	public static final ID BLINK = new IDImpl(BLINK_ID, BLINK_ORDINAL);
 
+	public static final int BLINK_START_ORDINAL = 6;
 	public static final String BLINK_START_ID = "BS";
-	public static final ID BLINK_START = new IDImpl(BLINK_START_ID);
+	public static final ID BLINK_START = new IDImpl(BLINK_START_ID, BLINK_START_ORDINAL);
 	
+	public static final int BLINK_END_ORDINAL = 7;
 	public static final String BLINK_END_ID = "BE";
-	public static final ID BLINK_END = new IDImpl(BLINK_END_ID);
+	public static final ID BLINK_END = new IDImpl(BLINK_END_ID, BLINK_END_ORDINAL);
 	
 	// TODO: It may be desirable to provide microsecond-timestamps in the future
 	
@@ -328,6 +346,135 @@ public interface Event {
 	public static final String TET_POR_SMOOTHED_R_X = "tet.POR_SMOOTHED_R_X";
 	public static final String TET_POR_SMOOTHED_R_Y = "tet.POR_SMOOTHED_R_Y";
 	
+	/**
+	 * {@link AttributeKey}s for the vendor-neutral standard attributes
+	 * declared by {@link Event}.
+	 */
+	public static final class Keys {
+		
+		public static final AttributeKey<Long> TRACKER_TIMESTAMP_MS = AttributeKey.register(Event.TRACKER_TIMESTAMP_MS, Long.class);
+		public static final AttributeKey<Long> TRACKER_TIMESTAMP_MU = AttributeKey.register(Event.TRACKER_TIMESTAMP_MU, Long.class);
+		public static final AttributeKey<Long> DURATION_MU = AttributeKey.register(Event.DURATION_MU, Long.class);
+		public static final AttributeKey<Long> FIXATION_START_TIMESTAMP_MS = AttributeKey.register(Event.FIXATION_START_TIMESTAMP_MS, Long.class);
+		public static final AttributeKey<Long> FIXATION_END_TIMESTAMP_MS = AttributeKey.register(Event.FIXATION_END_TIMESTAMP_MS, Long.class);
+		public static final AttributeKey<Long> FIXATION_DURATION_MS = AttributeKey.register(Event.FIXATION_DURATION_MS, Long.class);
+		public static final AttributeKey<Long> CLIENT_TIMESTAMP_MS = AttributeKey.register(Event.CLIENT_TIMESTAMP_MS, Long.class);
+		public static final AttributeKey<String> EYE_TYPE = AttributeKey.register(Event.EYE_TYPE, String.class);
+		public static final AttributeKey<Integer> POR_X = AttributeKey.register(Event.POR_X, Integer.class);
+		public static final AttributeKey<Integer> POR_Y = AttributeKey.register(Event.POR_Y, Integer.class);
+		public static final AttributeKey<Float> EYE_X_L = AttributeKey.register(Event.EYE_X_L, Float.class);
+		public static final AttributeKey<Float> EYE_Y_L = AttributeKey.register(Event.EYE_Y_L, Float.class);
+		public static final AttributeKey<Float> EYE_Z_L = AttributeKey.register(Event.EYE_Z_L, Float.class);
+		public static final AttributeKey<Float> EYE_X_R = AttributeKey.register(Event.EYE_X_R, Float.class);
+		public static final AttributeKey<Float> EYE_Y_R = AttributeKey.register(Event.EYE_Y_R, Float.class);
+		public static final AttributeKey<Float> EYE_Z_R = AttributeKey.register(Event.EYE_Z_R, Float.class);
+		public static final AttributeKey<Float> PUPIL_DIA_L_PX = AttributeKey.register(Event.PUPIL_DIA_L_PX, Float.class);
+		public static final AttributeKey<Float> PUPIL_DIA_R_PX = AttributeKey.register(Event.PUPIL_DIA_R_PX, Float.class);
+		public static final AttributeKey<Float> PUPIL_DIA_L_MM = AttributeKey.register(Event.PUPIL_DIA_L_MM, Float.class);
+		public static final AttributeKey<Float> PUPIL_DIA_R_MM = AttributeKey.register(Event.PUPIL_DIA_R_MM, Float.class);
+		public static final AttributeKey<Float> PUPIL_POS_X_L = AttributeKey.register(Event.PUPIL_POS_X_L, Float.class);
+		public static final AttributeKey<Float> PUPIL_POS_X_R = AttributeKey.register(Event.PUPIL_POS_X_R, Float.class);
+		public static final AttributeKey<Float> PUPIL_POS_Y_L = AttributeKey.register(Event.PUPIL_POS_Y_L, Float.class);
+		public static final AttributeKey<Float> PUPIL_POS_Y_R = AttributeKey.register(Event.PUPIL_POS_Y_R, Float.class);
+		public static final AttributeKey<Float> CORNEAL_REFLEX_POS_X_L = AttributeKey.register(Event.CORNEAL_REFLEX_POS_X_L, Float.class);
+		public static final AttributeKey<Float> CORNEAL_REFLEX_POS_X_R = AttributeKey.register(Event.CORNEAL_REFLEX_POS_X_R, Float.class);
+		public static final AttributeKey<Float> CORNEAL_REFLEX_POS_Y_L = AttributeKey.register(Event.CORNEAL_REFLEX_POS_Y_L, Float.class);
+		public static final AttributeKey<Float> CORNEAL_REFLEX_POS_Y_R = AttributeKey.register(Event.CORNEAL_REFLEX_POS_Y_R, Float.class);
+		
+		// The value types of the TET attributes are not specified
+		public static final AttributeKey<Object> TET_STATE = AttributeKey.register(Event.TET_STATE, Object.class);
+		public static final AttributeKey<Object> TET_POR_RAW_X = AttributeKey.register(Event.TET_POR_RAW_X, Object.class);
+		public static final AttributeKey<Object> TET_POR_RAW_Y = AttributeKey.register(Event.TET_POR_RAW_Y, Object.class);
+		public static final AttributeKey<Object> TET_POR_SMOOTHED_X = AttributeKey.register(Event.TET_POR_SMOOTHED_X, Object.class);
+		public static final AttributeKey<Object> TET_POR_SMOOTHED_Y = AttributeKey.register(Event.TET_POR_SMOOTHED_Y, Object.class);
+		public static final AttributeKey<Object> TET_PUPIL_SIZE_L = AttributeKey.register(Event.TET_PUPIL_SIZE_L, Object.class);
+		public static final AttributeKey<Object> TET_PUPIL_SIZE_R = AttributeKey.register(Event.TET_PUPIL_SIZE_R, Object.class);
+		public static final AttributeKey<Object> TET_PUPIL_LR_DISTANCE = AttributeKey.register(Event.TET_PUPIL_LR_DISTANCE, Object.class);
+		public static final AttributeKey<Object> TET_PUPIL_CENTER_L_X = AttributeKey.register(Event.TET_PUPIL_CENTER_L_X, Object.class);
+		public static final AttributeKey<Object> TET_PUPIL_CENTER_L_Y = AttributeKey.register(Event.TET_PUPIL_CENTER_L_Y, Object.class);
+		public static final AttributeKey<Object> TET_PUPIL_CENTER_R_X = AttributeKey.register(Event.TET_PUPIL_CENTER_R_X, Object.class);
+		public static final AttributeKey<Object> TET_PUPIL_CENTER_R_Y = AttributeKey.register(Event.TET_PUPIL_CENTER_R_Y, Object.class);
+		public static final AttributeKey<Object> TET_POR_RAW_L_X = AttributeKey.register(Event.TET_POR_RAW_L_X, Object.class);
+		public static final AttributeKey<Object> TET_POR_RAW_L_Y = AttributeKey.register(Event.TET_POR_RAW_L_Y, Object.class);
+		public static final AttributeKey<Object> TET_POR_RAW_R_X = AttributeKey.register(Event.TET_POR_RAW_R_X, Object.class);
+		public static final AttributeKey<Object> TET_POR_RAW_R_Y = AttributeKey.register(Event.TET_POR_RAW_R_Y, Object.class);
+		public static final AttributeKey<Object> TET_POR_SMOOTHED_L_X = AttributeKey.register(Event.TET_POR_SMOOTHED_L_X, Object.class);
+		public static final AttributeKey<Object> TET_POR_SMOOTHED_L_Y = AttributeKey.register(Event.TET_POR_SMOOTHED_L_Y, Object.class);
+		public static final AttributeKey<Object> TET_POR_SMOOTHED_R_X = AttributeKey.register(Event.TET_POR_SMOOTHED_R_X, Object.class);
+		public static final AttributeKey<Object> TET_POR_SMOOTHED_R_Y = AttributeKey.register(Event.TET_POR_SMOOTHED_R_Y, Object.class);
+		
+		private Keys() {
+		}
+		
+		/**
+		 * Ensures that the standard keys have been registered.
+		 */
+		static void register() {
+		}
+	}
+	
+	
+	/**
+	 * Bit masks for the most frequent boolean markers of events. The flags
+	 * of an event are initialized from its {@link ID} and can be tested via
+	 * {@link Event#hasFlags(int)} without looking up attributes.
+	 * 
+	 * @see Event#getFlags()
+	 * @see FlagFilter#getFlagsOfInterest()
+	 */
+	public static final class Flags {
+		
+		public static final int RAW = 1;
+		public static final int FIXATION_START = 1<<1;
+		public static final int FIXATION_END = 1<<2;
+		public static final int SACCADE_START = 1<<3;
+		public static final int SACCADE_END = 1<<4;
+		public static final int BLINK_START = 1<<5;
+		public static final int BLINK_END = 1<<6;
+		
+		public static final int FIXATION = FIXATION_START|FIXATION_END;
+		public static final int SACCADE = SACCADE_START|SACCADE_END;
+		public static final int BLINK = BLINK_START|BLINK_END;
+		
+		/**
+		 * A mask that matches all events, including events without flags.
+		 */
+		public static final int ALL = -1;
+		
+		private Flags() {
+		}
+		
+		/**
+		 * Returns the flags implied by the given ID.
+		 * 
+		 * @param id An event ID, may be null
+		 * @return The flags for events with the given ID, or 0
+		 */
+		public static int of(ID id) {
+			if(!(id instanceof IDImpl))
+				return 0;
+			switch(id.getOrdinal()) {
+			case RAW_EVENT_ORDINAL: return RAW;
+			case FIXATION_START_ORDINAL: return FIXATION_START;
+			case FIXATION_END_ORDINAL: return FIXATION_END;
+			case SACCADE_START_ORDINAL: return SACCADE_START;
+			case SACCADE_END_ORDINAL: return SACCADE_END;
+			case BLINK_ORDINAL: return BLINK_START|BLINK_END;
+			case BLINK_START_ORDINAL: return BLINK_START;
+			case BLINK_END_ORDINAL: return BLINK_END;
+			default: return 0;
+			}
+		}
+		
+		/**
+		 * Returns true, if events with the given flags match the given
+		 * mask, i.e. if the mask is {@link #ALL} or shares a flag with
+		 * the event.
+		 */
+		public static boolean matches(int flags, int mask) {
+			return mask == ALL || (flags & mask) != 0;
+		}
+	}
 	
 	/**
 	 * Returns the {@link ID} that identified the type of event.
@@ -336,6 +483,30 @@ public interface Event {
 	 */
 	public ID getID();
 	
+	/**
+	 * Returns the {@link Flags} of this event. The flags implied by
+	 * the ID of the event are always set.
+	 * 
+	 * @return A bit set of {@link Flags}
+	 */
+	public int getFlags();
+	
+	/**
+	 * Returns true, if at least one of the given flags is set.
+	 * 
+	 * @param mask A combination of {@link Flags}
+	 * @return Whether the event has one of the flags
+	 */
+	public boolean hasFlags(int mask);
+	
+	/**
+	 * Sets the given flags in addition to the flags already set. Like
+	 * attributes, flags cannot be removed from an event.
+	 * 
+	 * @param mask A combination of {@link Flags}
+	 */
+	public void addFlags(int mask);
+	
 	/**
 	 * Adds an attribute to the event.
 	 * 
@@ -362,8 +533,8 @@ public interface Event {
 	 * of the respective listener returns, for the event will be destroyed
 	 * after the last listener has been notified.
 	 * 
-	 * TODO: Use a bitmap/int field for the most frequent boolean
-	 * attributes (RAW, FE, FS, SAC, ...) / for event types
+	 * Use {@link #hasFlags(int)} to test for the most frequent
+	 * boolean markers like {@link Flags#RAW} instead.
 	 * 
 	 * @param name The name of the attribute to return
 	 * @return The value of attribute, if set, null otherwise.
@@ -372,6 +543,142 @@ public interface Event {
 	 */
 	public <T> T getAttribute(String name);
 	
+	/**
+	 * Adds an {@link Integer} attribute to the event. Implementations that
+	 * provide primitive storage for the named attribute do not box the value.
+	 * 
+	 * @param name The name of the attribute
+	 * @param value The value of the attribute
+	 * @see #addAttribute(String, Object)
+	 * @see #getInt(String)
+	 */
+	public void addAttribute(String name, int value);
+	
+	/**
+	 * Adds a {@link Long} attribute to the event. Implementations that
+	 * provide primitive storage for the named attribute do not box the value.
+	 * 
+	 * @param name The name of the attribute
+	 * @param value The value of the attribute
+	 * @see #addAttribute(String, Object)
+	 * @see #getLong(String)
+	 */
+	public void addAttribute(String name, long value);
+	
+	/**
+	 * Adds a {@link Float} attribute to the event. Implementations that
+	 * provide primitive storage for the named attribute do not box the value.
+	 * 
+	 * @param name The name of the attribute
+	 * @param value The value of the attribute
+	 * @see #addAttribute(String, Object)
+	 * @see #getFloat(String)
+	 */
+	public void addAttribute(String name, float value);
+	
+	/**
+	 * Returns true, if the event contains the named attribute.
+	 * 
+	 * @param name The name of the attribute
+	 * @return Whether the attribute is available from the event
+	 */
+	public boolean hasAttribute(String name);
+	
+	/**
+	 * Returns the value of the named {@link Integer} attribute without
+	 * boxing it, if the implementation stores it in primitive form.
+	 * 
+	 * @param name The name of the attribute
+	 * @return The value of the attribute
+	 * @throws IllegalArgumentException If the event lacks the attribute
+	 * @throws ClassCastException If the attribute is not an {@link Integer}
+	 * @see #hasAttribute(String)
+	 */
+	public int getInt(String name);
+	
+	/**
+	 * Returns the value of the named {@link Long} attribute without
+	 * boxing it, if the implementation stores it in primitive form.
+	 * 
+	 * @param name The name of the attribute
+	 * @return The value of the attribute
+	 * @throws IllegalArgumentException If the event lacks the attribute
+	 * @throws ClassCastException If the attribute is not a {@link Long}
+	 * @see #hasAttribute(String)
+	 */
+	public long getLong(String name);
+	
+	/**
+	 * Returns the value of the named {@link Float} attribute without
+	 * boxing it, if the implementation stores it in primitive form.
+	 * 
+	 * @param name The name of the attribute
+	 * @return The value of the attribute
+	 * @throws IllegalArgumentException If the event lacks the attribute
+	 * @throws ClassCastException If the attribute is not a {@link Float}
+	 * @see #hasAttribute(String)
+	 */
+	public float getFloat(String name);
+	
+	/**
+	 * Adds an attribute identified by a registered {@link AttributeKey}.
+	 * 
+	 * @param key The key of the attribute
+	 * @param value An immutable object.
+	 * @see #addAttribute(String, Object)
+	 */
+	public <T> void addAttribute(AttributeKey<T> key, T value);
+	
+	/**
+	 * Adds an {@link Integer} attribute identified by a registered
+	 * {@link AttributeKey} without boxing it, if the implementation
+	 * provides primitive storage.
+	 */
+	public void addAttribute(AttributeKey<Integer> key, int value);
+	
+	/**
+	 * Adds a {@link Long} attribute identified by a registered
+	 * {@link AttributeKey} without boxing it, if the implementation
+	 * provides primitive storage.
+	 */
+	public void addAttribute(AttributeKey<Long> key, long value);
+	
+	/**
+	 * Adds a {@link Float} attribute identified by a registered
+	 * {@link AttributeKey} without boxing it, if the implementation
+	 * provides primitive storage.
+	 */
+	public void addAttribute(AttributeKey<Float> key, float value);
+	
+	/**
+	 * Returns the value of the attribute identified by the given key, or
+	 * null, if no such attribute is available from the event.
+	 * 
+	 * @see #getAttribute(String)
+	 */
+	public <T> T getAttribute(AttributeKey<T> key);
+	
+	/**
+	 * Returns true, if the event contains the attribute identified by
+	 * the given key.
+	 */
+	public boolean hasAttribute(AttributeKey<?> key);
+	
+	/**
+	 * @see #getInt(String)
+	 */
+	public int getInt(AttributeKey<Integer> key);
+	
+	/**
+	 * @see #getLong(String)
+	 */
+	public long getLong(AttributeKey<Long> key);
+	
+	/**
+	 * @see #getFloat(String)
+	 */
+	public float getFloat(AttributeKey<Float> key);
+	
 	/**
 	 * Returns a non-modifiable map of the attributes held by the event.
 	 */
@@ -426,43 +733,152 @@ public interface Event {
 		 * @return A loggable id
 		 */
 		public String getLoggableID();
+		
+		/**
+		 * Returns a small non-negative number that is unique among the IDs
+		 * in the current JVM. The ordinals of standard IDs like
+		 * {@link Event#RAW_EVENT} are fixed (see e.g.
+		 * {@link Event#RAW_EVENT_ORDINAL}), so that listeners can dispatch
+		 * via a switch statement on the ordinal. Ordinals of other IDs are
+		 * assigned at registration and are only valid within the current
+		 * JVM.
+		 * 
+		 * @return The ordinal of the ID
+		 */
+		public int getOrdinal();
 	}
 	
+	/**
+	 * An ID that is registered by its loggable ID upon construction. Each
+	 * loggable ID can be registered only once, so IDs can be compared by
+	 * identity. Deserialized IDs are resolved to the instance registered
+	 * in the current JVM.
+	 */
 	public class IDImpl implements ID {
+		
+		private static final long serialVersionUID = 4915463676249180354L;
+		
+		/**
+		 * The smallest ordinal assigned to IDs that are not created with
+		 * a fixed ordinal.
+		 */
+		public static final int FIRST_DYNAMIC_ORDINAL = 64;
+		
+		private static final ConcurrentMap<String,IDImpl> idsByLoggableID
+			= new ConcurrentHashMap<String,IDImpl>();
+		private static volatile IDImpl[] idsByOrdinal = new IDImpl[FIRST_DYNAMIC_ORDINAL];
+		private static int nextDynamicOrdinal = FIRST_DYNAMIC_ORDINAL;
+		
 		private final String id;
+		private final int ordinal;
 		
+		/**
+		 * Creates and registers an ID with an ordinal that is assigned
+		 * dynamically.
+		 * 
+		 * @param id The loggable ID
+		 * @throws IllegalArgumentException If an ID with the same loggable
+		 * 	ID has already been registered.
+		 */
 		public IDImpl(String id) {
+			this(id, -1);
+		}
+		
+		/**
+		 * Creates and registers an ID with a fixed ordinal.
+		 * 
+		 * @param id The loggable ID
+		 * @param ordinal The ordinal, must be smaller than
+		 * 	{@link #FIRST_DYNAMIC_ORDINAL}, or -1 to assign an ordinal
+		 * 	dynamically
+		 * @throws IllegalArgumentException If an ID with the same loggable
+		 * 	ID or ordinal has already been registered.
+		 */
+		public IDImpl(String id, int ordinal) {
+			if(id == null)
+				throw new NullPointerException("id is null");
+			if(ordinal < -1 || ordinal >= FIRST_DYNAMIC_ORDINAL)
+				throw new IllegalArgumentException("Invalid fixed ordinal "+ordinal+" for ID "+id);
 			this.id = id;
+			synchronized(IDImpl.class) {
+				if(idsByLoggableID.containsKey(id))
+					throw new IllegalArgumentException("Loggable ID "+id+" already registered");
+				if(ordinal == -1) {
+					ordinal = nextDynamicOrdinal++;
+				} else if(idsByOrdinal[ordinal] != null) {
+					throw new IllegalArgumentException("Ordinal "+ordinal+" of ID "+id
+							+" already registered for ID "+idsByOrdinal[ordinal].id);
+				}
+				this.ordinal = ordinal;
+				IDImpl[] ids = idsByOrdinal;
+				if(ordinal >= ids.length)
+					ids = Arrays.copyOf(ids, Math.max(ordinal+1, 2*ids.length));
+				else
+					ids = ids.clone();
+				ids[ordinal] = this;
+				idsByLoggableID.put(id, this);
+				idsByOrdinal = ids;
+			}
+		}
+		
+		/**
+		 * Returns the ID registered for the given loggable ID, or null.
+		 */
+		public static ID forLoggableID(String id) {
+			return idsByLoggableID.get(id);
+		}
+		
+		/**
+		 * Returns the ID registered with the given ordinal, or null.
+		 */
+		public static ID forOrdinal(int ordinal) {
+			IDImpl[] ids = idsByOrdinal;
+			return ordinal >= 0 && ordinal < ids.length ? ids[ordinal] : null;
+		}
+		
+		/**
+		 * Returns a number that is larger than the ordinals of all
+		 * registered IDs, e.g. to size tables indexed by ordinal.
+		 */
+		public static int ordinalBound() {
+			return idsByOrdinal.length;
 		}
 
 		@Override
 		public String getLoggableID() {
 			return id;
 		}
+		
+		@Override
+		public int getOrdinal() {
+			return ordinal;
+		}
+		
+		private Object readResolve() throws ObjectStreamException {
+			synchronized(IDImpl.class) {
+				IDImpl registered = idsByLoggableID.get(id);
+				if(registered != null)
+					return registered;
+				int fixed = ordinal < FIRST_DYNAMIC_ORDINAL && idsByOrdinal[ordinal] == null ? ordinal : -1;
+				return new IDImpl(id, fixed);
+			}
+		}
 
+		/**
+		 * Returns the ordinal, because IDs are unique per ordinal.
+		 */
 		@Override
 		public int hashCode() {
-			final int prime = 31;
-			int result = 1;
-			result = prime * result + ((id == null) ? 0 : id.hashCode());
-			return result;
+			return ordinal;
 		}
 
+		/**
+		 * Compares by identity, because each loggable ID is registered only
+		 * once.
+		 */
 		@Override
 		public boolean equals(Object obj) {
-			if (this == obj)
-				return true;
-			if (obj == null)
-				return false;
-			if (getClass() != obj.getClass())
-				return false;
-			IDImpl other = (IDImpl) obj;
-			if (id == null) {
-				if (other.id != null)
-					return false;
-			} else if (!id.equals(other.id))
-				return false;
-			return true;
+			return this == obj;
 		}
 
 		@Override
@@ -0,0 +1,551 @@
+package rit.eyeTracking;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A block of events stored column-wise, i.e. as one array per attribute
+ * instead of one {@link Event} object with an attribute map per sample.
+ * Columns are indexed by the ordinal of the {@link AttributeKey} of the
+ * attribute and allocated on first use. {@link Integer}, {@link Long} and
+ * {@link Float} attributes are stored in primitive arrays that can be
+ * processed in tight loops via {@link #getIntColumn(AttributeKey)},
+ * {@link #getLongColumn(AttributeKey)} and
+ * {@link #getFloatColumn(AttributeKey)}.
+ *
+ * Only attributes with a registered {@link AttributeKey} can be stored
+ * in a batch. Listeners that do not process batches can access the rows
+ * one at a time via a {@link Cursor}.
+ *
+ * @see EventBatchListener
+ */
+public class EventBatch {
+
+	private final int capacity;
+	private final boolean isNew;
+	private final Event.ID[] ids;
+	private final int[] flags;
+	private Object[] columns;
+	private long[][] present;
+	private int size;
+
+	/**
+	 * Creates a batch of events that are new.
+	 *
+	 * @param capacity The maximum number of rows
+	 * @see Event#isNew()
+	 */
+	public EventBatch(int capacity) {
+		this(capacity, true);
+	}
+
+	/**
+	 * @param capacity The maximum number of rows
+	 * @param isNew Whether the events are passed to listeners for the
+	 * 	first time
+	 * @see Event#isNew()
+	 */
+	public EventBatch(int capacity, boolean isNew) {
+		if(capacity < 0)
+			throw new IllegalArgumentException("Negative capacity: "+capacity);
+		this.capacity = capacity;
+		this.isNew = isNew;
+		this.ids = new Event.ID[capacity];
+		this.flags = new int[capacity];
+		int keys = AttributeKey.size();
+		this.columns = new Object[keys];
+		this.present = new long[keys][];
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns the number of rows in the batch.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public boolean isFull() {
+		return size == capacity;
+	}
+
+	public boolean isNew() {
+		return isNew;
+	}
+
+	/**
+	 * Appends an empty row for an event with the given ID. The flags of
+	 * the row are initialized from the ID.
+	 *
+	 * @param id The event ID
+	 * @return The index of the new row
+	 * @throws IllegalStateException If the batch is full
+	 */
+	public int add(Event.ID id) {
+		if(size == capacity)
+			throw new IllegalStateException("Batch is full");
+		ids[size] = id;
+		flags[size] = Event.Flags.of(id);
+		return size++;
+	}
+
+	/**
+	 * Appends a row containing the ID, flags and attributes of the given
+	 * event.
+	 *
+	 * @param e The event to copy
+	 * @return The index of the new row
+	 * @throws IllegalStateException If the batch is full
+	 * @throws IllegalArgumentException If the event has an attribute
+	 * 	without a registered {@link AttributeKey}
+	 */
+	public int add(Event e) {
+		int row = add(e.getID());
+		flags[row] |= e.getFlags();
+		for(Map.Entry<String,Object> entry: e.getAttributes().entrySet()) {
+			set(row, key(entry.getKey()), entry.getValue());
+		}
+		return row;
+	}
+
+	/**
+	 * Removes all rows. Allocated columns are kept for reuse.
+	 */
+	public void clear() {
+		Arrays.fill(ids, 0, size, null);
+		for(int ordinal=0; ordinal<columns.length; ordinal++) {
+			if(columns[ordinal] instanceof Object[])
+				Arrays.fill((Object[])columns[ordinal], 0, size, null);
+			if(present[ordinal] != null)
+				Arrays.fill(present[ordinal], 0L);
+		}
+		size = 0;
+	}
+
+	public Event.ID getID(int row) {
+		checkRow(row);
+		return ids[row];
+	}
+
+	public int getFlags(int row) {
+		checkRow(row);
+		return flags[row];
+	}
+
+	public void addFlags(int row, int mask) {
+		checkRow(row);
+		flags[row] |= mask;
+	}
+
+	/**
+	 * Returns the flags of all rows. Only the first {@link #size()}
+	 * elements of the array are valid. The array must not be modified.
+	 */
+	public int[] getFlagsColumn() {
+		return flags;
+	}
+
+	/**
+	 * Returns true, if the given row contains the given attribute.
+	 */
+	public boolean has(int row, AttributeKey<?> key) {
+		checkRow(row);
+		int ordinal = key.getOrdinal();
+		if(ordinal >= present.length || present[ordinal] == null)
+			return false;
+		return (present[ordinal][row>>>6] & (1L << row)) != 0;
+	}
+
+	/**
+	 * Returns true, if at least one row contains the given attribute.
+	 */
+	public boolean hasColumn(AttributeKey<?> key) {
+		int ordinal = key.getOrdinal();
+		if(ordinal >= present.length || present[ordinal] == null)
+			return false;
+		for(long bits: present[ordinal]) {
+			if(bits != 0)
+				return true;
+		}
+		return false;
+	}
+
+	public void setInt(int row, AttributeKey<Integer> key, int value) {
+		checkRow(row);
+		((int[])column(key))[row] = value;
+		setPresent(row, key.getOrdinal());
+	}
+
+	public void setLong(int row, AttributeKey<Long> key, long value) {
+		checkRow(row);
+		((long[])column(key))[row] = value;
+		setPresent(row, key.getOrdinal());
+	}
+
+	public void setFloat(int row, AttributeKey<Float> key, float value) {
+		checkRow(row);
+		((float[])column(key))[row] = value;
+		setPresent(row, key.getOrdinal());
+	}
+
+	/**
+	 * Sets an attribute of the given row.
+	 *
+	 * @throws ClassCastException If the value does not match the type
+	 * 	of the key
+	 */
+	public <T> void set(int row, AttributeKey<T> key, T value) {
+		checkRow(row);
+		Object column = column(key);
+		int ordinal = key.getOrdinal();
+		switch(key.getKind()) {
+		case AttributeKey.INT: ((int[])column)[row] = (Integer)value; break;
+		case AttributeKey.LONG: ((long[])column)[row] = (Long)value; break;
+		case AttributeKey.FLOAT: ((float[])column)[row] = (Float)value; break;
+		default: ((Object[])column)[row] = key.getType().cast(value);
+		}
+		setPresent(row, ordinal);
+	}
+
+	/**
+	 * Returns the value of an {@link Integer} attribute of the given row.
+	 *
+	 * @throws IllegalArgumentException If the row lacks the attribute
+	 */
+	public int getInt(int row, AttributeKey<Integer> key) {
+		checkPresent(row, key);
+		return ((int[])columns[key.getOrdinal()])[row];
+	}
+
+	/**
+	 * Returns the value of a {@link Long} attribute of the given row.
+	 *
+	 * @throws IllegalArgumentException If the row lacks the attribute
+	 */
+	public long getLong(int row, AttributeKey<Long> key) {
+		checkPresent(row, key);
+		return ((long[])columns[key.getOrdinal()])[row];
+	}
+
+	/**
+	 * Returns the value of a {@link Float} attribute of the given row.
+	 *
+	 * @throws IllegalArgumentException If the row lacks the attribute
+	 */
+	public float getFloat(int row, AttributeKey<Float> key) {
+		checkPresent(row, key);
+		return ((float[])columns[key.getOrdinal()])[row];
+	}
+
+	/**
+	 * Returns the value of an attribute of the given row, or null if the
+	 * row lacks the attribute. Primitive values are boxed.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T get(int row, AttributeKey<T> key) {
+		if(!has(row, key))
+			return null;
+		Object column = columns[key.getOrdinal()];
+		switch(key.getKind()) {
+		case AttributeKey.INT: return (T)Integer.valueOf(((int[])column)[row]);
+		case AttributeKey.LONG: return (T)Long.valueOf(((long[])column)[row]);
+		case AttributeKey.FLOAT: return (T)Float.valueOf(((float[])column)[row]);
+		default: return (T)((Object[])column)[row];
+		}
+	}
+
+	/**
+	 * Returns the column of the given {@link Integer} attribute for
+	 * reading in tight loops, allocating it if necessary. Only the first
+	 * {@link #size()} elements are valid, and elements are 0 for rows that
+	 * lack the attribute. Use {@link #setInt(int, AttributeKey, int)} to
+	 * modify values.
+	 */
+	public int[] getIntColumn(AttributeKey<Integer> key) {
+		return (int[])column(key);
+	}
+
+	/**
+	 * @see #getIntColumn(AttributeKey)
+	 */
+	public long[] getLongColumn(AttributeKey<Long> key) {
+		return (long[])column(key);
+	}
+
+	/**
+	 * @see #getIntColumn(AttributeKey)
+	 */
+	public float[] getFloatColumn(AttributeKey<Float> key) {
+		return (float[])column(key);
+	}
+
+	/**
+	 * Returns a new cursor positioned on the first row.
+	 */
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	private static AttributeKey<Object> key(String name) {
+		@SuppressWarnings("unchecked")
+		AttributeKey<Object> key = (AttributeKey<Object>)AttributeKey.forName(name);
+		if(key == null)
+			throw new IllegalArgumentException("No registered key for attribute "+name);
+		return key;
+	}
+
+	private Object column(AttributeKey<?> key) {
+		int ordinal = key.getOrdinal();
+		if(ordinal >= columns.length) {
+			int keys = Math.max(ordinal+1, AttributeKey.size());
+			columns = Arrays.copyOf(columns, keys);
+			present = Arrays.copyOf(present, keys);
+		}
+		Object column = columns[ordinal];
+		if(column == null) {
+			switch(key.getKind()) {
+			case AttributeKey.INT: column = new int[capacity]; break;
+			case AttributeKey.LONG: column = new long[capacity]; break;
+			case AttributeKey.FLOAT: column = new float[capacity]; break;
+			default: column = new Object[capacity];
+			}
+			columns[ordinal] = column;
+			present[ordinal] = new long[(capacity+63)>>>6];
+		}
+		return column;
+	}
+
+	private void setPresent(int row, int ordinal) {
+		present[ordinal][row>>>6] |= 1L << row;
+	}
+
+	private void unsetPresent(int row, int ordinal) {
+		if(ordinal < present.length && present[ordinal] != null)
+			present[ordinal][row>>>6] &= ~(1L << row);
+	}
+
+	private void checkRow(int row) {
+		if(row < 0 || row >= size)
+			throw new IndexOutOfBoundsException("Row "+row+" of "+size);
+	}
+
+	private void checkPresent(int row, AttributeKey<?> key) {
+		if(!has(row, key))
+			throw new IllegalArgumentException("No attribute "+key+" in row "+row);
+	}
+
+	/**
+	 * A view of one row of the batch as an {@link Event}. The cursor can be
+	 * moved between rows, so a single instance can be passed to listeners
+	 * for each row in turn. Listeners must not keep references to the
+	 * cursor beyond their notify method.
+	 *
+	 * Attributes without a registered {@link AttributeKey} cannot be added
+	 * via the cursor.
+	 */
+	public class Cursor implements Event {
+
+		private int row;
+
+		private Cursor() {
+		}
+
+		public EventBatch getBatch() {
+			return EventBatch.this;
+		}
+
+		public int getRow() {
+			return row;
+		}
+
+		/**
+		 * Positions the cursor on the given row.
+		 *
+		 * @return This cursor
+		 */
+		public Cursor moveTo(int row) {
+			checkRow(row);
+			this.row = row;
+			return this;
+		}
+
+		@Override
+		public ID getID() {
+			return EventBatch.this.getID(row);
+		}
+
+		@Override
+		public int getFlags() {
+			return EventBatch.this.getFlags(row);
+		}
+
+		@Override
+		public boolean hasFlags(int mask) {
+			return (getFlags() & mask) != 0;
+		}
+
+		@Override
+		public void addFlags(int mask) {
+			EventBatch.this.addFlags(row, mask);
+		}
+
+		@Override
+		public void addAttribute(String name, Object value) {
+			set(row, key(name), value);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public <T> T getAttribute(String name) {
+			AttributeKey<?> key = AttributeKey.forName(name);
+			return key == null ? null : (T)get(row, key);
+		}
+
+		@Override
+		public void addAttribute(String name, int value) {
+			addAttribute(name, Integer.valueOf(value));
+		}
+
+		@Override
+		public void addAttribute(String name, long value) {
+			addAttribute(name, Long.valueOf(value));
+		}
+
+		@Override
+		public void addAttribute(String name, float value) {
+			addAttribute(name, Float.valueOf(value));
+		}
+
+		@Override
+		public boolean hasAttribute(String name) {
+			AttributeKey<?> key = AttributeKey.forName(name);
+			return key != null && has(row, key);
+		}
+
+		@Override
+		public int getInt(String name) {
+			Integer value = getAttribute(name);
+			if(value == null)
+				throw new IllegalArgumentException("No attribute "+name);
+			return value;
+		}
+
+		@Override
+		public long getLong(String name) {
+			Long value = getAttribute(name);
+			if(value == null)
+				throw new IllegalArgumentException("No attribute "+name);
+			return value;
+		}
+
+		@Override
+		public float getFloat(String name) {
+			Float value = getAttribute(name);
+			if(value == null)
+				throw new IllegalArgumentException("No attribute "+name);
+			return value;
+		}
+
+		@Override
+		public <T> void addAttribute(AttributeKey<T> key, T value) {
+			set(row, key, value);
+		}
+
+		@Override
+		public void addAttribute(AttributeKey<Integer> key, int value) {
+			setInt(row, key, value);
+		}
+
+		@Override
+		public void addAttribute(AttributeKey<Long> key, long value) {
+			setLong(row, key, value);
+		}
+
+		@Override
+		public void addAttribute(AttributeKey<Float> key, float value) {
+			setFloat(row, key, value);
+		}
+
+		@Override
+		public <T> T getAttribute(AttributeKey<T> key) {
+			return get(row, key);
+		}
+
+		@Override
+		public boolean hasAttribute(AttributeKey<?> key) {
+			return has(row, key);
+		}
+
+		@Override
+		public int getInt(AttributeKey<Integer> key) {
+			return EventBatch.this.getInt(row, key);
+		}
+
+		@Override
+		public long getLong(AttributeKey<Long> key) {
+			return EventBatch.this.getLong(row, key);
+		}
+
+		@Override
+		public float getFloat(AttributeKey<Float> key) {
+			return EventBatch.this.getFloat(row, key);
+		}
+
+		/**
+		 * Returns a non-modifiable snapshot of the attributes of the
+		 * current row. The primitive values are boxed.
+		 */
+		@Override
+		public Map<String, Object> getAttributes() {
+			checkRow(row);
+			Map<String,Object> attributes = new HashMap<String,Object>();
+			for(int ordinal=0; ordinal<columns.length; ordinal++) {
+				AttributeKey<?> key = AttributeKey.forOrdinal(ordinal);
+				if(columns[ordinal] != null && has(row, key))
+					attributes.put(key.getName(), get(row, key));
+			}
+			return Collections.unmodifiableMap(attributes);
+		}
+
+		/**
+		 * Returns a copy of the current row created by the given factory.
+		 */
+		@SuppressWarnings("unchecked")
+		@Override
+		public Event getSerializable(EventFactory factory) {
+			Event copy = factory.createEvent(getID(), new HashMap<String,Object>(getAttributes()));
+			int extraFlags = getFlags() & ~Flags.of(getID());
+			if(extraFlags != 0)
+				copy.addFlags(extraFlags);
+			return copy;
+		}
+
+		@Override
+		public boolean isNew() {
+			return isNew;
+		}
+
+		/**
+		 * Removes all attributes from the current row.
+		 */
+		@Override
+		public void clear() {
+			checkRow(row);
+			for(int ordinal=0; ordinal<columns.length; ordinal++) {
+				unsetPresent(row, ordinal);
+				if(columns[ordinal] instanceof Object[])
+					((Object[])columns[ordinal])[row] = null;
+			}
+		}
+
+		@Override
+		public String toString() {
+			return getID()+" "+getAttributes();
+		}
+	}
+}
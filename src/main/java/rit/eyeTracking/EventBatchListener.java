@@ -0,0 +1,30 @@
+package rit.eyeTracking;
+
+import rit.eyeTracking.EyeTrackingListener.Mode;
+
+/**
+ * An {@link EyeTrackingListener} that can process a whole
+ * {@link EventBatch} at once, e.g. in {@link Mode#BATCH_MODE}. Filters
+ * implementing this interface are passed batches by
+ * {@link FilterChain#notify(EventBatch, EyeTrackingListener, Mode)},
+ * other filters are notified of each row via an
+ * {@link EventBatch.Cursor} if the chain has been created for events of
+ * type {@link Event}.
+ * 
+ * @param <E> The type of event passed through the filter chain
+ * 	({@link Event} by default)
+ */
+public interface EventBatchListener<E extends Event> extends EyeTrackingListener<E> {
+	
+	/**
+	 * Notifies the listener of all events in the given batch.
+	 * 
+	 * The batch should be read before the notify method returns, for
+	 * it will be cleared and re-used afterwards.
+	 * 
+	 * @param batch The events
+	 * @param listener A listener to create new events
+	 * @param mode The mode of the application
+	 */
+	public void notify(EventBatch batch, EyeTrackingListener<E> listener, Mode mode);
+}
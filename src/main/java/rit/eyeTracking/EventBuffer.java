@@ -0,0 +1,340 @@
+package rit.eyeTracking;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded buffer between a source of events, e.g. an
+ * {@link rit.eyeTracking.EyeTrackerUtilities.udpClients.EyeTrackerClient},
+ * and a listener, e.g. a {@link FilterChain}. Events are delivered to the
+ * listener on a thread of the buffer, so a slow listener does not stall
+ * the source. What happens when the buffer is full is determined by an
+ * {@link Overload} policy, and every event that is not delivered is
+ * counted.
+ *
+ * Events passed to the buffer while it is not started, i.e. before
+ * {@link #start()} or after {@link #stop()}, are delivered synchronously
+ * on the thread passing them, after the events remaining in the buffer,
+ * because there is no thread to deliver them.
+ *
+ * Pooled events are retained while they are in the buffer.
+ *
+ * @param <E> The type of event passed through the filter chain
+ * 	({@link Event} by default)
+ */
+public class EventBuffer<E extends Event> implements EyeTrackingListener<E> {
+
+	/**
+	 * Policies for events arriving while the buffer is full.
+	 */
+	public enum Overload {
+		/**
+		 * Wait until the listener has taken an event from the buffer.
+		 * Nothing is lost, but the source is stalled.
+		 */
+		BLOCK,
+		/**
+		 * Discard the oldest event in the buffer.
+		 */
+		DROP_OLDEST,
+		/**
+		 * Discard the arriving event.
+		 */
+		DROP_NEWEST,
+		/**
+		 * Keep only the latest sample: each arriving sample, i.e. event
+		 * with {@link Event.Flags#RAW}, replaces all samples that have not
+		 * been delivered yet. Other events, e.g. fixations or calibration
+		 * events, are kept in order and only discarded, oldest first, if
+		 * the buffer is full. Suited to listeners that display the current
+		 * gaze position.
+		 */
+		COALESCE
+	}
+
+	private final EyeTrackingListener<E> target;
+	private final Overload overload;
+	private final Object[] events;
+	private final Object[] listeners;
+	private final Mode[] modes;
+	private int head;
+	private int size;
+	private boolean stopping;
+	private Thread thread;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+	private final Condition notFull = lock.newCondition();
+	private final AtomicLong offered = new AtomicLong();
+	private final AtomicLong delivered = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicLong coalesced = new AtomicLong();
+	private final AtomicLong blocked = new AtomicLong();
+
+	/**
+	 * @param target The listener to deliver events to
+	 * @param capacity The maximum number of events in the buffer
+	 * @param overload The policy for events arriving while the buffer is
+	 * 	full
+	 * @throws IllegalArgumentException If the capacity is smaller than 1
+	 */
+	public EventBuffer(EyeTrackingListener<E> target, int capacity, Overload overload) {
+		if(capacity < 1)
+			throw new IllegalArgumentException("Capacity must be positive: "+capacity);
+		this.target = target;
+		this.overload = overload;
+		events = new Object[capacity];
+		listeners = new Object[capacity];
+		modes = new Mode[capacity];
+	}
+
+	/**
+	 * Starts the thread delivering events.
+	 *
+	 * @throws IllegalStateException If the buffer has already been started
+	 */
+	public void start() {
+		lock.lock();
+		try {
+			if(thread != null)
+				throw new IllegalStateException("Already started");
+			stopping = false;
+			thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					deliver();
+				}}, "EventBuffer");
+			thread.setDaemon(true);
+			thread.start();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Delivers the events in the buffer and stops the thread delivering
+	 * events.
+	 *
+	 * @throws InterruptedException If interrupted while waiting for the
+	 * 	events to be delivered
+	 */
+	public void stop() throws InterruptedException {
+		Thread thread;
+		lock.lock();
+		try {
+			thread = this.thread;
+			if(thread == null)
+				return;
+			stopping = true;
+			notEmpty.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		thread.join();
+		lock.lock();
+		try {
+			this.thread = null;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Adds the event to the buffer, applying the overload policy if the
+	 * buffer is full, or delivers it synchronously if the buffer is not
+	 * started.
+	 */
+	@Override
+	public void notify(E e, EyeTrackingListener<E> listener, Mode mode) {
+		offered.incrementAndGet();
+		lock.lock();
+		try {
+			if(thread == null || stopping) {
+				while(size > 0)
+					notFull.awaitUninterruptibly();
+				lock.unlock();
+				try {
+					deliver(e, listener, mode);
+				} finally {
+					lock.lock();
+				}
+				return;
+			}
+			if(overload == Overload.COALESCE && e.hasFlags(Event.Flags.RAW))
+				discardSamples();
+			if(size == events.length) {
+				switch(overload) {
+				case BLOCK:
+					blocked.incrementAndGet();
+					while(size == events.length)
+						notFull.awaitUninterruptibly();
+					break;
+				case DROP_OLDEST:
+				case COALESCE:
+					discardOldest();
+					dropped.incrementAndGet();
+					break;
+				default:
+					dropped.incrementAndGet();
+					return;
+				}
+			}
+			PooledEventFactory.retain(e);
+			int tail = (head + size) % events.length;
+			events[tail] = e;
+			listeners[tail] = listener;
+			modes[tail] = mode;
+			size++;
+			notEmpty.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void discardOldest() {
+		@SuppressWarnings("unchecked")
+		E e = (E)events[head];
+		clear(head);
+		head = (head + 1) % events.length;
+		size--;
+		PooledEventFactory.release(e);
+	}
+
+	/**
+	 * Discards the samples in the buffer, keeping other events in order.
+	 */
+	@SuppressWarnings("unchecked")
+	private void discardSamples() {
+		int kept = 0;
+		for(int i=0; i<size; i++) {
+			int from = (head + i) % events.length;
+			E e = (E)events[from];
+			if(e.hasFlags(Event.Flags.RAW)) {
+				clear(from);
+				PooledEventFactory.release(e);
+				coalesced.incrementAndGet();
+				continue;
+			}
+			int to = (head + kept) % events.length;
+			if(to != from) {
+				events[to] = e;
+				listeners[to] = listeners[from];
+				modes[to] = modes[from];
+				clear(from);
+			}
+			kept++;
+		}
+		if(kept < size) {
+			size = kept;
+			notFull.signalAll();
+		}
+	}
+
+	private void clear(int index) {
+		events[index] = null;
+		listeners[index] = null;
+		modes[index] = null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void deliver() {
+		while(true) {
+			E e;
+			EyeTrackingListener<E> listener;
+			Mode mode;
+			lock.lock();
+			try {
+				while(size == 0 && !stopping)
+					notEmpty.awaitUninterruptibly();
+				if(size == 0)
+					return;
+				e = (E)events[head];
+				listener = (EyeTrackingListener<E>)listeners[head];
+				mode = modes[head];
+				clear(head);
+				head = (head + 1) % events.length;
+				size--;
+				notFull.signalAll();
+			} finally {
+				lock.unlock();
+			}
+			try {
+				deliver(e, listener, mode);
+			} finally {
+				PooledEventFactory.release(e);
+			}
+		}
+	}
+
+	private void deliver(E e, EyeTrackingListener<E> listener, Mode mode) {
+		try {
+			target.notify(e, listener, mode);
+			delivered.incrementAndGet();
+		} catch(RuntimeException re) {
+			re.printStackTrace();
+		}
+	}
+
+	public Overload getOverload() {
+		return overload;
+	}
+
+	public int getCapacity() {
+		return events.length;
+	}
+
+	/**
+	 * Returns the number of events waiting to be delivered.
+	 */
+	public int getSize() {
+		lock.lock();
+		try {
+			return size;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of events passed to this buffer.
+	 */
+	public long getOfferedCount() {
+		return offered.get();
+	}
+
+	/**
+	 * Returns the number of events delivered to the listener.
+	 */
+	public long getDeliveredCount() {
+		return delivered.get();
+	}
+
+	/**
+	 * Returns the number of events discarded because the buffer was full.
+	 *
+	 * @see Overload#DROP_OLDEST
+	 * @see Overload#DROP_NEWEST
+	 * @see Overload#COALESCE
+	 */
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+
+	/**
+	 * Returns the number of samples replaced by later samples.
+	 *
+	 * @see Overload#COALESCE
+	 */
+	public long getCoalescedCount() {
+		return coalesced.get();
+	}
+
+	/**
+	 * Returns the number of times the source had to wait for the listener.
+	 *
+	 * @see Overload#BLOCK
+	 */
+	public long getBlockedCount() {
+		return blocked.get();
+	}
+}
@@ -0,0 +1,205 @@
+package rit.eyeTracking;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.StreamCorruptedException;
+import java.util.Arrays;
+
+/**
+ * Reads events written by an {@link EventEncoder}. Events are created via
+ * an {@link EventFactory}, so replayed events can be
+ * {@link PooledEventFactory pooled} or of an application-specific type.
+ *
+ * IDs that have not been created in the current JVM are registered with a
+ * new {@link Event.IDImpl} when they are first read.
+ *
+ * Instances of this class are not thread-safe.
+ *
+ * @param <E> The type of events created
+ * @see EventEncoder
+ */
+public class EventDecoder<E extends Event> implements Closeable {
+
+	private final DataInputStream in;
+	private final EventFactory<E> factory;
+	private Event.ID[] ids = new Event.ID[16];
+	private String[] names = new String[16];
+	private AttributeKey<?>[] keys = new AttributeKey<?>[16];
+	private int[] types = new int[16];
+	private long[] previous = new long[16];
+	private int idCount;
+	private int attributeCount;
+
+	/**
+	 * Creates a decoder and reads the stream header.
+	 *
+	 * @param in The stream to read from. It is buffered by the decoder.
+	 * @param factory The factory used to create events
+	 * @throws IOException If the header cannot be read or is invalid
+	 */
+	public EventDecoder(InputStream in, EventFactory<E> factory) throws IOException {
+		this.in = new DataInputStream(new BufferedInputStream(in));
+		this.factory = factory;
+		if(this.in.readInt() != EventEncoder.MAGIC)
+			throw new StreamCorruptedException("Not an event stream");
+	}
+
+	/**
+	 * Reads the next event.
+	 *
+	 * @return The next event, or null at the end of the stream
+	 * @throws IOException If reading fails or the stream is corrupted
+	 */
+	public E read() throws IOException {
+		while(true) {
+			int tag = in.read();
+			switch(tag) {
+			case -1:
+				return null;
+			case EventEncoder.DEFINE_ID:
+				defineID();
+				break;
+			case EventEncoder.DEFINE_ATTRIBUTE:
+				defineAttribute();
+				break;
+			case EventEncoder.EVENT:
+				return readEvent();
+			default:
+				throw new StreamCorruptedException("Unknown record "+tag);
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	private void defineID() throws IOException {
+		// Local IDs are assigned consecutively by the encoder
+		int localID = readIndex(idCount+1, "event ID");
+		String loggableID = in.readUTF();
+		if(localID >= ids.length)
+			ids = Arrays.copyOf(ids, Math.max(localID+1, 2*ids.length));
+		Event.ID id = Event.IDImpl.forLoggableID(loggableID);
+		ids[localID] = id != null ? id : new Event.IDImpl(loggableID);
+		if(localID == idCount)
+			idCount++;
+	}
+
+	private void defineAttribute() throws IOException {
+		int localID = readIndex(attributeCount+1, "attribute");
+		int type = in.readUnsignedByte();
+		String name = in.readUTF();
+		if(localID >= names.length) {
+			int length = Math.max(localID+1, 2*names.length);
+			names = Arrays.copyOf(names, length);
+			keys = Arrays.copyOf(keys, length);
+			types = Arrays.copyOf(types, length);
+			previous = Arrays.copyOf(previous, length);
+		}
+		names[localID] = name;
+		types[localID] = type;
+		keys[localID] = AttributeKey.forName(name);
+		if(localID == attributeCount)
+			attributeCount++;
+	}
+
+	@SuppressWarnings("unchecked")
+	private E readEvent() throws IOException {
+		Event.ID id = ids[readIndex(idCount, "event ID")];
+		E e = factory.createEvent(id);
+		int flags = readVarInt();
+		if(flags != 0)
+			e.addFlags(flags);
+		for(int count=readVarInt(); count > 0; count--) {
+			int localID = readIndex(attributeCount, "attribute");
+			String name = names[localID];
+			AttributeKey<?> key = keys[localID];
+			switch(types[localID]) {
+			case EventEncoder.INT: {
+				int value = (int)(previous[localID] += unZigZag(readVarLong()));
+				if(key != null && key.getKind() == AttributeKey.INT)
+					e.addAttribute((AttributeKey<Integer>)key, value);
+				else
+					e.addAttribute(name, value);
+				break;
+			}
+			case EventEncoder.LONG: {
+				long value = previous[localID] += unZigZag(readVarLong());
+				if(key != null && key.getKind() == AttributeKey.LONG)
+					e.addAttribute((AttributeKey<Long>)key, value);
+				else
+					e.addAttribute(name, value);
+				break;
+			}
+			case EventEncoder.FLOAT: {
+				float value = in.readFloat();
+				if(key != null && key.getKind() == AttributeKey.FLOAT)
+					e.addAttribute((AttributeKey<Float>)key, value);
+				else
+					e.addAttribute(name, value);
+				break;
+			}
+			case EventEncoder.DOUBLE: e.addAttribute(name, in.readDouble()); break;
+			case EventEncoder.BOOLEAN: e.addAttribute(name, in.readBoolean()); break;
+			case EventEncoder.STRING: e.addAttribute(name, in.readUTF()); break;
+			case EventEncoder.OBJECT: e.addAttribute(name, readObject()); break;
+			default:
+				throw new StreamCorruptedException("Unknown type "+types[localID]+" of "+name);
+			}
+		}
+		return e;
+	}
+
+	private Object readObject() throws IOException {
+		byte[] bytes = new byte[readIndex(Integer.MAX_VALUE, "length")];
+		in.readFully(bytes);
+		ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(bytes));
+		try {
+			return objectIn.readObject();
+		} catch(ClassNotFoundException cnfe) {
+			throw new IOException("Cannot read attribute value", cnfe);
+		} finally {
+			objectIn.close();
+		}
+	}
+
+	private static long unZigZag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Reads a local ID or length and checks that it is not negative and
+	 * smaller than the given bound.
+	 */
+	private int readIndex(int bound, String what) throws IOException {
+		long value = readVarLong();
+		if(value < 0 || value >= bound)
+			throw new StreamCorruptedException("Invalid "+what+" "+value);
+		return (int)value;
+	}
+
+	private int readVarInt() throws IOException {
+		return (int)readVarLong();
+	}
+
+	private long readVarLong() throws IOException {
+		long value = 0;
+		for(int shift=0; shift < 64; shift+=7) {
+			int b = in.read();
+			if(b < 0)
+				throw new EOFException();
+			value |= (long)(b & 0x7F) << shift;
+			if((b & 0x80) == 0)
+				return value;
+		}
+		throw new StreamCorruptedException("Malformed variable-length number");
+	}
+}
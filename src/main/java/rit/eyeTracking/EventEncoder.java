@@ -0,0 +1,197 @@
+package rit.eyeTracking;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes events to a stream in a compact binary format that is read by
+ * {@link EventDecoder}.
+ *
+ * Event IDs and attribute names are written only once per stream, when
+ * they are first used, and are referred to by small numbers afterwards.
+ * {@link Integer} and {@link Long} values are written as variable-length
+ * differences to the previous value of the same attribute, so timestamps
+ * and gaze coordinates of consecutive samples take one or two bytes.
+ * {@link Float}s take four bytes. Other serializable values are written
+ * via Java serialization, non-serializable values are omitted like in
+ * {@link Event#getSerializable(EventFactory)}.
+ *
+ * Instances of this class are not thread-safe.
+ *
+ * @see EventDecoder
+ */
+public class EventEncoder implements Closeable, Flushable {
+
+	static final int MAGIC = 0x45544531; // "ETE1"
+
+	static final int DEFINE_ID = 1;
+	static final int DEFINE_ATTRIBUTE = 2;
+	static final int EVENT = 3;
+
+	static final int INT = 0;
+	static final int LONG = 1;
+	static final int FLOAT = 2;
+	static final int DOUBLE = 3;
+	static final int BOOLEAN = 4;
+	static final int STRING = 5;
+	static final int OBJECT = 6;
+	private static final int TYPES = 7;
+
+	private final DataOutputStream out;
+	private final Map<Event.ID,Integer> ids = new HashMap<Event.ID,Integer>();
+	private final Map<String,int[]> attributes = new HashMap<String,int[]>();
+	private int attributeCount;
+	private long[] previous = new long[16];
+	private int[] localIDs = new int[16];
+	private int[] types = new int[16];
+	private Object[] values = new Object[16];
+
+	/**
+	 * Creates an encoder and writes the stream header.
+	 *
+	 * @param out The stream to write to. It is buffered by the encoder.
+	 * @throws IOException If the header cannot be written
+	 */
+	public EventEncoder(OutputStream out) throws IOException {
+		this.out = new DataOutputStream(new BufferedOutputStream(out));
+		this.out.writeInt(MAGIC);
+	}
+
+	/**
+	 * Writes the given event. Attributes with null values or values that
+	 * are not serializable are omitted.
+	 *
+	 * @param e The event to write
+	 * @throws IOException If writing fails
+	 */
+	public void write(Event e) throws IOException {
+		Event.ID id = e.getID();
+		Integer localID = ids.get(id);
+		if(localID == null) {
+			localID = ids.size();
+			ids.put(id, localID);
+			out.writeByte(DEFINE_ID);
+			writeVarInt(localID);
+			out.writeUTF(id.getLoggableID());
+		}
+		int count = 0;
+		for(Map.Entry<String,Object> entry: e.getAttributes().entrySet()) {
+			Object value = entry.getValue();
+			int type = typeOf(value);
+			if(type < 0)
+				continue;
+			if(count == localIDs.length) {
+				localIDs = Arrays.copyOf(localIDs, 2*count);
+				types = Arrays.copyOf(types, 2*count);
+				values = Arrays.copyOf(values, 2*count);
+			}
+			localIDs[count] = attributeID(entry.getKey(), type);
+			types[count] = type;
+			values[count++] = value;
+		}
+		out.writeByte(EVENT);
+		writeVarInt(localID);
+		writeVarInt(e.getFlags() & ~Event.Flags.of(id));
+		writeVarInt(count);
+		for(int i=0; i<count; i++) {
+			writeVarInt(localIDs[i]);
+			writeValue(localIDs[i], types[i], values[i]);
+			values[i] = null;
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+	private int attributeID(String name, int type) throws IOException {
+		int[] localIDs = attributes.get(name);
+		if(localIDs == null) {
+			localIDs = new int[TYPES];
+			Arrays.fill(localIDs, -1);
+			attributes.put(name, localIDs);
+		}
+		if(localIDs[type] < 0) {
+			int localID = attributeCount++;
+			if(localID == previous.length)
+				previous = Arrays.copyOf(previous, 2*localID);
+			localIDs[type] = localID;
+			out.writeByte(DEFINE_ATTRIBUTE);
+			writeVarInt(localID);
+			out.writeByte(type);
+			out.writeUTF(name);
+		}
+		return localIDs[type];
+	}
+
+	private static int typeOf(Object value) {
+		if(value instanceof Integer)
+			return INT;
+		if(value instanceof Long)
+			return LONG;
+		if(value instanceof Float)
+			return FLOAT;
+		if(value instanceof Double)
+			return DOUBLE;
+		if(value instanceof Boolean)
+			return BOOLEAN;
+		if(value instanceof String)
+			return STRING;
+		if(AbstractEvent.isSerializable(value))
+			return OBJECT;
+		return -1;
+	}
+
+	private void writeValue(int localID, int type, Object value) throws IOException {
+		switch(type) {
+		case INT:
+		case LONG:
+			long current = ((Number)value).longValue();
+			writeVarLong(zigZag(current - previous[localID]));
+			previous[localID] = current;
+			break;
+		case FLOAT: out.writeFloat((Float)value); break;
+		case DOUBLE: out.writeDouble((Double)value); break;
+		case BOOLEAN: out.writeBoolean((Boolean)value); break;
+		case STRING: out.writeUTF((String)value); break;
+		default:
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			ObjectOutputStream objectOut = new ObjectOutputStream(bytes);
+			objectOut.writeObject(value);
+			objectOut.close();
+			writeVarInt(bytes.size());
+			bytes.writeTo(out);
+		}
+	}
+
+	private static long zigZag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private void writeVarInt(int value) throws IOException {
+		writeVarLong(value & 0xFFFFFFFFL);
+	}
+
+	private void writeVarLong(long value) throws IOException {
+		while((value & ~0x7FL) != 0) {
+			out.writeByte((int)(value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte((int)value);
+	}
+}
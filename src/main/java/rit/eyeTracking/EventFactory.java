@@ -1,5 +1,6 @@
 package rit.eyeTracking;
 
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -25,4 +26,35 @@ public interface EventFactory<E extends Event> {
 	 * @return The new event
 	 */
 	public E createEvent(Event.ID id, Map<String,Object> attributes);
+	
+	/**
+	 * Creates a new application specific {@link Event} instance without
+	 * initial attributes. Attributes can be added to the returned event
+	 * via {@link Event#addAttribute(String, Object)}.
+	 * 
+	 * Implementations that recycle events, like {@link PooledEventFactory},
+	 * override this method to avoid allocating an attribute map.
+	 * 
+	 * @param id The event id
+	 * @return The new event
+	 */
+	public default E createEvent(Event.ID id) {
+		return createEvent(id, new HashMap<String,Object>());
+	}
+	
+	/**
+	 * Returns a copy of the given event that contains only serializable
+	 * attributes, e.g. to record events. The default implementation
+	 * delegates to {@link Event#getSerializable(EventFactory)}, which
+	 * copies attributes of {@link AbstractPrimitiveEvent}s in bulk if this
+	 * factory creates {@link AbstractPrimitiveEvent}s, too. Factories may
+	 * override this method to provide faster copies of custom events.
+	 * 
+	 * @param event The event to copy
+	 * @return The serializable copy
+	 */
+	@SuppressWarnings("unchecked")
+	public default E createSerializable(Event event) {
+		return (E)event.getSerializable(this);
+	}
 }
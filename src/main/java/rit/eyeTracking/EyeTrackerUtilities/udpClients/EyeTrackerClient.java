@@ -8,6 +8,7 @@ import java.util.List;
 import org.eclipse.swt.graphics.Point;
 
 import rit.eyeTracking.Event;
+import rit.eyeTracking.PooledEventFactory;
 import rit.eyeTracking.EyeTrackerUtilities.calibration.SWTCalibration;
 import rit.eyeTracking.SmoothingFilters.Filter;
 
@@ -95,6 +96,18 @@ public abstract class EyeTrackerClient<E extends Event> extends Thread {
 	public Filter<E> getFilter() {
 		return filter;
 	}
+	
+	/**
+	 * Passes a newly created event to the filter and releases it to its
+	 * {@link PooledEventFactory} afterwards, even if the filter fails.
+	 */
+	protected void filterAndRelease(E e) {
+		try {
+			filter.filter(e);
+		} finally {
+			PooledEventFactory.release(e);
+		}
+	}
 
 	/**
 	 * A method that connects the client object to the port that it will be
@@ -6,8 +6,6 @@ import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
 import java.net.SocketException;
-import java.util.HashMap;
-import java.util.Map;
 
 import org.eclipse.swt.graphics.Point;
 
@@ -52,11 +50,11 @@ public class ITUGazeTrackerComm extends EyeTrackerClient<Event> {
 				String[] tokens = gtString.split(" ");
 
 				if (toggleOn) {
-					Map<String,Object> attr = new HashMap<String,Object>();
-					attr.put(Event.CLIENT_TIMESTAMP_MS, System.currentTimeMillis());
-					attr.put(Event.POR_X, (int)Double.parseDouble(tokens[2]));
-					attr.put(Event.POR_Y, (int) Double.parseDouble(tokens[3]));
-					filter.filter(eventFactory.createEvent(Event.RAW_EVENT, attr));
+					Event e = eventFactory.createEvent(Event.RAW_EVENT);
+					e.addAttribute(Event.Keys.CLIENT_TIMESTAMP_MS, System.currentTimeMillis());
+					e.addAttribute(Event.Keys.POR_X, (int)Double.parseDouble(tokens[2]));
+					e.addAttribute(Event.Keys.POR_Y, (int) Double.parseDouble(tokens[3]));
+					filterAndRelease(e);
 				}
 			}
 		}
@@ -1,5 +1,6 @@
 package rit.eyeTracking.EyeTrackerUtilities.udpClients;
 
+import rit.eyeTracking.AttributeKey;
 import rit.eyeTracking.Event;
 
 /**
@@ -7,17 +8,25 @@ import rit.eyeTracking.Event;
  */
 public class IViewX {
 
-	public static final Event.ID CALIBRATION_STARTED = new Event.IDImpl("ET_CAL");
+	public static final int CALIBRATION_STARTED_ORDINAL = 8;
+	public static final Event.ID CALIBRATION_STARTED = new Event.IDImpl("ET_CAL", CALIBRATION_STARTED_ORDINAL);
 	// TODO: ET_CSZ
-	public static final Event.ID CALIBRATION_POINT_DATA = new Event.IDImpl("ET_PNT");
-	public static final Event.ID CALIBRATION_POINT_CHANGE = new Event.IDImpl("ET_CHG");
-	public static final Event.ID CALIBRATION_ABORTED = new Event.IDImpl("ET_BRK");
-	public static final Event.ID CALIBRATION_SUCCESSFUL = new Event.IDImpl("ET_FIN");
+	public static final int CALIBRATION_POINT_DATA_ORDINAL = 9;
+	public static final Event.ID CALIBRATION_POINT_DATA = new Event.IDImpl("ET_PNT", CALIBRATION_POINT_DATA_ORDINAL);
+	public static final int CALIBRATION_POINT_CHANGE_ORDINAL = 10;
+	public static final Event.ID CALIBRATION_POINT_CHANGE = new Event.IDImpl("ET_CHG", CALIBRATION_POINT_CHANGE_ORDINAL);
+	public static final int CALIBRATION_ABORTED_ORDINAL = 11;
+	public static final Event.ID CALIBRATION_ABORTED = new Event.IDImpl("ET_BRK", CALIBRATION_ABORTED_ORDINAL);
+	public static final int CALIBRATION_SUCCESSFUL_ORDINAL = 12;
+	public static final Event.ID CALIBRATION_SUCCESSFUL = new Event.IDImpl("ET_FIN", CALIBRATION_SUCCESSFUL_ORDINAL);
 
-	public static final Event.ID CALIBRATION_ACCURRACY = new Event.IDImpl("ET_VLS");
-	public static final Event.ID VALIDATION_ACCURRACY = new Event.IDImpl("ET_VLX");
+	public static final int CALIBRATION_ACCURRACY_ORDINAL = 13;
+	public static final Event.ID CALIBRATION_ACCURRACY = new Event.IDImpl("ET_VLS", CALIBRATION_ACCURRACY_ORDINAL);
+	public static final int VALIDATION_ACCURRACY_ORDINAL = 14;
+	public static final Event.ID VALIDATION_ACCURRACY = new Event.IDImpl("ET_VLX", VALIDATION_ACCURRACY_ORDINAL);
 	
-	public static final Event.ID USER_EVENT = new Event.IDImpl("UserEvent");
+	public static final int USER_EVENT_ORDINAL = 15;
+	public static final Event.ID USER_EVENT = new Event.IDImpl("UserEvent", USER_EVENT_ORDINAL);
 	
 	public static final String VALIDATION_COUNT = "VAL_CNT";
 	public static final String EXTENDED_VALIDATION_COUNT = "EVAL_CNT";
@@ -60,4 +69,51 @@ public class IViewX {
 	public static final String SACC_PEAK_ACCEL = "Peak Accel.";
 	public static final String SACC_PEAK_DECEL = "Peak Decel.";
 	public static final String SACC_AVG_ACCEL = "Average Accel.";
+	
+	/**
+	 * {@link AttributeKey}s for the iViewX-related attributes declared by
+	 * {@link IViewX}. The value types of {@link IViewX#TRIAL} and
+	 * {@link IViewX#NUMBER} are not specified.
+	 */
+	public static final class Keys {
+		
+		public static final AttributeKey<Integer> VALIDATION_COUNT = AttributeKey.register(IViewX.VALIDATION_COUNT, Integer.class);
+		public static final AttributeKey<Integer> EXTENDED_VALIDATION_COUNT = AttributeKey.register(IViewX.EXTENDED_VALIDATION_COUNT, Integer.class);
+		public static final AttributeKey<Integer> PNT_INDEX = AttributeKey.register(IViewX.PNT_INDEX, Integer.class);
+		public static final AttributeKey<Integer> PNT_COUNT = AttributeKey.register(IViewX.PNT_COUNT, Integer.class);
+		public static final AttributeKey<Integer> PNT_X = AttributeKey.register(IViewX.PNT_X, Integer.class);
+		public static final AttributeKey<Integer> PNT_Y = AttributeKey.register(IViewX.PNT_Y, Integer.class);
+		public static final AttributeKey<Float> RMSX = AttributeKey.register(IViewX.RMSX, Float.class);
+		public static final AttributeKey<Float> RMSY = AttributeKey.register(IViewX.RMSY, Float.class);
+		public static final AttributeKey<Float> RMSXL = AttributeKey.register(IViewX.RMSXL, Float.class);
+		public static final AttributeKey<Float> RMSYL = AttributeKey.register(IViewX.RMSYL, Float.class);
+		public static final AttributeKey<Float> RMSXR = AttributeKey.register(IViewX.RMSXR, Float.class);
+		public static final AttributeKey<Float> RMSYR = AttributeKey.register(IViewX.RMSYR, Float.class);
+		public static final AttributeKey<Float> RMSD = AttributeKey.register(IViewX.RMSD, Float.class);
+		public static final AttributeKey<Float> RMSDL = AttributeKey.register(IViewX.RMSDL, Float.class);
+		public static final AttributeKey<Float> RMSDR = AttributeKey.register(IViewX.RMSDR, Float.class);
+		public static final AttributeKey<Float> XD = AttributeKey.register(IViewX.XD, Float.class);
+		public static final AttributeKey<Float> YD = AttributeKey.register(IViewX.YD, Float.class);
+		public static final AttributeKey<Float> XDL = AttributeKey.register(IViewX.XDL, Float.class);
+		public static final AttributeKey<Float> YDL = AttributeKey.register(IViewX.YDL, Float.class);
+		public static final AttributeKey<Float> XDR = AttributeKey.register(IViewX.XDR, Float.class);
+		public static final AttributeKey<Float> YDR = AttributeKey.register(IViewX.YDR, Float.class);
+		public static final AttributeKey<Object> TRIAL = AttributeKey.register(IViewX.TRIAL, Object.class);
+		public static final AttributeKey<Object> NUMBER = AttributeKey.register(IViewX.NUMBER, Object.class);
+		public static final AttributeKey<String> DESCRIPTION = AttributeKey.register(IViewX.DESCRIPTION, String.class);
+		public static final AttributeKey<Float> DISPERSION_X = AttributeKey.register(IViewX.DISPERSION_X, Float.class);
+		public static final AttributeKey<Float> DISPERSION_Y = AttributeKey.register(IViewX.DISPERSION_Y, Float.class);
+		public static final AttributeKey<Float> AVG_PUPIL_SIZE_X = AttributeKey.register(IViewX.AVG_PUPIL_SIZE_X, Float.class);
+		public static final AttributeKey<Float> AVG_PUPIL_SIZE_Y = AttributeKey.register(IViewX.AVG_PUPIL_SIZE_Y, Float.class);
+		public static final AttributeKey<Float> SACC_AMPLITUDE = AttributeKey.register(IViewX.SACC_AMPLITUDE, Float.class);
+		public static final AttributeKey<Float> SACC_PEAK_SPEED = AttributeKey.register(IViewX.SACC_PEAK_SPEED, Float.class);
+		public static final AttributeKey<Float> SACC_PEAK_SPEED_AT = AttributeKey.register(IViewX.SACC_PEAK_SPEED_AT, Float.class);
+		public static final AttributeKey<Float> SACC_AVG_SPEED = AttributeKey.register(IViewX.SACC_AVG_SPEED, Float.class);
+		public static final AttributeKey<Float> SACC_PEAK_ACCEL = AttributeKey.register(IViewX.SACC_PEAK_ACCEL, Float.class);
+		public static final AttributeKey<Float> SACC_PEAK_DECEL = AttributeKey.register(IViewX.SACC_PEAK_DECEL, Float.class);
+		public static final AttributeKey<Float> SACC_AVG_ACCEL = AttributeKey.register(IViewX.SACC_AVG_ACCEL, Float.class);
+		
+		private Keys() {
+		}
+	}
 }
@@ -476,45 +476,44 @@ INFO:eyetracking.api.RAW_EVENT parsed
 							boolean matched = false;
 							Matcher rawBothMatcher = responsePatternRAWBoth.matcher(responseString);
 							if(rawBothMatcher.matches()) {
-								Map<String,Object> map = new HashMap<String,Object>();
-								map.put(Event.TRACKER_TIMESTAMP_MU, Long.parseLong(rawBothMatcher.group("TU")));
-								map.put(Event.CLIENT_TIMESTAMP_MS, System.currentTimeMillis());
-								map.put(Event.EYE_TYPE, "b");
-								map.put(Event.POR_X, Integer.parseInt(rawBothMatcher.group("SX")));
-								map.put(Event.POR_Y, Integer.parseInt(rawBothMatcher.group("SY")));
-								map.put(Event.PUPIL_DIA_L_PX, Float.parseFloat(rawBothMatcher.group("DL")));
-								map.put(Event.PUPIL_DIA_R_PX, Float.parseFloat(rawBothMatcher.group("DR")));
-								map.put(Event.EYE_X_L, Float.parseFloat(rawBothMatcher.group("EXL")));
-								map.put(Event.EYE_X_R, Float.parseFloat(rawBothMatcher.group("EXR")));
-								map.put(Event.EYE_Y_L, Float.parseFloat(rawBothMatcher.group("EYL")));
-								map.put(Event.EYE_Y_R, Float.parseFloat(rawBothMatcher.group("EYR")));
-								map.put(Event.EYE_Z_L, Float.parseFloat(rawBothMatcher.group("EZL")));
-								map.put(Event.EYE_Z_R, Float.parseFloat(rawBothMatcher.group("EZR")));
-								map.put(Event.PUPIL_POS_X_L, Float.parseFloat(rawBothMatcher.group("PXL")));
-								map.put(Event.PUPIL_POS_X_R, Float.parseFloat(rawBothMatcher.group("PXR")));
-								map.put(Event.PUPIL_POS_Y_L, Float.parseFloat(rawBothMatcher.group("PYL")));
-								map.put(Event.PUPIL_POS_Y_R, Float.parseFloat(rawBothMatcher.group("PYR")));
-								map.put(Event.PUPIL_DIA_L_MM, Float.parseFloat(rawBothMatcher.group("PDL")));
-								map.put(Event.PUPIL_DIA_R_MM, Float.parseFloat(rawBothMatcher.group("PDR")));
+								Event e = eventFactory.createEvent(Event.RAW_EVENT);
+								e.addAttribute(Event.Keys.TRACKER_TIMESTAMP_MU, Long.parseLong(rawBothMatcher.group("TU")));
+								e.addAttribute(Event.Keys.CLIENT_TIMESTAMP_MS, System.currentTimeMillis());
+								e.addAttribute(Event.Keys.EYE_TYPE, "b");
+								e.addAttribute(Event.Keys.POR_X, Integer.parseInt(rawBothMatcher.group("SX")));
+								e.addAttribute(Event.Keys.POR_Y, Integer.parseInt(rawBothMatcher.group("SY")));
+								e.addAttribute(Event.Keys.PUPIL_DIA_L_PX, Float.parseFloat(rawBothMatcher.group("DL")));
+								e.addAttribute(Event.Keys.PUPIL_DIA_R_PX, Float.parseFloat(rawBothMatcher.group("DR")));
+								e.addAttribute(Event.Keys.EYE_X_L, Float.parseFloat(rawBothMatcher.group("EXL")));
+								e.addAttribute(Event.Keys.EYE_X_R, Float.parseFloat(rawBothMatcher.group("EXR")));
+								e.addAttribute(Event.Keys.EYE_Y_L, Float.parseFloat(rawBothMatcher.group("EYL")));
+								e.addAttribute(Event.Keys.EYE_Y_R, Float.parseFloat(rawBothMatcher.group("EYR")));
+								e.addAttribute(Event.Keys.EYE_Z_L, Float.parseFloat(rawBothMatcher.group("EZL")));
+								e.addAttribute(Event.Keys.EYE_Z_R, Float.parseFloat(rawBothMatcher.group("EZR")));
+								e.addAttribute(Event.Keys.PUPIL_POS_X_L, Float.parseFloat(rawBothMatcher.group("PXL")));
+								e.addAttribute(Event.Keys.PUPIL_POS_X_R, Float.parseFloat(rawBothMatcher.group("PXR")));
+								e.addAttribute(Event.Keys.PUPIL_POS_Y_L, Float.parseFloat(rawBothMatcher.group("PYL")));
+								e.addAttribute(Event.Keys.PUPIL_POS_Y_R, Float.parseFloat(rawBothMatcher.group("PYR")));
+								e.addAttribute(Event.Keys.PUPIL_DIA_L_MM, Float.parseFloat(rawBothMatcher.group("PDL")));
+								e.addAttribute(Event.Keys.PUPIL_DIA_R_MM, Float.parseFloat(rawBothMatcher.group("PDR")));
 								
 								String groupCXL = rawBothMatcher.group("CXL");
 								if(groupCXL != null)
-									map.put(Event.CORNEAL_REFLEX_POS_X_L, Float.parseFloat(groupCXL));
+									e.addAttribute(Event.Keys.CORNEAL_REFLEX_POS_X_L, Float.parseFloat(groupCXL));
 								
 								String groupCXR = rawBothMatcher.group("CXR");
 								if(groupCXR != null)
-									map.put(Event.CORNEAL_REFLEX_POS_X_R, Float.parseFloat(groupCXR));
+									e.addAttribute(Event.Keys.CORNEAL_REFLEX_POS_X_R, Float.parseFloat(groupCXR));
 								
 								String groupCYL = rawBothMatcher.group("CYL");
 								if(groupCYL != null)
-									map.put(Event.CORNEAL_REFLEX_POS_Y_L, Float.parseFloat(groupCYL));
+									e.addAttribute(Event.Keys.CORNEAL_REFLEX_POS_Y_L, Float.parseFloat(groupCYL));
 								
 								String groupCYR = rawBothMatcher.group("CYR");
 								if(groupCYR != null)
-									map.put(Event.CORNEAL_REFLEX_POS_Y_R, Float.parseFloat(groupCYR));
+									e.addAttribute(Event.Keys.CORNEAL_REFLEX_POS_Y_R, Float.parseFloat(groupCYR));
 								
-								Event e = eventFactory.createEvent(Event.RAW_EVENT, map);
-								filter.filter(e);
+								filterAndRelease(e);
 								matched = true;
 								info(Event.RAW_EVENT+" parsed\n");
 							}
@@ -522,14 +521,13 @@ INFO:eyetracking.api.RAW_EVENT parsed
 							if(!matched) {
 								Matcher fixStartMatcher = RESPONSE_PATTERN_FIXATION_START.matcher(responseString);
 								if(fixStartMatcher.matches()) {
-									Map<String,Object> map = new HashMap<String,Object>();
-									map.put(Event.FIXATION_START_TIMESTAMP_MS, Long.parseLong(fixStartMatcher.group("TU"))/1000L);
-									map.put(Event.CLIENT_TIMESTAMP_MS, System.currentTimeMillis());
-									map.put(Event.EYE_TYPE, fixStartMatcher.group("ET"));
-									map.put(Event.POR_X, (int)Float.parseFloat(fixStartMatcher.group("SX")));
-									map.put(Event.POR_Y, (int)Float.parseFloat(fixStartMatcher.group("SY")));
-									Event e = eventFactory.createEvent(Event.FIXATION_START, map);
-									filter.filter(e);
+									Event e = eventFactory.createEvent(Event.FIXATION_START);
+									e.addAttribute(Event.Keys.FIXATION_START_TIMESTAMP_MS, Long.parseLong(fixStartMatcher.group("TU"))/1000L);
+									e.addAttribute(Event.Keys.CLIENT_TIMESTAMP_MS, System.currentTimeMillis());
+									e.addAttribute(Event.Keys.EYE_TYPE, fixStartMatcher.group("ET"));
+									e.addAttribute(Event.Keys.POR_X, (int)Float.parseFloat(fixStartMatcher.group("SX")));
+									e.addAttribute(Event.Keys.POR_Y, (int)Float.parseFloat(fixStartMatcher.group("SY")));
+									filterAndRelease(e);
 									matched = true;
 									info(Event.FIXATION_START+" parsed\n");
 								}
@@ -538,16 +536,15 @@ INFO:eyetracking.api.RAW_EVENT parsed
 							if(!matched) {
 								Matcher fixEndMatcher = RESPONSE_PATTERN_FIXATION_END.matcher(responseString);
 								if(fixEndMatcher.matches()) {
-									Map<String,Object> map = new HashMap<String,Object>();
-									map.put(Event.FIXATION_START_TIMESTAMP_MS, Long.parseLong(fixEndMatcher.group("TUS"))/1000L);
-									map.put(Event.FIXATION_END_TIMESTAMP_MS, Long.parseLong(fixEndMatcher.group("TUE"))/1000L);
-									map.put(Event.FIXATION_DURATION_MS, Long.parseLong(fixEndMatcher.group("DU")));
-									map.put(Event.CLIENT_TIMESTAMP_MS, System.currentTimeMillis());
-									map.put(Event.EYE_TYPE, fixEndMatcher.group("ET"));
-									map.put(Event.POR_X, (int)Float.parseFloat(fixEndMatcher.group("SX")));
-									map.put(Event.POR_Y, (int)Float.parseFloat(fixEndMatcher.group("SY")));
-									Event e = eventFactory.createEvent(Event.FIXATION_END, map);
-									filter.filter(e);
+									Event e = eventFactory.createEvent(Event.FIXATION_END);
+									e.addAttribute(Event.Keys.FIXATION_START_TIMESTAMP_MS, Long.parseLong(fixEndMatcher.group("TUS"))/1000L);
+									e.addAttribute(Event.Keys.FIXATION_END_TIMESTAMP_MS, Long.parseLong(fixEndMatcher.group("TUE"))/1000L);
+									e.addAttribute(Event.Keys.FIXATION_DURATION_MS, Long.parseLong(fixEndMatcher.group("DU")));
+									e.addAttribute(Event.Keys.CLIENT_TIMESTAMP_MS, System.currentTimeMillis());
+									e.addAttribute(Event.Keys.EYE_TYPE, fixEndMatcher.group("ET"));
+									e.addAttribute(Event.Keys.POR_X, (int)Float.parseFloat(fixEndMatcher.group("SX")));
+									e.addAttribute(Event.Keys.POR_Y, (int)Float.parseFloat(fixEndMatcher.group("SY")));
+									filterAndRelease(e);
 									matched = true;
 									info(Event.FIXATION_END+" parsed\n");
 								}
@@ -570,7 +567,7 @@ INFO:eyetracking.api.RAW_EVENT parsed
 									}
 								}
 								Event e = eventFactory.createEvent(IViewX.CALIBRATION_STARTED, map);
-								filter.filter(e);
+								filterAndRelease(e);
 								matched = true;
 								info(IViewX.CALIBRATION_STARTED+" parsed\n");
 							}
@@ -580,11 +577,11 @@ INFO:eyetracking.api.RAW_EVENT parsed
 								if(pntMatcher.matches()) {
 									Map<String,Object> map = new HashMap<String,Object>();
 									map.put(Event.CLIENT_TIMESTAMP_MS, System.currentTimeMillis());
-									map.put(IViewX.PNT_INDEX, pntMatcher.group("I"));
+									map.put(IViewX.PNT_INDEX, Integer.parseInt(pntMatcher.group("I")));
 									map.put(IViewX.PNT_X, Integer.parseInt(pntMatcher.group("X")));
 									map.put(IViewX.PNT_Y, Integer.parseInt(pntMatcher.group("Y")));
 									Event e = eventFactory.createEvent(IViewX.CALIBRATION_POINT_DATA, map);
-									filter.filter(e);
+									filterAndRelease(e);
 									matched = true;
 									info(IViewX.CALIBRATION_POINT_DATA+" parsed\n");
 								}
@@ -596,7 +593,7 @@ INFO:eyetracking.api.RAW_EVENT parsed
 								map.put(Event.CLIENT_TIMESTAMP_MS, System.currentTimeMillis());
 								map.put(IViewX.PNT_INDEX, Integer.parseInt(parts[1]));
 								Event e = eventFactory.createEvent(IViewX.CALIBRATION_POINT_CHANGE, map);
-								filter.filter(e);
+								filterAndRelease(e);
 								matched = true;
 								info(IViewX.CALIBRATION_POINT_CHANGE+" parsed\n");
 							}
@@ -605,7 +602,7 @@ INFO:eyetracking.api.RAW_EVENT parsed
 								Map<String,Object> map = new HashMap<String,Object>();
 								map.put(Event.CLIENT_TIMESTAMP_MS, System.currentTimeMillis());
 								Event e = eventFactory.createEvent(IViewX.CALIBRATION_ABORTED, map);
-								filter.filter(e);
+								filterAndRelease(e);
 								matched = true;
 								info(IViewX.CALIBRATION_ABORTED+" parsed\n");
 							}
@@ -614,7 +611,7 @@ INFO:eyetracking.api.RAW_EVENT parsed
 								Map<String,Object> map = new HashMap<String,Object>();
 								map.put(Event.CLIENT_TIMESTAMP_MS, System.currentTimeMillis());
 								Event e = eventFactory.createEvent(IViewX.CALIBRATION_SUCCESSFUL, map);
-								filter.filter(e);
+								filterAndRelease(e);
 								matched = true;
 								info(IViewX.CALIBRATION_SUCCESSFUL+" parsed\n");
 							}
@@ -640,7 +637,7 @@ INFO:eyetracking.api.RAW_EVENT parsed
 									map.put(IViewX.XD, Float.parseFloat(vlsMatcher.group("XD")));
 									map.put(IViewX.YD, Float.parseFloat(vlsMatcher.group("YD")));
 									Event e = eventFactory.createEvent(IViewX.CALIBRATION_ACCURRACY, map);
-									filter.filter(e);
+									filterAndRelease(e);
 									matched = true;
 									info(IViewX.CALIBRATION_ACCURRACY+" parsed\n");
 								}
@@ -660,7 +657,7 @@ INFO:eyetracking.api.RAW_EVENT parsed
 									map.put(IViewX.XDR, Float.parseFloat(vlxMatcher.group("XDR")));
 									map.put(IViewX.YDR, Float.parseFloat(vlxMatcher.group("YDR")));
 									Event e = eventFactory.createEvent(IViewX.VALIDATION_ACCURRACY, map);
-									filter.filter(e);
+									filterAndRelease(e);
 									matched = true;
 									info(IViewX.VALIDATION_ACCURRACY+" parsed\n");
 								}
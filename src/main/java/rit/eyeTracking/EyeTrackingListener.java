@@ -62,7 +62,13 @@ public interface EyeTrackingListener<E extends Event> {
 	 * 
 	 * The attributes of the event should be read before the
 	 * notify method returns, for the event will be destroyed
-	 * after the last listener has been notified.
+	 * after the last listener has been notified. Events created
+	 * by a {@link PooledEventFactory} are recycled at that point.
+	 * Listeners that keep a reference to the event beyond the
+	 * notify method, e.g. to process it on another thread, need
+	 * to invoke {@link PooledEventFactory#retain(Event)} before
+	 * notify returns and {@link PooledEventFactory#release(Event)}
+	 * once they are done with the event.
 	 * 
 	 * @param e The eye tracking event
 	 */
@@ -31,12 +31,14 @@ public interface Filter<T,E extends Event> extends EyeTrackingListener<E> {
 	 * to be present in events that it can process.
 	 * 
 	 * Note that the filter will still be provided with events that
-	 * do not contain all required events and has to ignore them.
+	 * do not contain all required events and has to ignore them,
+	 * unless it is an {@link IDFilter}.
 	 * 
 	 * Information from this method is used to compute the order
 	 * in which filters should be applied to the data.
 	 * 
 	 * @return An array of attribute names
+	 * @see AttributeKey#names(AttributeKey...)
 	 * @see #notify(Event)
 	 * @see #getAttributesDesired()
 	 * @deprecated
@@ -52,6 +54,7 @@ public interface Filter<T,E extends Event> extends EyeTrackingListener<E> {
 	 * which filters should be applied to the data.
 	 * 
 	 * @return An array of attribute names
+	 * @see AttributeKey#names(AttributeKey...)
 	 * @see #notify(Event)
 	 * @see #getAttributesRequired()
 	 * @deprecated
@@ -64,6 +67,7 @@ public interface Filter<T,E extends Event> extends EyeTrackingListener<E> {
 	 * actually have instance of these attributes.
 	 * 
 	 * @return An array of attribute names
+	 * @see AttributeKey#names(AttributeKey...)
 	 * @deprecated
 	 */
 	public String[] getAttributesCreated();
@@ -2,8 +2,10 @@ package rit.eyeTracking;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
@@ -14,21 +16,150 @@ import java.util.concurrent.CopyOnWriteArrayList;
  * @param <E> The type of event passed through the filter chain
  * 	({@link Event} by default)
  */
-public class FilterChain<T,E extends Event> implements EyeTrackingListener<E> {
+public class FilterChain<T,E extends Event> implements EventBatchListener<E> {
 	
 	protected final List<Filter<T,E>> filters;
 	protected final List<Filter<T,E>> runtimeFilters = new ArrayList<Filter<T,E>>();
+	private final Class<E> eventType;
+	private volatile Dispatch<T,E> dispatch;
+	private volatile String[] sourceAttributes;
+	private volatile ConcurrentMap<Class<?>,Lookup<T,E>> lookups
+		= new ConcurrentHashMap<Class<?>,Lookup<T,E>>();
 	
+	/**
+	 * Creates a chain that passes batches to {@link EventBatchListener}s
+	 * only.
+	 * 
+	 * @see #FilterChain(Filter[], Class)
+	 */
 	public FilterChain(Filter<T,E>[] filters) {
+		this(filters, null);
+	}
+	
+	/**
+	 * @param filters The filters
+	 * @param eventType The type of events passed through the chain. If
+	 * 	it is {@link Event}, filters that are not batch-aware are notified
+	 * 	of the rows of batches passed to
+	 * 	{@link #notify(EventBatch, EyeTrackingListener, Mode)}.
+	 */
+	public FilterChain(Filter<T,E>[] filters, Class<E> eventType) {
 		this.filters = new CopyOnWriteArrayList<Filter<T,E>>(Arrays.asList(filters));
+		this.eventType = eventType;
+		updateDispatch();
 	}
 	
-	public boolean hasFilter(Class<?> clazz) {
-		for(Filter<T,E> filter: filters) {
-			if(filter.getClass() == clazz)
-				return true;
+	/**
+	 * Declares the sources of events passed to this chain, so that
+	 * {@link #start(Object, EyeTrackingListener, Mode)} can check that
+	 * all attributes required by filters are created by a source or filter.
+	 * 
+	 * @param sources The sources of events
+	 */
+	public void setSources(Source... sources) {
+		List<String> attributes = new ArrayList<String>();
+		for(Source source: sources) {
+			String[] created = source.getAttributesCreated();
+			if(created != null)
+				attributes.addAll(Arrays.asList(created));
 		}
-		return false;
+		sourceAttributes = attributes.toArray(new String[attributes.size()]);
+		updateDispatch();
+	}
+	
+	/**
+	 * Re-computes the order of filters used by
+	 * {@link #notify(Event, EyeTrackingListener, Mode)} after the list of
+	 * filters has been modified.
+	 * 
+	 * @see FilterChainCompiler#compile()
+	 */
+	protected synchronized void updateDispatch() {
+		dispatch = new Dispatch<T,E>(createCompiler().compile());
+	}
+	
+	/**
+	 * Returns a compiler for the current filters and sources.
+	 */
+	protected FilterChainCompiler<T,E> createCompiler() {
+		return new FilterChainCompiler<T,E>(filters, sourceAttributes);
+	}
+	
+	/**
+	 * Returns the filters in the order in which they are notified.
+	 */
+	public List<Filter<T,E>> getOrder() {
+		return Collections.unmodifiableList(Arrays.asList(dispatch.filters));
+	}
+	
+	/**
+	 * Returns a dispatcher that notifies the current filters of this chain
+	 * in the current order. Filters added to or removed from the chain
+	 * afterwards are not taken into account by the dispatcher. Unlike this
+	 * chain, the dispatcher lets the JIT inline small filters.
+	 * 
+	 * @see FilterDispatcher#create(Filter[])
+	 */
+	public FilterDispatcher<E> freeze() {
+		return FilterDispatcher.<E>create(dispatch.filters);
+	}
+	
+	/**
+	 * An immutable snapshot of the filters in dependency order, the
+	 * events they are interested in and, for each ID ordinal, the filters
+	 * interested in events with that ID.
+	 */
+	private static final class Dispatch<T,E extends Event> {
+		private final Filter<T,E>[] filters;
+		private final FilterInterest[] interests;
+		private final Route<T,E>[] routes;
+		private final Route<T,E> otherIDs;
+		
+		@SuppressWarnings("unchecked")
+		private Dispatch(Filter<T,E>[] filters) {
+			this.filters = filters;
+			interests = new FilterInterest[filters.length];
+			for(int i=0; i<filters.length; i++)
+				interests[i] = FilterInterest.of(filters[i]);
+			routes = new Route[Event.IDImpl.ordinalBound()];
+			for(int ordinal=0; ordinal<routes.length; ordinal++)
+				routes[ordinal] = new Route<T,E>(filters, interests, ordinal);
+			otherIDs = new Route<T,E>(filters, interests, routes.length);
+		}
+		
+		private Route<T,E> route(int ordinal) {
+			return ordinal < routes.length ? routes[ordinal] : otherIDs;
+		}
+	}
+	
+	/**
+	 * The filters interested in events with a given ID ordinal.
+	 */
+	private static final class Route<T,E extends Event> {
+		private final Filter<T,E>[] filters;
+		private final FilterInterest[] interests;
+		
+		@SuppressWarnings("unchecked")
+		private Route(Filter<T,E>[] allFilters, FilterInterest[] allInterests, int ordinal) {
+			List<Filter<T,E>> filters = new ArrayList<Filter<T,E>>();
+			List<FilterInterest> interests = new ArrayList<FilterInterest>();
+			for(int i=0; i<allFilters.length; i++) {
+				if(allInterests[i].acceptsID(ordinal)) {
+					filters.add(allFilters[i]);
+					interests.add(allInterests[i]);
+				}
+			}
+			this.filters = filters.toArray(new Filter[filters.size()]);
+			this.interests = interests.toArray(new FilterInterest[interests.size()]);
+		}
+	}
+	
+	/**
+	 * Returns whether the chain contains an instance of exactly the given
+	 * class.
+	 */
+	public boolean hasFilter(Class<?> clazz) {
+		return lookup(clazz).instance != null;
 	}
 	
 	/**
@@ -39,20 +170,68 @@ public class FilterChain<T,E extends Event> implements EyeTrackingListener<E> {
 	 */
 	@SuppressWarnings("unchecked")
 	public <S extends Filter<T,E>> S getFilter(Class<?> filterClass) {
-		for(Filter<T,E> filter: filters) {
-			if(filter.getClass() == filterClass)
-				return (S)filter;
-		}
-		return null;
+		return (S)lookup(filterClass).instance;
 	}
 	
+	/**
+	 * Returns the filters that are instances of the given class or
+	 * interface, in the order in which they were added to the chain.
+	 * 
+	 * @return An unmodifiable list that is not updated when filters are
+	 * 	added to or removed from the chain
+	 */
 	public List<Filter<T,E>> findFilters(Class<?> classOrInterface) {
-		List<Filter<T,E>> results = new LinkedList<Filter<T,E>>();
-		for(Filter<T,E> filter: filters) {
-			if(classOrInterface.isAssignableFrom(filter.getClass()))
-				results.add(filter);
+		return lookup(classOrInterface).assignable;
+	}
+	
+	/**
+	 * Returns the filters of the given class, computing them on the first
+	 * lookup after the list of filters has been modified.
+	 */
+	private Lookup<T,E> lookup(Class<?> clazz) {
+		ConcurrentMap<Class<?>,Lookup<T,E>> lookups = this.lookups;
+		Lookup<T,E> lookup = lookups.get(clazz);
+		if(lookup == null) {
+			lookup = new Lookup<T,E>(filters, clazz);
+			Lookup<T,E> previous = lookups.putIfAbsent(clazz, lookup);
+			if(previous != null)
+				lookup = previous;
+		}
+		return lookup;
+	}
+	
+	/**
+	 * Discards the results of previous lookups. Invoked after the list of
+	 * filters has been modified, so lookups computed concurrently from the
+	 * previous list are stored in the discarded map.
+	 */
+	private void invalidateLookups() {
+		lookups = new ConcurrentHashMap<Class<?>,Lookup<T,E>>();
+	}
+	
+	/**
+	 * The filters of a given class.
+	 */
+	private static final class Lookup<T,E extends Event> {
+		/** The first filter of exactly the class, or null */
+		private final Filter<T,E> instance;
+		/** The filters assignable to the class */
+		private final List<Filter<T,E>> assignable;
+		
+		private Lookup(List<Filter<T,E>> filters, Class<?> clazz) {
+			Filter<T,E> instance = null;
+			List<Filter<T,E>> assignable = new ArrayList<Filter<T,E>>();
+			for(Filter<T,E> filter: filters) {
+				if(instance == null && filter.getClass() == clazz)
+					instance = filter;
+				if(clazz.isAssignableFrom(filter.getClass()))
+					assignable.add(filter);
+			}
+			this.instance = instance;
+			this.assignable = assignable.isEmpty()
+					? Collections.<Filter<T,E>>emptyList()
+					: Collections.unmodifiableList(assignable);
 		}
-		return results;
 	}
 	
 	/**
@@ -68,6 +247,8 @@ public class FilterChain<T,E extends Event> implements EyeTrackingListener<E> {
 	public void prepend(Filter<T,E> filter) {
 		filters.add(0, filter);
 		runtimeFilters.add(0, filter);
+		invalidateLookups();
+		updateDispatch();
 	}
 	
 	/**
@@ -80,6 +261,8 @@ public class FilterChain<T,E extends Event> implements EyeTrackingListener<E> {
 	public void add(Filter<T,E> filter) {
 		filters.add(filter);
 		runtimeFilters.add(filter);
+		invalidateLookups();
+		updateDispatch();
 	}
 	
 	/**
@@ -95,27 +278,160 @@ public class FilterChain<T,E extends Event> implements EyeTrackingListener<E> {
 		if(runtimeFilters.contains(filter)) {
 			filters.remove(filter);
 			runtimeFilters.remove(filter);
+			invalidateLookups();
+			updateDispatch();
 		} else {
 			throw new IllegalArgumentException("Cannot remove filter not added at runtime");
 		}
 	}
 	
+	/**
+	 * Orders the filters based on the attributes they create and consume
+	 * and starts them in that order.
+	 * 
+	 * @throws IllegalStateException If filters depend on each other
+	 * 	cyclically or, if the sources are known, if an attribute required
+	 * 	by a filter is not created by any source or filter.
+	 * @see FilterChainCompiler#compileStrict()
+	 * @see #setSources(Source...)
+	 */
 	public void start(T obj, EyeTrackingListener<E> listener, Mode mode) {
-		for(Filter<T,E> filter : filters) {
+		Dispatch<T,E> dispatch;
+		synchronized(this) {
+			dispatch = new Dispatch<T,E>(createCompiler().compileStrict());
+			this.dispatch = dispatch;
+		}
+		for(Filter<T,E> filter : dispatch.filters) {
 			filter.start(obj, listener, mode);
 		}
 	}
 	
 	public void stop(T obj, EyeTrackingListener<E> listener, Mode mode) {
-		for(Filter<T,E> filter : filters) {
+		for(Filter<T,E> filter : dispatch.filters) {
 			filter.stop(obj, listener, mode);
 		}
 	}
+	
+	/**
+	 * Passes the event to all filters in dependency order. The
+	 * chain does not retain the event: filters that keep it beyond their
+	 * notify method need to retain and release it themselves.
+	 * 
+	 * {@link FlagFilter}s are skipped for events that have none of the
+	 * flags the filter is interested in. {@link IDFilter}s are only
+	 * notified of events with one of the IDs they are interested in that
+	 * have all attributes they require.
+	 * 
+	 * @see EyeTrackingListener#notify(Event, EyeTrackingListener, Mode)
+	 */
 	@Override
 	public void notify(E e, EyeTrackingListener<E> listener, Mode mode) {
-		for(Filter<T,E> filter : filters) {
-			filter.notify(e, listener, mode);
+		Route<T,E> route = dispatch.route(e.getID().getOrdinal());
+		Filter<T,E>[] filters = route.filters;
+		FilterInterest[] interests = route.interests;
+		int flags = e.getFlags();
+		for(int i=0; i<filters.length; i++) {
+			if(interests[i].accepts(e, flags))
+				filters[i].notify(e, listener, mode);
+		}
+	}
+	
+	/**
+	 * Passes the batch to all filters in dependency order. Each
+	 * filter processes the whole batch before the next filter is notified.
+	 * {@link EventBatchListener}s receive the batch, other filters are
+	 * notified of the rows they are {@link FlagFilter interested} {@link
+	 * IDFilter in} via a cursor. Filters that are not batch-aware hence
+	 * need to accept events of type {@link Event}, i.e. the chain must have
+	 * been created with {@code Event.class}.
+	 * 
+	 * @throws UnsupportedOperationException If a filter is not batch-aware
+	 * 	and the chain has not been created for events of type {@link Event}
+	 * @see EventBatchListener#notify(EventBatch, EyeTrackingListener, Mode)
+	 * @see #FilterChain(Filter[], Class)
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public void notify(EventBatch batch, EyeTrackingListener<E> listener, Mode mode) {
+		Dispatch<T,E> dispatch = this.dispatch;
+		Filter<T,E>[] filters = dispatch.filters;
+		FilterInterest[] interests = dispatch.interests;
+		EventBatch.Cursor cursor = null;
+		for(Filter<T,E> filter: filters) {
+			if(!(filter instanceof EventBatchListener)) {
+				cursor = batch.cursor();
+				if(eventType == null || !eventType.isInstance(cursor))
+					throw new UnsupportedOperationException("Filter "+filter
+							+" is not an EventBatchListener, rows of batches can only be passed"
+							+" to filters of chains created for events of type Event");
+				break;
+			}
+		}
+		for(int i=0; i<filters.length; i++) {
+			if(filters[i] instanceof EventBatchListener) {
+				((EventBatchListener<E>)filters[i]).notify(batch, listener, mode);
+				continue;
+			}
+			E event = eventType.cast(cursor);
+			int[] flags = batch.getFlagsColumn();
+			for(int row=0; row<batch.size(); row++) {
+				if(interests[i].acceptsID(batch.getID(row).getOrdinal())
+						&& interests[i].accepts(cursor.moveTo(row), flags[row]))
+					filters[i].notify(event, listener, mode);
+			}
+		}
+	}
+	
+	/**
+	 * Passes consecutive events to all filters in dependency order. Each
+	 * filter processes all events before the next filter is notified.
+	 * {@link BatchFilter}s are passed the events they are interested in at
+	 * once, other filters are notified of each of them.
+	 * 
+	 * @param events The events, in the order in which they were created
+	 * @see BatchFilter#notifyBatch(List, EyeTrackingListener, Mode)
+	 */
+	@SuppressWarnings("unchecked")
+	public void notifyBatch(List<E> events, EyeTrackingListener<E> listener, Mode mode) {
+		Dispatch<T,E> dispatch = this.dispatch;
+		Filter<T,E>[] filters = dispatch.filters;
+		FilterInterest[] interests = dispatch.interests;
+		int size = events.size();
+		for(int i=0; i<filters.length; i++) {
+			if(filters[i] instanceof BatchFilter) {
+				List<E> selected = select(events, interests[i]);
+				if(!selected.isEmpty())
+					((BatchFilter<T,E>)filters[i]).notifyBatch(selected, listener, mode);
+			} else {
+				for(int j=0; j<size; j++) {
+					E e = events.get(j);
+					if(interests[i].acceptsAll(e))
+						filters[i].notify(e, listener, mode);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Returns the given events if the filter is interested in all of them,
+	 * or a list of those it is interested in.
+	 */
+	private static <E extends Event> List<E> select(List<E> events, FilterInterest interest) {
+		int size = events.size();
+		int accepted = 0;
+		for(int j=0; j<size; j++) {
+			if(interest.acceptsAll(events.get(j)))
+				accepted++;
+		}
+		if(accepted == size)
+			return events;
+		List<E> selected = new ArrayList<E>(accepted);
+		for(int j=0; j<size && selected.size() < accepted; j++) {
+			E e = events.get(j);
+			if(interest.acceptsAll(e))
+				selected.add(e);
 		}
+		return selected;
 	}
 	
 	@Override
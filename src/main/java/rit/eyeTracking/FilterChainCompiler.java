@@ -0,0 +1,238 @@
+package rit.eyeTracking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Orders the filters of a {@link FilterChain} so that filters creating an
+ * attribute run before the filters requiring or desiring it, based on
+ * {@link Filter#getAttributesCreated()}, {@link Filter#getAttributesRequired()}
+ * and {@link Filter#getAttributesDesired()}.
+ *
+ * The order is stable: filters that do not depend on each other keep the
+ * order in which they were added to the chain. Dependencies on desired
+ * attributes are dropped if they would form a cycle, while cycles of
+ * required attributes are errors.
+ */
+@SuppressWarnings("deprecation")
+public class FilterChainCompiler<T,E extends Event> {
+
+	private final List<Filter<T,E>> filters;
+	private final String[] sourceAttributes;
+
+	/**
+	 * @param filters The filters in the order they were added to the chain
+	 * @param sourceAttributes The attributes created by the sources of
+	 * 	events, or null if they are not known
+	 */
+	public FilterChainCompiler(List<Filter<T,E>> filters, String[] sourceAttributes) {
+		this.filters = new ArrayList<Filter<T,E>>(filters);
+		this.sourceAttributes = sourceAttributes;
+	}
+
+	/**
+	 * Returns the filters in dependency order. If required attributes form
+	 * a cycle, the original order is returned.
+	 */
+	public Filter<T,E>[] compile() {
+		Filter<T,E>[] order = sort(true);
+		if(order == null)
+			order = sort(false);
+		if(order == null)
+			order = toArray(filters);
+		return order;
+	}
+
+	/**
+	 * Returns the filters in dependency order and checks that all required
+	 * attributes are produced.
+	 *
+	 * @throws IllegalStateException If required attributes form a cycle or,
+	 * 	if the source attributes are known, if a required attribute is
+	 * 	neither created by a source nor by a filter.
+	 */
+	public Filter<T,E>[] compileStrict() {
+		checkProducers();
+		Filter<T,E>[] order = sort(true);
+		if(order == null)
+			order = sort(false);
+		if(order == null)
+			throw new IllegalStateException("Cyclic dependencies between filters: "+cycle());
+		return order;
+	}
+
+	/**
+	 * Groups the filters into levels such that each filter depends only on
+	 * filters of earlier levels. Filters of the same level can hence be run
+	 * concurrently. If required attributes form a cycle, each filter forms
+	 * a level of its own, in the original order.
+	 *
+	 * @return The levels, each in dependency order
+	 */
+	@SuppressWarnings("unchecked")
+	public Filter<T,E>[][] compileLevels() {
+		boolean includeDesired = true;
+		Filter<T,E>[] order = sort(true);
+		if(order == null) {
+			includeDesired = false;
+			order = sort(false);
+		}
+		int n = filters.size();
+		if(order == null) {
+			Filter<T,E>[][] levels = new Filter[n][];
+			for(int i=0; i<n; i++)
+				levels[i] = new Filter[] { filters.get(i) };
+			return levels;
+		}
+		boolean[][] edges = edges(includeDesired);
+		int[] level = new int[n];
+		int levelCount = 0;
+		for(Filter<T,E> filter: order) {
+			int j = filters.indexOf(filter);
+			for(int i=0; i<n; i++)
+				if(edges[i][j])
+					level[j] = Math.max(level[j], level[i]+1);
+			levelCount = Math.max(levelCount, level[j]+1);
+		}
+		List<List<Filter<T,E>>> groups = new ArrayList<List<Filter<T,E>>>();
+		for(int l=0; l<levelCount; l++)
+			groups.add(new ArrayList<Filter<T,E>>());
+		for(Filter<T,E> filter: order)
+			groups.get(level[filters.indexOf(filter)]).add(filter);
+		Filter<T,E>[][] levels = new Filter[levelCount][];
+		for(int l=0; l<levelCount; l++)
+			levels[l] = toArray(groups.get(l));
+		return levels;
+	}
+
+	private void checkProducers() {
+		if(sourceAttributes == null)
+			return;
+		Set<String> created = new HashSet<String>(Arrays.asList(sourceAttributes));
+		for(Filter<T,E> filter: filters)
+			created.addAll(Arrays.asList(nonNull(filter.getAttributesCreated())));
+		for(Filter<T,E> filter: filters) {
+			for(String attribute: nonNull(filter.getAttributesRequired())) {
+				if(!created.contains(attribute))
+					throw new IllegalStateException("No source or filter creates attribute "
+							+attribute+" required by "+filter.getClass().getName());
+			}
+		}
+	}
+
+	/**
+	 * Sorts the filters via Kahn's algorithm, choosing the earliest-added
+	 * filter among those whose dependencies have been satisfied.
+	 *
+	 * @return The filters in order, or null if the dependencies are cyclic
+	 */
+	private Filter<T,E>[] sort(boolean includeDesired) {
+		int n = filters.size();
+		boolean[][] edges = edges(includeDesired);
+		int[] inDegree = new int[n];
+		for(int i=0; i<n; i++)
+			for(int j=0; j<n; j++)
+				if(edges[i][j])
+					inDegree[j]++;
+		boolean[] done = new boolean[n];
+		Filter<T,E>[] order = toArray(filters);
+		for(int k=0; k<n; k++) {
+			int next = -1;
+			for(int i=0; i<n && next < 0; i++)
+				if(!done[i] && inDegree[i] == 0)
+					next = i;
+			if(next < 0)
+				return null;
+			done[next] = true;
+			order[k] = filters.get(next);
+			for(int j=0; j<n; j++)
+				if(edges[next][j])
+					inDegree[j]--;
+		}
+		return order;
+	}
+
+	/**
+	 * Returns a matrix in which edges[i][j] is true if filter i creates an
+	 * attribute consumed by filter j.
+	 */
+	private boolean[][] edges(boolean includeDesired) {
+		int n = filters.size();
+		Map<String,List<Integer>> producers = new HashMap<String,List<Integer>>();
+		for(int i=0; i<n; i++) {
+			for(String attribute: nonNull(filters.get(i).getAttributesCreated())) {
+				List<Integer> list = producers.get(attribute);
+				if(list == null) {
+					list = new ArrayList<Integer>();
+					producers.put(attribute, list);
+				}
+				list.add(i);
+			}
+		}
+		boolean[][] edges = new boolean[n][n];
+		for(int j=0; j<n; j++) {
+			Filter<T,E> filter = filters.get(j);
+			addEdges(edges, producers, j, filter.getAttributesRequired());
+			if(includeDesired)
+				addEdges(edges, producers, j, filter.getAttributesDesired());
+		}
+		return edges;
+	}
+
+	private static void addEdges(boolean[][] edges, Map<String,List<Integer>> producers,
+			int consumer, String[] attributes) {
+		for(String attribute: nonNull(attributes)) {
+			List<Integer> list = producers.get(attribute);
+			if(list == null)
+				continue;
+			for(int producer: list) {
+				if(producer != consumer)
+					edges[producer][consumer] = true;
+			}
+		}
+	}
+
+	/**
+	 * Returns the names of the filters left over when required
+	 * dependencies are cyclic.
+	 */
+	private List<String> cycle() {
+		int n = filters.size();
+		boolean[][] edges = edges(false);
+		boolean[] removed = new boolean[n];
+		boolean changed = true;
+		while(changed) {
+			changed = false;
+			for(int i=0; i<n; i++) {
+				if(removed[i])
+					continue;
+				boolean hasInput = false;
+				for(int j=0; j<n && !hasInput; j++)
+					hasInput = !removed[j] && edges[j][i];
+				if(!hasInput) {
+					removed[i] = true;
+					changed = true;
+				}
+			}
+		}
+		List<String> names = new ArrayList<String>();
+		for(int i=0; i<n; i++)
+			if(!removed[i])
+				names.add(filters.get(i).getClass().getName());
+		return names;
+	}
+
+	private static String[] nonNull(String[] attributes) {
+		return attributes == null ? new String[0] : attributes;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T,E extends Event> Filter<T,E>[] toArray(List<Filter<T,E>> filters) {
+		return filters.toArray(new Filter[filters.size()]);
+	}
+}
@@ -0,0 +1,112 @@
+package rit.eyeTracking;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Notifies a fixed sequence of filters of events, like a frozen
+ * {@link FilterChain}. Instances are created via
+ * {@link FilterChain#freeze()}.
+ *
+ * When a loop notifies more than two classes of filters, the JIT cannot
+ * inline the calls of the filters' notify methods. The dispatchers created
+ * by {@link #create(Filter[])} are therefore generated classes that notify
+ * each filter from a call site of its own, so small filters can be inlined.
+ * If classes cannot be generated, e.g. due to a security manager, or for
+ * very long chains, a loop is used instead.
+ *
+ * @param <E> The type of event passed through the filter chain
+ * 	({@link Event} by default)
+ */
+public abstract class FilterDispatcher<E extends Event> implements EyeTrackingListener<E> {
+
+	/**
+	 * The maximum number of filters of generated dispatchers, so the
+	 * generated method stays small enough to be compiled by the JIT.
+	 */
+	static final int MAX_GENERATED_FILTERS = 256;
+
+	protected final Filter<?,E>[] filters;
+	private final FilterInterest[] interests;
+
+	protected FilterDispatcher(Filter<?,E>[] filters) {
+		this.filters = filters.clone();
+		interests = new FilterInterest[filters.length];
+		for(int i=0; i<filters.length; i++)
+			interests[i] = FilterInterest.of(filters[i]);
+	}
+
+	/**
+	 * Creates a dispatcher for the given filters.
+	 *
+	 * @param filters The filters in the order in which they are notified
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E extends Event> FilterDispatcher<E> create(Filter<?,E>[] filters) {
+		if(filters.length <= MAX_GENERATED_FILTERS) {
+			try {
+				return (FilterDispatcher<E>)DispatcherGenerator.generate(filters)
+						.getConstructor(Filter[].class)
+						.newInstance(new Object[] { filters });
+			} catch(Exception e) {
+				// Fall back to a loop
+			} catch(LinkageError le) {
+				// Fall back to a loop
+			}
+		}
+		return new Loop<E>(filters);
+	}
+
+	/**
+	 * Returns whether the filter at the given index is interested in the
+	 * given event. Invoked by generated dispatchers only for filters that
+	 * are not interested in all events.
+	 *
+	 * @param flags The flags of the event
+	 */
+	protected final boolean accepts(int index, Event e, int flags) {
+		FilterInterest interest = interests[index];
+		return interest.acceptsID(e.getID().getOrdinal()) && interest.accepts(e, flags);
+	}
+
+	/**
+	 * Returns whether the filter at the given index is interested in all
+	 * events.
+	 */
+	final boolean acceptsAll(int index) {
+		return interests[index].isAll();
+	}
+
+	/**
+	 * Returns the filters in the order in which they are notified.
+	 */
+	public List<Filter<?,E>> getFilters() {
+		return Collections.unmodifiableList(Arrays.asList(filters));
+	}
+
+	/**
+	 * Notifies the filters of the event they are interested in, in order.
+	 */
+	@Override
+	public abstract void notify(E e, EyeTrackingListener<E> listener, Mode mode);
+
+	/**
+	 * A dispatcher that notifies the filters in a loop.
+	 */
+	static final class Loop<E extends Event> extends FilterDispatcher<E> {
+
+		Loop(Filter<?,E>[] filters) {
+			super(filters);
+		}
+
+		@Override
+		public void notify(E e, EyeTrackingListener<E> listener, Mode mode) {
+			int flags = e.getFlags();
+			for(int i=0; i<filters.length; i++) {
+				if(acceptsAll(i) || accepts(i, e, flags))
+					filters[i].notify(e, listener, mode);
+			}
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package rit.eyeTracking;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The events a filter is interested in, as declared via {@link FlagFilter}
+ * and {@link IDFilter}.
+ */
+final class FilterInterest {
+
+	private static final FilterInterest ALL = new FilterInterest(Event.Flags.ALL, null,
+			new AttributeKey<?>[0], new String[0]);
+
+	private final int mask;
+	private final boolean[] ordinals;
+	private final AttributeKey<?>[] keys;
+	private final String[] names;
+
+	private FilterInterest(int mask, boolean[] ordinals, AttributeKey<?>[] keys, String[] names) {
+		this.mask = mask;
+		this.ordinals = ordinals;
+		this.keys = keys;
+		this.names = names;
+	}
+
+	@SuppressWarnings("deprecation")
+	static FilterInterest of(Filter<?,?> filter) {
+		int mask = filter instanceof FlagFilter
+				? ((FlagFilter<?,?>)filter).getFlagsOfInterest()
+				: Event.Flags.ALL;
+		if(!(filter instanceof IDFilter))
+			return mask == Event.Flags.ALL ? ALL : new FilterInterest(mask, null, ALL.keys, ALL.names);
+		boolean[] ordinals = null;
+		Event.ID[] ids = ((IDFilter<?,?>)filter).getIDsOfInterest();
+		if(ids != null) {
+			ordinals = new boolean[Event.IDImpl.ordinalBound()];
+			for(Event.ID id: ids)
+				ordinals[id.getOrdinal()] = true;
+		}
+		List<AttributeKey<?>> keys = new ArrayList<AttributeKey<?>>();
+		List<String> names = new ArrayList<String>();
+		String[] required = filter.getAttributesRequired();
+		if(required != null) {
+			for(String name: required) {
+				AttributeKey<?> key = AttributeKey.forName(name);
+				if(key != null)
+					keys.add(key);
+				else
+					names.add(name);
+			}
+		}
+		return new FilterInterest(mask, ordinals,
+				keys.toArray(new AttributeKey<?>[keys.size()]),
+				names.toArray(new String[names.size()]));
+	}
+
+	/**
+	 * Returns whether the filter is interested in all events, so that
+	 * the interest need not be checked.
+	 */
+	boolean isAll() {
+		return mask == Event.Flags.ALL && ordinals == null && keys.length == 0 && names.length == 0;
+	}
+
+	/**
+	 * Returns whether the filter is interested in events with the given
+	 * ID ordinal, regardless of their flags and attributes.
+	 */
+	boolean acceptsID(int ordinal) {
+		return ordinals == null || (ordinal < ordinals.length && ordinals[ordinal]);
+	}
+
+	/**
+	 * Returns whether the filter is interested in the given event, not
+	 * taking its ID into account.
+	 *
+	 * @param flags The flags of the event
+	 */
+	boolean accepts(Event e, int flags) {
+		if(!Event.Flags.matches(flags, mask))
+			return false;
+		for(AttributeKey<?> key: keys)
+			if(!e.hasAttribute(key))
+				return false;
+		for(String name: names)
+			if(!e.hasAttribute(name))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Returns whether the filter is interested in the given event.
+	 */
+	boolean acceptsAll(Event e) {
+		return acceptsID(e.getID().getOrdinal()) && accepts(e, e.getFlags());
+	}
+}
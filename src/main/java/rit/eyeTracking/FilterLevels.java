@@ -0,0 +1,36 @@
+package rit.eyeTracking;
+
+import rit.eyeTracking.EyeTrackingListener.Mode;
+
+/**
+ * An immutable snapshot of the levels of filters computed by
+ * {@link FilterChainCompiler#compileLevels()} and the events the filters
+ * are interested in.
+ */
+final class FilterLevels<T,E extends Event> {
+
+	final Filter<T,E>[][] filters;
+	final FilterInterest[][] interests;
+
+	FilterLevels(Filter<T,E>[][] filters) {
+		this.filters = filters;
+		interests = new FilterInterest[filters.length][];
+		for(int l=0; l<filters.length; l++) {
+			interests[l] = new FilterInterest[filters[l].length];
+			for(int i=0; i<filters[l].length; i++)
+				interests[l][i] = FilterInterest.of(filters[l][i]);
+		}
+	}
+
+	/**
+	 * Notifies the filters of the given level one after another.
+	 */
+	void notify(int level, E e, EyeTrackingListener<E> listener, Mode mode) {
+		Filter<T,E>[] filters = this.filters[level];
+		FilterInterest[] interests = this.interests[level];
+		for(int i=0; i<filters.length; i++) {
+			if(interests[i].acceptsAll(e))
+				filters[i].notify(e, listener, mode);
+		}
+	}
+}
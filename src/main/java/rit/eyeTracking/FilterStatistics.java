@@ -0,0 +1,80 @@
+package rit.eyeTracking;
+
+/**
+ * An immutable snapshot of the calls of a filter recorded by an
+ * {@link InstrumentedFilterChain}, either for all events or for the events
+ * with a given ID.
+ */
+public final class FilterStatistics {
+
+	private final String filter;
+	private final String eventID;
+	private final LatencyHistogram.Snapshot latency;
+
+	FilterStatistics(String filter, String eventID, LatencyHistogram.Snapshot latency) {
+		this.filter = filter;
+		this.eventID = eventID;
+		this.latency = latency;
+	}
+
+	/**
+	 * Returns the class name of the filter.
+	 */
+	public String getFilter() {
+		return filter;
+	}
+
+	/**
+	 * Returns the loggable ID of the events these statistics are
+	 * restricted to, or null if they cover all events.
+	 *
+	 * @see Event.ID#getLoggableID()
+	 */
+	public String getEventID() {
+		return eventID;
+	}
+
+	/**
+	 * Returns the number of times the filter was notified.
+	 */
+	public long getCount() {
+		return latency.getCount();
+	}
+
+	/**
+	 * Returns the total time spent in the filter.
+	 */
+	public long getTotalNanos() {
+		return latency.getTotal();
+	}
+
+	public double getMeanNanos() {
+		return latency.getMean();
+	}
+
+	public long getMedianNanos() {
+		return latency.getValueAtPercentile(50.0);
+	}
+
+	public long getPercentile99Nanos() {
+		return latency.getValueAtPercentile(99.0);
+	}
+
+	public long getMaxNanos() {
+		return latency.getMax();
+	}
+
+	/**
+	 * @see LatencyHistogram.Snapshot#getValueAtPercentile(double)
+	 */
+	public long getPercentileNanos(double percentile) {
+		return latency.getValueAtPercentile(percentile);
+	}
+
+	@Override
+	public String toString() {
+		return filter+(eventID == null ? "" : "["+eventID+"]")
+				+": count="+getCount()+", mean="+getMeanNanos()+"ns, median="+getMedianNanos()
+				+"ns, 99%="+getPercentile99Nanos()+"ns, max="+getMaxNanos()+"ns";
+	}
+}
@@ -0,0 +1,302 @@
+package rit.eyeTracking;
+
+/**
+ * Detects fixations in raw samples using the dispersion threshold
+ * identification (I-DT) algorithm by Salvucci and Goldberg, for eye
+ * trackers that do not detect fixations themselves.
+ *
+ * The detector keeps the longest run of recent samples whose dispersion,
+ * i.e. (max x - min x) + (max y - min y), does not exceed the threshold.
+ * Once the run spans the minimum duration, a {@link Event#FIXATION_START}
+ * event is emitted. The fixation lasts while new samples keep the
+ * dispersion within the threshold. A {@link Event#FIXATION_END} event is
+ * emitted when a sample exceeds it, or when the detector is stopped. The
+ * extrema of the run are maintained in monotonic deques and its centroid
+ * in running sums, so each sample costs amortized O(1).
+ *
+ * Fixation events carry {@link Event#FIXATION_START_TIMESTAMP_MS},
+ * {@link Event#EYE_TYPE} and the centroid of the fixation as
+ * {@link Event#POR_X} and {@link Event#POR_Y}. End events also carry
+ * {@link Event#FIXATION_END_TIMESTAMP_MS} and
+ * {@link Event#FIXATION_DURATION_MS}. They are passed to the listener
+ * given to {@link #notify(Event, EyeTrackingListener, Mode)}, usually the
+ * filter chain.
+ *
+ * Durations are measured with the timestamps of the samples, not with the
+ * clock, so recorded samples can be replayed in {@link Mode#BATCH_MODE}.
+ * Samples without {@link Event#TRACKER_TIMESTAMP_MU},
+ * {@link Event#TRACKER_TIMESTAMP_MS} or {@link Event#CLIENT_TIMESTAMP_MS}
+ * are ignored.
+ *
+ * @param <T> The type of configuration object provided when starting
+ * 	/ stopping the filter.
+ */
+public class FixationDetector<T> implements IDFilter<T,Event> {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final EventFactory<Event> eventFactory;
+	private final int dispersionThreshold;
+	private final long minDurationMu;
+
+	/** Timestamps of the samples of the run in microseconds, by sequence number */
+	private long[] times = new long[INITIAL_CAPACITY];
+	private int[] xs = new int[INITIAL_CAPACITY];
+	private int[] ys = new int[INITIAL_CAPACITY];
+	private long first;
+	private long next;
+	private long sumX;
+	private long sumY;
+	private final Extremum minX = new Extremum(false);
+	private final Extremum maxX = new Extremum(true);
+	private final Extremum minY = new Extremum(false);
+	private final Extremum maxY = new Extremum(true);
+	private boolean inFixation;
+	private String eyeType;
+	private long clientTimestamp;
+
+	/**
+	 * @param eventFactory The factory for fixation events
+	 * @param dispersionThreshold The maximum dispersion of samples within
+	 * 	a fixation in pixels
+	 * @param minDurationMs The minimum duration of fixations in milliseconds
+	 */
+	public FixationDetector(EventFactory<Event> eventFactory, int dispersionThreshold, long minDurationMs) {
+		this.eventFactory = eventFactory;
+		this.dispersionThreshold = dispersionThreshold;
+		this.minDurationMu = minDurationMs * 1000L;
+	}
+
+	@Override
+	public void start(T obj, EyeTrackingListener<Event> listener, Mode mode) {
+		clear();
+		inFixation = false;
+	}
+
+	/**
+	 * Ends a current fixation and emits its {@link Event#FIXATION_END} event.
+	 */
+	@Override
+	public void stop(T obj, EyeTrackingListener<Event> listener, Mode mode) {
+		if(inFixation)
+			emit(Event.FIXATION_END, listener, mode);
+		clear();
+		inFixation = false;
+	}
+
+	@Override
+	@SuppressWarnings("deprecation")
+	public String[] getAttributesRequired() {
+		return new String[] { Event.POR_X, Event.POR_Y };
+	}
+
+	@Override
+	@SuppressWarnings("deprecation")
+	public String[] getAttributesDesired() {
+		return new String[] { Event.TRACKER_TIMESTAMP_MU, Event.TRACKER_TIMESTAMP_MS,
+				Event.CLIENT_TIMESTAMP_MS, Event.EYE_TYPE };
+	}
+
+	@Override
+	@SuppressWarnings("deprecation")
+	public String[] getAttributesCreated() {
+		return new String[] { Event.FIXATION_START_TIMESTAMP_MS, Event.FIXATION_END_TIMESTAMP_MS,
+				Event.FIXATION_DURATION_MS };
+	}
+
+	@Override
+	public Event.ID[] getIDsOfInterest() {
+		return new Event.ID[] { Event.RAW_EVENT };
+	}
+
+	@Override
+	public void notify(Event e, EyeTrackingListener<Event> listener, Mode mode) {
+		long time;
+		if(e.hasAttribute(Event.Keys.TRACKER_TIMESTAMP_MU))
+			time = e.getLong(Event.Keys.TRACKER_TIMESTAMP_MU);
+		else if(e.hasAttribute(Event.Keys.TRACKER_TIMESTAMP_MS))
+			time = e.getLong(Event.Keys.TRACKER_TIMESTAMP_MS) * 1000L;
+		else if(e.hasAttribute(Event.Keys.CLIENT_TIMESTAMP_MS))
+			time = e.getLong(Event.Keys.CLIENT_TIMESTAMP_MS) * 1000L;
+		else
+			return;
+		if(e.hasAttribute(Event.Keys.CLIENT_TIMESTAMP_MS))
+			clientTimestamp = e.getLong(Event.Keys.CLIENT_TIMESTAMP_MS);
+		else if(mode == null || !mode.isReplay())
+			clientTimestamp = System.currentTimeMillis();
+		int x = e.getInt(Event.Keys.POR_X);
+		int y = e.getInt(Event.Keys.POR_Y);
+
+		if(inFixation) {
+			if(dispersionWith(x, y) <= dispersionThreshold) {
+				add(time, x, y);
+				return;
+			}
+			emit(Event.FIXATION_END, listener, mode);
+			inFixation = false;
+			clear();
+			add(time, x, y);
+		} else {
+			add(time, x, y);
+			while(dispersion() > dispersionThreshold)
+				removeFirst();
+		}
+		if(times[index(next-1)] - times[index(first)] >= minDurationMu) {
+			inFixation = true;
+			eyeType = e.hasAttribute(Event.Keys.EYE_TYPE) ? e.getAttribute(Event.Keys.EYE_TYPE) : "b";
+			emit(Event.FIXATION_START, listener, mode);
+		}
+	}
+
+	private int dispersion() {
+		return (maxX.value() - minX.value()) + (maxY.value() - minY.value());
+	}
+
+	private int dispersionWith(int x, int y) {
+		return (Math.max(maxX.value(), x) - Math.min(minX.value(), x))
+				+ (Math.max(maxY.value(), y) - Math.min(minY.value(), y));
+	}
+
+	private int index(long sequence) {
+		return (int)sequence & (times.length-1);
+	}
+
+	private void add(long time, int x, int y) {
+		if(next - first == times.length)
+			grow();
+		int index = index(next);
+		times[index] = time;
+		xs[index] = x;
+		ys[index] = y;
+		minX.add(next, x);
+		maxX.add(next, x);
+		minY.add(next, y);
+		maxY.add(next, y);
+		sumX += x;
+		sumY += y;
+		next++;
+	}
+
+	private void grow() {
+		int capacity = times.length*2;
+		long[] grownTimes = new long[capacity];
+		int[] grownXs = new int[capacity];
+		int[] grownYs = new int[capacity];
+		for(long s=first; s<next; s++) {
+			int index = (int)s & (capacity-1);
+			grownTimes[index] = times[index(s)];
+			grownXs[index] = xs[index(s)];
+			grownYs[index] = ys[index(s)];
+		}
+		times = grownTimes;
+		xs = grownXs;
+		ys = grownYs;
+	}
+
+	private void removeFirst() {
+		sumX -= xs[index(first)];
+		sumY -= ys[index(first)];
+		first++;
+		minX.evict(first);
+		maxX.evict(first);
+		minY.evict(first);
+		maxY.evict(first);
+	}
+
+	private void clear() {
+		first = next;
+		sumX = sumY = 0;
+		minX.clear();
+		maxX.clear();
+		minY.clear();
+		maxY.clear();
+	}
+
+	/**
+	 * Creates a fixation event for the current run of samples and passes it
+	 * to the listener.
+	 */
+	private void emit(Event.ID id, EyeTrackingListener<Event> listener, Mode mode) {
+		long count = next - first;
+		long start = times[index(first)] / 1000L;
+		Event f = eventFactory.createEvent(id);
+		f.addAttribute(Event.Keys.FIXATION_START_TIMESTAMP_MS, start);
+		if(id == Event.FIXATION_END) {
+			long end = times[index(next-1)] / 1000L;
+			f.addAttribute(Event.Keys.FIXATION_END_TIMESTAMP_MS, end);
+			f.addAttribute(Event.Keys.FIXATION_DURATION_MS, end - start);
+		}
+		f.addAttribute(Event.Keys.CLIENT_TIMESTAMP_MS, clientTimestamp);
+		f.addAttribute(Event.Keys.EYE_TYPE, eyeType);
+		f.addAttribute(Event.Keys.POR_X, (int)Math.round((double)sumX / count));
+		f.addAttribute(Event.Keys.POR_Y, (int)Math.round((double)sumY / count));
+		try {
+			if(listener != null)
+				listener.notify(f, listener, mode);
+		} finally {
+			PooledEventFactory.release(f);
+		}
+	}
+
+	/**
+	 * A monotonic deque of the sequence numbers and coordinates of samples
+	 * whose coordinate may become the minimum (or maximum) of the run once
+	 * earlier samples have been removed from it.
+	 */
+	private static final class Extremum {
+
+		private final boolean max;
+		private long[] sequences = new long[INITIAL_CAPACITY];
+		private int[] values = new int[INITIAL_CAPACITY];
+		private int head;
+		private int size;
+
+		private Extremum(boolean max) {
+			this.max = max;
+		}
+
+		private int value() {
+			return values[head];
+		}
+
+		private void add(long sequence, int value) {
+			int mask = values.length-1;
+			while(size > 0) {
+				int last = values[(head+size-1) & mask];
+				if(max ? last > value : last < value)
+					break;
+				size--;
+			}
+			if(size == values.length) {
+				long[] grownSequences = new long[size*2];
+				int[] grownValues = new int[size*2];
+				for(int i=0; i<size; i++) {
+					grownSequences[i] = sequences[(head+i) & mask];
+					grownValues[i] = values[(head+i) & mask];
+				}
+				sequences = grownSequences;
+				values = grownValues;
+				head = 0;
+				mask = values.length-1;
+			}
+			sequences[(head+size) & mask] = sequence;
+			values[(head+size) & mask] = value;
+			size++;
+		}
+
+		/**
+		 * Removes samples before the given sequence number.
+		 */
+		private void evict(long first) {
+			while(size > 0 && sequences[head] < first) {
+				head = (head+1) & (values.length-1);
+				size--;
+			}
+		}
+
+		private void clear() {
+			head = 0;
+			size = 0;
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package rit.eyeTracking;
+
+/**
+ * A {@link Filter} that declares the {@link Event.Flags} of the events it
+ * processes. A {@link FilterChain} only notifies the filter of events that
+ * have at least one of these flags, so the filter need not test each event
+ * itself.
+ * 
+ * @param <T> The type of configuration object provided when starting
+ * 	/ stopping the filter.
+ * @param <E> The type of event passed through the filter chain
+ * 	({@link Event} by default)
+ */
+public interface FlagFilter<T,E extends Event> extends Filter<T,E> {
+	
+	/**
+	 * Returns the flags of events that this filter is interested in. The
+	 * value is read when the filter is added to a chain and must not
+	 * change afterwards.
+	 * 
+	 * @return A combination of {@link Event.Flags}, or
+	 * 	{@link Event.Flags#ALL} to receive all events
+	 */
+	public int getFlagsOfInterest();
+}
@@ -0,0 +1,26 @@
+package rit.eyeTracking;
+
+/**
+ * A {@link Filter} that declares the IDs of the events it processes. A
+ * {@link FilterChain} only notifies the filter of events with one of these
+ * IDs that have all {@link #getAttributesRequired() required attributes},
+ * so the filter need not test each event itself. E.g. smoothing filters
+ * need not be notified of calibration events and calibration filters need
+ * not be notified of raw samples.
+ * 
+ * @param <T> The type of configuration object provided when starting
+ * 	/ stopping the filter.
+ * @param <E> The type of event passed through the filter chain
+ * 	({@link Event} by default)
+ */
+public interface IDFilter<T,E extends Event> extends Filter<T,E> {
+	
+	/**
+	 * Returns the IDs of events that this filter is interested in. The
+	 * value is read when the filter is added to a chain and must not
+	 * change afterwards.
+	 * 
+	 * @return The IDs, or null to receive events with any ID
+	 */
+	public Event.ID[] getIDsOfInterest();
+}
@@ -0,0 +1,175 @@
+package rit.eyeTracking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A filter chain that measures how often and how long each filter is
+ * notified of events, in total and per event ID. Chains that are not
+ * instrumented do not pay for measurements, so instrumentation is enabled
+ * by using this class instead of {@link FilterChain}, and can be disabled
+ * at runtime via {@link #setEnabled(boolean)}.
+ *
+ * Measurements are recorded in {@link LatencyHistogram}s without
+ * allocation, except when a filter is first notified of an event with a
+ * given ID. Filters keep their statistics when the chain is modified.
+ *
+ * The chain can be registered as MXBean, e.g. via
+ * <code>ManagementFactory.getPlatformMBeanServer().registerMBean(chain,
+ * new ObjectName("rit.eyeTracking:type=FilterChain"))</code>.
+ *
+ * @param <T> The type of configuration object provided when starting
+ * 	/ stopping the filter.
+ * @param <E> The type of event passed through the filter chain
+ * 	({@link Event} by default)
+ */
+public class InstrumentedFilterChain<T,E extends Event> extends FilterChain<T,E>
+		implements InstrumentedFilterChainMXBean {
+
+	private Map<Filter<T,E>,Probe<T,E>> probesByFilter;
+	private volatile Probe<T,E>[] probes;
+	private volatile boolean enabled = true;
+
+	public InstrumentedFilterChain(Filter<T,E>[] filters) {
+		super(filters);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	protected synchronized void updateDispatch() {
+		super.updateDispatch();
+		if(probesByFilter == null) // Called by the super-constructor
+			probesByFilter = new IdentityHashMap<Filter<T,E>,Probe<T,E>>();
+		List<Filter<T,E>> order = getOrder();
+		Probe<T,E>[] probes = new Probe[order.size()];
+		for(int i=0; i<probes.length; i++) {
+			Filter<T,E> filter = order.get(i);
+			Probe<T,E> probe = probesByFilter.get(filter);
+			if(probe == null) {
+				probe = new Probe<T,E>(filter);
+				probesByFilter.put(filter, probe);
+			}
+			probes[i] = probe;
+		}
+		probesByFilter.keySet().retainAll(order);
+		this.probes = probes;
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	@Override
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Passes the event to the filters like
+	 * {@link FilterChain#notify(Event, EyeTrackingListener, Mode)} and
+	 * measures the time spent in each filter, if enabled.
+	 */
+	@Override
+	public void notify(E e, EyeTrackingListener<E> listener, Mode mode) {
+		if(!enabled) {
+			super.notify(e, listener, mode);
+			return;
+		}
+		Probe<T,E>[] probes = this.probes;
+		int flags = e.getFlags();
+		int ordinal = e.getID().getOrdinal();
+		long start = System.nanoTime();
+		for(int i=0; i<probes.length; i++) {
+			Probe<T,E> probe = probes[i];
+			if(probe.interest.acceptsID(ordinal) && probe.interest.accepts(e, flags)) {
+				probe.filter.notify(e, listener, mode);
+				long end = System.nanoTime();
+				probe.record(ordinal, end-start);
+				start = end;
+			}
+		}
+	}
+
+	@Override
+	public List<FilterStatistics> getStatistics() {
+		Probe<T,E>[] probes = this.probes;
+		List<FilterStatistics> statistics = new ArrayList<FilterStatistics>(probes.length);
+		for(Probe<T,E> probe: probes)
+			statistics.add(new FilterStatistics(probe.name, null, probe.total.snapshot()));
+		return statistics;
+	}
+
+	@Override
+	public List<FilterStatistics> getStatisticsByID() {
+		List<FilterStatistics> statistics = new ArrayList<FilterStatistics>();
+		for(Probe<T,E> probe: probes) {
+			LatencyHistogram[] byID = probe.byID;
+			for(int ordinal=0; ordinal<byID.length; ordinal++) {
+				if(byID[ordinal] == null)
+					continue;
+				Event.ID id = Event.IDImpl.forOrdinal(ordinal);
+				statistics.add(new FilterStatistics(probe.name,
+						id == null ? String.valueOf(ordinal) : id.getLoggableID(),
+						byID[ordinal].snapshot()));
+			}
+		}
+		return statistics;
+	}
+
+	@Override
+	public void reset() {
+		for(Probe<T,E> probe: probes)
+			probe.reset();
+	}
+
+	/**
+	 * The measurements of a filter.
+	 */
+	private static final class Probe<T,E extends Event> {
+
+		private final Filter<T,E> filter;
+		private final String name;
+		private final FilterInterest interest;
+		private final LatencyHistogram total = new LatencyHistogram();
+		private volatile LatencyHistogram[] byID = new LatencyHistogram[Event.IDImpl.ordinalBound()];
+
+		private Probe(Filter<T,E> filter) {
+			this.filter = filter;
+			this.name = filter.getClass().getName();
+			this.interest = FilterInterest.of(filter);
+		}
+
+		private void record(int ordinal, long nanos) {
+			total.record(nanos);
+			LatencyHistogram[] byID = this.byID;
+			LatencyHistogram histogram = ordinal < byID.length ? byID[ordinal] : null;
+			if(histogram == null)
+				histogram = createHistogram(ordinal);
+			histogram.record(nanos);
+		}
+
+		private synchronized LatencyHistogram createHistogram(int ordinal) {
+			LatencyHistogram[] byID = this.byID;
+			if(ordinal >= byID.length)
+				byID = Arrays.copyOf(byID, Math.max(ordinal+1, Event.IDImpl.ordinalBound()));
+			else
+				byID = byID.clone();
+			if(byID[ordinal] == null)
+				byID[ordinal] = new LatencyHistogram();
+			this.byID = byID;
+			return byID[ordinal];
+		}
+
+		private void reset() {
+			total.reset();
+			for(LatencyHistogram histogram: byID) {
+				if(histogram != null)
+					histogram.reset();
+			}
+		}
+	}
+}
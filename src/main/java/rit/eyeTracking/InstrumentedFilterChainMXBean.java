@@ -0,0 +1,32 @@
+package rit.eyeTracking;
+
+import java.util.List;
+
+/**
+ * The management interface of an {@link InstrumentedFilterChain}.
+ */
+public interface InstrumentedFilterChainMXBean {
+
+	/**
+	 * Returns whether calls of filters are measured.
+	 */
+	public boolean isEnabled();
+
+	public void setEnabled(boolean enabled);
+
+	/**
+	 * Returns statistics for each filter, covering all events.
+	 */
+	public List<FilterStatistics> getStatistics();
+
+	/**
+	 * Returns statistics for each filter and each ID of events that the
+	 * filter has been notified of.
+	 */
+	public List<FilterStatistics> getStatisticsByID();
+
+	/**
+	 * Discards all recorded statistics.
+	 */
+	public void reset();
+}
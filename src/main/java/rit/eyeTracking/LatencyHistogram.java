@@ -0,0 +1,134 @@
+package rit.eyeTracking;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations in nanoseconds with log-linear buckets: values
+ * below 16 have buckets of their own, larger values are counted in 16
+ * buckets per power of two, i.e. with a relative error below 1/16.
+ *
+ * Recording does not allocate and can be done concurrently.
+ * {@link #snapshot()} is not atomic with respect to concurrent recording.
+ */
+public final class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records a duration. Negative durations are recorded as 0.
+	 *
+	 * @param nanos The duration in nanoseconds
+	 */
+	public void record(long nanos) {
+		if(nanos < 0)
+			nanos = 0;
+		counts.incrementAndGet(bucket(nanos));
+		total.addAndGet(nanos);
+		long current;
+		while(nanos > (current = max.get()) && !max.compareAndSet(current, nanos))
+			;
+	}
+
+	/**
+	 * Returns a copy of the recorded values.
+	 */
+	public Snapshot snapshot() {
+		long[] copy = new long[BUCKETS];
+		for(int i=0; i<BUCKETS; i++)
+			copy[i] = counts.get(i);
+		return new Snapshot(copy, total.get(), max.get());
+	}
+
+	/**
+	 * Removes all recorded values.
+	 */
+	public void reset() {
+		for(int i=0; i<BUCKETS; i++)
+			counts.set(i, 0);
+		total.set(0);
+		max.set(0);
+	}
+
+	static int bucket(long value) {
+		if(value < SUB_BUCKETS)
+			return (int)value;
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return (shift+1) * SUB_BUCKETS + (int)((value >>> shift) & (SUB_BUCKETS-1));
+	}
+
+	/**
+	 * Returns the largest value counted in the given bucket.
+	 */
+	static long highestValue(int bucket) {
+		int group = bucket / SUB_BUCKETS;
+		long sub = bucket % SUB_BUCKETS;
+		if(group == 0)
+			return sub;
+		long limit = (SUB_BUCKETS + sub + 1) << (group-1);
+		return limit <= 0 ? Long.MAX_VALUE : limit-1;
+	}
+
+	/**
+	 * An immutable copy of a histogram.
+	 */
+	public static final class Snapshot {
+
+		private final long[] counts;
+		private final long count;
+		private final long total;
+		private final long max;
+
+		private Snapshot(long[] counts, long total, long max) {
+			this.counts = counts;
+			long count = 0;
+			for(long c: counts)
+				count += c;
+			this.count = count;
+			this.total = total;
+			this.max = max;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getTotal() {
+			return total;
+		}
+
+		public long getMax() {
+			return max;
+		}
+
+		public double getMean() {
+			return count == 0 ? 0.0 : (double)total/count;
+		}
+
+		/**
+		 * Returns an upper bound of the given percentile of the recorded
+		 * values that is at most 1/16 too large.
+		 *
+		 * @param percentile A percentile between 0 and 100
+		 * @return The percentile, or 0 if no values have been recorded
+		 */
+		public long getValueAtPercentile(double percentile) {
+			if(count == 0)
+				return 0;
+			long rank = Math.max(1, (long)Math.ceil(percentile/100.0 * count));
+			long seen = 0;
+			for(int i=0; i<counts.length; i++) {
+				seen += counts[i];
+				if(seen >= rank)
+					return Math.min(highestValue(i), max);
+			}
+			return max;
+		}
+	}
+}
@@ -0,0 +1,372 @@
+package rit.eyeTracking;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An event that adds attributes in a layer on top of a base event
+ * instead of modifying it. Attributes of the layer hide attributes of the
+ * base event with the same name. The base event must not be modified
+ * while layers on top of it are in use.
+ *
+ * In {@link EyeTrackingListener.Mode#INTERACTIVE_REPLAY_MODE}, recorded
+ * events can be kept as base events and each replay pass can obtain a new
+ * layer via {@link #derive()}, so filters can add attributes again without
+ * the base attributes being copied. Storage for the attributes of a layer
+ * is only allocated when the first attribute is added to it.
+ */
+public class LayeredEvent extends AbstractEvent {
+
+	private static final long serialVersionUID = 8214740954373563419L;
+
+	private final Event base;
+	private final boolean isNew;
+	private Layer layer;
+	private transient Map<String,Object> attributesView;
+
+	/**
+	 * Creates an empty layer on top of the given event. Storage for the
+	 * attributes of the layer is allocated when the first attribute is
+	 * added.
+	 *
+	 * @param base The base event
+	 * @param isNew Whether this event is passed to listeners for the
+	 * 	first time
+	 * @see Event#isNew()
+	 */
+	public LayeredEvent(Event base, boolean isNew) {
+		super(base.getID(), Collections.<String,Object>emptyMap());
+		this.base = base;
+		this.isNew = isNew;
+		addFlags(base.getFlags());
+	}
+
+	/**
+	 * Returns the event this layer was created on.
+	 */
+	public Event getBase() {
+		return base;
+	}
+
+	/**
+	 * Returns a new, empty layer on top of the base event of this layer,
+	 * e.g. for the next replay pass. Attributes added to this layer are
+	 * not visible in the new layer.
+	 *
+	 * @return A layer that is not new
+	 */
+	public LayeredEvent derive() {
+		return new LayeredEvent(base, false);
+	}
+
+	@Override
+	public boolean isNew() {
+		return isNew;
+	}
+
+	private Layer layer() {
+		Layer layer = this.layer;
+		if(layer == null) {
+			layer = new Layer(getID());
+			this.layer = layer;
+		}
+		return layer;
+	}
+
+	@Override
+	public void addAttribute(String name, Object value) {
+		layer().addAttribute(name, value);
+		invalidateHashCode();
+	}
+
+	@Override
+	public <T> void addAttribute(AttributeKey<T> key, T value) {
+		layer().addAttribute(key, value);
+		invalidateHashCode();
+	}
+
+	@Override
+	public void addAttribute(String name, int value) {
+		layer().addAttribute(name, value);
+		invalidateHashCode();
+	}
+
+	@Override
+	public void addAttribute(AttributeKey<Integer> key, int value) {
+		layer().addAttribute(key, value);
+		invalidateHashCode();
+	}
+
+	@Override
+	public void addAttribute(String name, long value) {
+		layer().addAttribute(name, value);
+		invalidateHashCode();
+	}
+
+	@Override
+	public void addAttribute(AttributeKey<Long> key, long value) {
+		layer().addAttribute(key, value);
+		invalidateHashCode();
+	}
+
+	@Override
+	public void addAttribute(String name, float value) {
+		layer().addAttribute(name, value);
+		invalidateHashCode();
+	}
+
+	@Override
+	public void addAttribute(AttributeKey<Float> key, float value) {
+		layer().addAttribute(key, value);
+		invalidateHashCode();
+	}
+
+	private boolean layerHas(String name) {
+		return layer != null && layer.hasAttribute(name);
+	}
+
+	private boolean layerHas(AttributeKey<?> key) {
+		return layer != null && layer.hasAttribute(key);
+	}
+
+	@Override
+	public <T> T getAttribute(String name) {
+		if(layerHas(name))
+			return layer.getAttribute(name);
+		return base.getAttribute(name);
+	}
+
+	@Override
+	public <T> T getAttribute(AttributeKey<T> key) {
+		if(layerHas(key))
+			return layer.getAttribute(key);
+		return base.getAttribute(key);
+	}
+
+	@Override
+	public boolean hasAttribute(String name) {
+		return layerHas(name) || base.hasAttribute(name);
+	}
+
+	@Override
+	public boolean hasAttribute(AttributeKey<?> key) {
+		return layerHas(key) || base.hasAttribute(key);
+	}
+
+	@Override
+	public int getInt(String name) {
+		return layerHas(name) ? layer.getInt(name) : base.getInt(name);
+	}
+
+	@Override
+	public int getInt(AttributeKey<Integer> key) {
+		return layerHas(key) ? layer.getInt(key) : base.getInt(key);
+	}
+
+	@Override
+	public long getLong(String name) {
+		return layerHas(name) ? layer.getLong(name) : base.getLong(name);
+	}
+
+	@Override
+	public long getLong(AttributeKey<Long> key) {
+		return layerHas(key) ? layer.getLong(key) : base.getLong(key);
+	}
+
+	@Override
+	public float getFloat(String name) {
+		return layerHas(name) ? layer.getFloat(name) : base.getFloat(name);
+	}
+
+	@Override
+	public float getFloat(AttributeKey<Float> key) {
+		return layerHas(key) ? layer.getFloat(key) : base.getFloat(key);
+	}
+
+	/**
+	 * Returns a non-modifiable view of the attributes of this layer and
+	 * the base event.
+	 */
+	@Override
+	public Map<String, Object> getAttributes() {
+		Map<String,Object> view = attributesView;
+		if(view == null) {
+			view = new LayeredView();
+			attributesView = view;
+		}
+		return view;
+	}
+
+	/**
+	 * Removes the attributes of this layer. The base event is not
+	 * affected.
+	 */
+	@Override
+	public void clear() {
+		if(layer != null)
+			layer.clear();
+		invalidateHashCode();
+	}
+
+	/**
+	 * Returns a serializable copy of the base event with the serializable
+	 * attributes of this layer added.
+	 */
+	@Override
+	public Event getSerializable(EventFactory factory) {
+		Event copy = base.getSerializable(factory);
+		copyFlags(copy);
+		for(Map.Entry<String,Object> entry: getLayerAttributes().entrySet()) {
+			if(isSerializable(entry.getValue()))
+				copy.addAttribute(entry.getKey(), entry.getValue());
+		}
+		return copy;
+	}
+
+	@Override
+	public String toString() {
+		return getID().toString()+" "+getAttributes().toString();
+	}
+
+	@Override
+	protected int computeHashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + getAttributes().hashCode();
+		result = prime * result + ((getID() == null) ? 0 : getID().hashCode());
+		int extraFlags = getExtraFlags();
+		if(extraFlags != 0)
+			result = prime * result + extraFlags;
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		LayeredEvent other = (LayeredEvent) obj;
+		if (getID() != other.getID() && (getID() == null || !getID().equals(other.getID())))
+			return false;
+		if (getFlags() != other.getFlags())
+			return false;
+		return getAttributes().equals(other.getAttributes());
+	}
+
+	/**
+	 * Returns a non-modifiable view of the attributes of this layer,
+	 * without the attributes of the base event.
+	 */
+	public Map<String,Object> getLayerAttributes() {
+		return layer != null ? layer.getAttributes() : Collections.<String,Object>emptyMap();
+	}
+
+	/**
+	 * The storage of the attributes of a layer.
+	 */
+	private static final class Layer extends AbstractPrimitiveEvent {
+
+		private static final long serialVersionUID = 6001869207437585294L;
+
+		private Layer(ID id) {
+			super(id, new HashMap<String,Object>());
+		}
+
+		@Override
+		public boolean isNew() {
+			return false;
+		}
+	}
+
+	/**
+	 * A read-only view of the attributes of the layer followed by the
+	 * attributes of the base event that are not hidden by the layer.
+	 */
+	private final class LayeredView extends AbstractMap<String,Object> {
+
+		private final Set<Map.Entry<String,Object>> entrySet = new AbstractSet<Map.Entry<String,Object>>() {
+
+			@Override
+			public Iterator<Map.Entry<String,Object>> iterator() {
+				final Iterator<Map.Entry<String,Object>> layer = getLayerAttributes().entrySet().iterator();
+				final Iterator<Map.Entry<String,Object>> baseEntries = base.getAttributes().entrySet().iterator();
+				return new Iterator<Map.Entry<String,Object>>() {
+
+					private Map.Entry<String,Object> next;
+
+					@Override
+					public boolean hasNext() {
+						if(next != null)
+							return true;
+						if(layer.hasNext()) {
+							next = layer.next();
+							return true;
+						}
+						while(baseEntries.hasNext()) {
+							Map.Entry<String,Object> entry = baseEntries.next();
+							if(!layerHas(entry.getKey())) {
+								next = entry;
+								return true;
+							}
+						}
+						return false;
+					}
+
+					@Override
+					public Map.Entry<String,Object> next() {
+						if(!hasNext())
+							throw new NoSuchElementException();
+						Map.Entry<String,Object> entry = next;
+						next = null;
+						return entry;
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return LayeredView.this.size();
+			}
+		};
+
+		@Override
+		public Set<Map.Entry<String,Object>> entrySet() {
+			return entrySet;
+		}
+
+		@Override
+		public int size() {
+			Map<String,Object> layer = getLayerAttributes();
+			int size = layer.size();
+			for(String name: base.getAttributes().keySet()) {
+				if(!layer.containsKey(name))
+					size++;
+			}
+			return size;
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return key instanceof String && hasAttribute((String)key);
+		}
+
+		@Override
+		public Object get(Object key) {
+			return key instanceof String ? getAttribute((String)key) : null;
+		}
+	}
+}
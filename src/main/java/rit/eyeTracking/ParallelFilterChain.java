@@ -0,0 +1,162 @@
+package rit.eyeTracking;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A filter chain that runs independent filters concurrently. The filters
+ * are grouped into levels via {@link FilterChainCompiler#compileLevels()},
+ * so that filters of a level only depend on attributes created by filters
+ * of earlier levels. For each event, the filters of a level run
+ * concurrently on a {@link ForkJoinPool} and all of them finish before the
+ * filters of the next level are notified.
+ *
+ * Events are not thread-safe, so filters of a level with more than one
+ * filter are notified of a {@link LayeredEvent} on top of the event
+ * instead of the event itself. The attributes and flags added to the
+ * layers are copied to the event in the order of the filters after all
+ * filters of the level have finished. Filters running in parallel hence
+ * cannot see each other's attributes, which they do not declare to
+ * depend on anyway. Filters that keep the layer after they have been
+ * notified must {@link PooledEventFactory#retain(Event) retain} it, which
+ * retains the event beneath it. If filters of a level throw, the other
+ * filters of the level still finish and their attributes are copied
+ * before the first exception is rethrown.
+ *
+ * Filters of the same level may notify the listener concurrently, so the
+ * listener must be thread-safe. Batches passed to
+ * {@link #notify(EventBatch, EyeTrackingListener, Mode)} are processed
+ * sequentially.
+ *
+ * @param <T> The type of configuration object provided when starting
+ * 	/ stopping the filter.
+ */
+public class ParallelFilterChain<T> extends FilterChain<T,Event> {
+
+	private final ForkJoinPool pool;
+	private volatile FilterLevels<T,Event> levels;
+
+	/**
+	 * Creates a chain that uses the common pool.
+	 *
+	 * @see ForkJoinPool#commonPool()
+	 */
+	public ParallelFilterChain(Filter<T,Event>[] filters) {
+		this(filters, ForkJoinPool.commonPool());
+	}
+
+	public ParallelFilterChain(Filter<T,Event>[] filters, ForkJoinPool pool) {
+		super(filters, Event.class);
+		this.pool = pool;
+	}
+
+	@Override
+	protected synchronized void updateDispatch() {
+		super.updateDispatch();
+		levels = new FilterLevels<T,Event>(createCompiler().compileLevels());
+	}
+
+	/**
+	 * Returns the filters of the given level.
+	 *
+	 * @see #getLevelCount()
+	 */
+	public Filter<T,Event>[] getLevel(int level) {
+		return levels.filters[level].clone();
+	}
+
+	/**
+	 * Returns the number of levels of filters that are run one after
+	 * another.
+	 */
+	public int getLevelCount() {
+		return levels.filters.length;
+	}
+
+	/**
+	 * Passes the event to the filters level by level, running the
+	 * filters of a level concurrently.
+	 */
+	@Override
+	public void notify(Event e, EyeTrackingListener<Event> listener, Mode mode) {
+		FilterLevels<T,Event> levels = this.levels;
+		for(int l=0; l<levels.filters.length; l++) {
+			Filter<T,Event>[] filters = levels.filters[l];
+			FilterInterest[] interests = levels.interests[l];
+			int count = 0;
+			int first = -1;
+			for(int i=0; i<filters.length; i++) {
+				if(interests[i].acceptsAll(e)) {
+					if(count++ == 0)
+						first = i;
+				}
+			}
+			if(count == 1)
+				filters[first].notify(e, listener, mode);
+			else if(count > 1)
+				notifyConcurrently(filters, interests, count, e, listener, mode);
+		}
+	}
+
+	private void notifyConcurrently(Filter<T,Event>[] filters, FilterInterest[] interests, int count,
+			Event e, EyeTrackingListener<Event> listener, Mode mode) {
+		Notification[] tasks = new Notification[count];
+		int t = 0;
+		for(int i=0; i<filters.length; i++) {
+			if(interests[i].acceptsAll(e))
+				tasks[t++] = new Notification(filters[i], new LayeredEvent(e, e.isNew()), listener, mode);
+		}
+		int started = 1;
+		try {
+			for(; started<count; started++)
+				pool.execute(tasks[started]);
+			tasks[0].quietlyInvoke();
+		} finally {
+			// The event must not be used by filters after this method returned
+			for(t=1; t<started; t++)
+				tasks[t].quietlyJoin();
+		}
+		Throwable failure = null;
+		for(Notification task: tasks) {
+			if(task.isCompletedNormally()) {
+				for(Map.Entry<String,Object> entry: task.layer.getLayerAttributes().entrySet())
+					e.addAttribute(entry.getKey(), entry.getValue());
+				e.addFlags(task.layer.getFlags());
+			} else if(failure == null) {
+				failure = task.getException();
+			}
+		}
+		if(failure instanceof RuntimeException)
+			throw (RuntimeException)failure;
+		if(failure instanceof Error)
+			throw (Error)failure;
+		if(failure != null)
+			throw new RuntimeException(failure);
+	}
+
+	/**
+	 * Notifies a single filter of a layer.
+	 */
+	@SuppressWarnings("serial")
+	private static final class Notification extends RecursiveAction {
+
+		private final Filter<?,Event> filter;
+		private final LayeredEvent layer;
+		private final EyeTrackingListener<Event> listener;
+		private final Mode mode;
+
+		private Notification(Filter<?,Event> filter, LayeredEvent layer,
+				EyeTrackingListener<Event> listener, Mode mode) {
+			this.filter = filter;
+			this.layer = layer;
+			this.listener = listener;
+			this.mode = mode;
+		}
+
+		@Override
+		protected void compute() {
+			filter.notify(layer, listener, mode);
+		}
+	}
+}
@@ -0,0 +1,253 @@
+package rit.eyeTracking;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * A reference-counted event that is recycled by the
+ * {@link PooledEventFactory} that created it. The event is created with a
+ * reference count of 1 that is owned by the code that created it. Code that
+ * keeps a reference to the event after it has been passed on, e.g. to deliver
+ * it asynchronously, must invoke {@link #retain()} before and
+ * {@link #release()} after it is done with the event. The event and its
+ * attribute storage are returned to the pool when the last reference has
+ * been released.
+ *
+ * If the factory runs in debug mode, released events are never recycled and
+ * any access to a released event raises an {@link IllegalStateException}.
+ *
+ * @see PooledEventFactory#retain(Event)
+ * @see PooledEventFactory#release(Event)
+ */
+public class PooledEvent extends AbstractPrimitiveEvent {
+
+	private static final long serialVersionUID = -3305802227359227002L;
+
+	private static final AtomicIntegerFieldUpdater<PooledEvent> REFERENCES
+		= AtomicIntegerFieldUpdater.newUpdater(PooledEvent.class, "references");
+
+	private final transient PooledEventFactory factory;
+	private final transient boolean debug;
+	private volatile int references;
+
+	/**
+	 * Creates a new event for the given factory. To be invoked by
+	 * {@link PooledEventFactory#newEvent()} only.
+	 */
+	protected PooledEvent(PooledEventFactory factory) {
+		super(null, new HashMap<String,Object>());
+		this.factory = factory;
+		this.debug = factory != null && factory.isDebug();
+	}
+
+	/**
+	 * Prepares the event to be handed out by the pool.
+	 */
+	void reset(ID id) {
+		setID(id);
+		setFlags(Flags.of(id));
+		REFERENCES.set(this, 1);
+	}
+
+	/**
+	 * Returns true, because pooled events are created for events that
+	 * are sent to listeners for the first time.
+	 */
+	@Override
+	public boolean isNew() {
+		return true;
+	}
+
+	/**
+	 * Acquires an additional reference to the event.
+	 *
+	 * @throws IllegalStateException If the event has already been released.
+	 */
+	public void retain() {
+		if(REFERENCES.getAndIncrement(this) <= 0) {
+			REFERENCES.getAndDecrement(this);
+			throw new IllegalStateException("Event retained after release: "+super.getID());
+		}
+	}
+
+	/**
+	 * Releases a reference to the event. The event is cleared and returned
+	 * to the pool when the last reference has been released.
+	 *
+	 * @throws IllegalStateException If the event has already been released.
+	 */
+	public void release() {
+		int references = REFERENCES.decrementAndGet(this);
+		if(references == 0) {
+			super.clear();
+			if(factory != null)
+				factory.recycle(this);
+		} else if(references < 0) {
+			REFERENCES.getAndIncrement(this);
+			throw new IllegalStateException("Event released too often: "+super.getID());
+		}
+	}
+
+	/**
+	 * Returns the number of references currently held to this event.
+	 */
+	public int getReferenceCount() {
+		return references;
+	}
+
+	private void checkAccess() {
+		if(debug && references <= 0)
+			throw new IllegalStateException("Event accessed after release: "+super.getID());
+	}
+
+	@Override
+	public ID getID() {
+		checkAccess();
+		return super.getID();
+	}
+
+	@Override
+	public int getFlags() {
+		checkAccess();
+		return super.getFlags();
+	}
+
+	@Override
+	public boolean hasFlags(int mask) {
+		checkAccess();
+		return super.hasFlags(mask);
+	}
+
+	@Override
+	public void addFlags(int mask) {
+		checkAccess();
+		super.addFlags(mask);
+	}
+
+	@Override
+	public void addAttribute(String name, Object value) {
+		checkAccess();
+		super.addAttribute(name, value);
+	}
+
+	@Override
+	public <T> void addAttribute(AttributeKey<T> key, T value) {
+		checkAccess();
+		super.addAttribute(key, value);
+	}
+
+	@Override
+	public void addAttribute(String name, int value) {
+		checkAccess();
+		super.addAttribute(name, value);
+	}
+
+	@Override
+	public void addAttribute(AttributeKey<Integer> key, int value) {
+		checkAccess();
+		super.addAttribute(key, value);
+	}
+
+	@Override
+	public void addAttribute(String name, long value) {
+		checkAccess();
+		super.addAttribute(name, value);
+	}
+
+	@Override
+	public void addAttribute(AttributeKey<Long> key, long value) {
+		checkAccess();
+		super.addAttribute(key, value);
+	}
+
+	@Override
+	public void addAttribute(String name, float value) {
+		checkAccess();
+		super.addAttribute(name, value);
+	}
+
+	@Override
+	public void addAttribute(AttributeKey<Float> key, float value) {
+		checkAccess();
+		super.addAttribute(key, value);
+	}
+
+	@Override
+	public <T> T getAttribute(String name) {
+		checkAccess();
+		return super.getAttribute(name);
+	}
+
+	@Override
+	public <T> T getAttribute(AttributeKey<T> key) {
+		checkAccess();
+		return super.getAttribute(key);
+	}
+
+	@Override
+	public boolean hasAttribute(String name) {
+		checkAccess();
+		return super.hasAttribute(name);
+	}
+
+	@Override
+	public boolean hasAttribute(AttributeKey<?> key) {
+		checkAccess();
+		return super.hasAttribute(key);
+	}
+
+	@Override
+	public int getInt(String name) {
+		checkAccess();
+		return super.getInt(name);
+	}
+
+	@Override
+	public int getInt(AttributeKey<Integer> key) {
+		checkAccess();
+		return super.getInt(key);
+	}
+
+	@Override
+	public long getLong(String name) {
+		checkAccess();
+		return super.getLong(name);
+	}
+
+	@Override
+	public long getLong(AttributeKey<Long> key) {
+		checkAccess();
+		return super.getLong(key);
+	}
+
+	@Override
+	public float getFloat(String name) {
+		checkAccess();
+		return super.getFloat(name);
+	}
+
+	@Override
+	public float getFloat(AttributeKey<Float> key) {
+		checkAccess();
+		return super.getFloat(key);
+	}
+
+	@Override
+	public Map<String, Object> getAttributes() {
+		checkAccess();
+		return super.getAttributes();
+	}
+
+	@Override
+	public Event getSerializable(EventFactory factory) {
+		checkAccess();
+		return super.getSerializable(factory);
+	}
+
+	@Override
+	public void clear() {
+		checkAccess();
+		super.clear();
+	}
+}
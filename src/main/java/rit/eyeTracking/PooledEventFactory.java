@@ -0,0 +1,149 @@
+package rit.eyeTracking;
+
+import java.util.Map;
+
+/**
+ * An {@link EventFactory} that recycles {@link PooledEvent}s via a bounded
+ * pool, so that steady-state tracking does not allocate events or attribute
+ * storage. Events that are released while the pool is full are left to the
+ * garbage collector.
+ * 
+ * Code that passes events to {@link EyeTrackingListener}s does not need to
+ * know whether events are pooled: {@link #retain(Event)} and
+ * {@link #release(Event)} have no effect on other events.
+ * 
+ * In debug mode, released events are never recycled and any access to them
+ * raises an {@link IllegalStateException}, to detect code that uses events
+ * after releasing them.
+ * 
+ * @see PooledEvent
+ */
+public class PooledEventFactory implements EventFactory<Event> {
+	
+	private final PooledEvent[] pool;
+	private final boolean debug;
+	private int size;
+	private long created;
+	
+	/**
+	 * Creates a factory that keeps at most the given number of released
+	 * events for reuse.
+	 * 
+	 * @param capacity The maximum number of pooled events
+	 */
+	public PooledEventFactory(int capacity) {
+		this(capacity, false);
+	}
+	
+	/**
+	 * Creates a factory that keeps at most the given number of released
+	 * events for reuse.
+	 * 
+	 * @param capacity The maximum number of pooled events
+	 * @param debug Whether to detect use of events after their release
+	 * 	instead of recycling them
+	 */
+	public PooledEventFactory(int capacity, boolean debug) {
+		if(capacity < 0)
+			throw new IllegalArgumentException("Negative capacity: "+capacity);
+		this.pool = new PooledEvent[capacity];
+		this.debug = debug;
+	}
+	
+	/**
+	 * Acquires an additional reference to the given event, if it is a
+	 * {@link PooledEvent}, or to the event beneath it, if it is a
+	 * {@link LayeredEvent}. Does nothing otherwise.
+	 */
+	public static void retain(Event e) {
+		while(e instanceof LayeredEvent)
+			e = ((LayeredEvent)e).getBase();
+		if(e instanceof PooledEvent)
+			((PooledEvent)e).retain();
+	}
+	
+	/**
+	 * Releases a reference to the given event, if it is a
+	 * {@link PooledEvent}, or to the event beneath it, if it is a
+	 * {@link LayeredEvent}. Does nothing otherwise.
+	 */
+	public static void release(Event e) {
+		while(e instanceof LayeredEvent)
+			e = ((LayeredEvent)e).getBase();
+		if(e instanceof PooledEvent)
+			((PooledEvent)e).release();
+	}
+	
+	public boolean isDebug() {
+		return debug;
+	}
+	
+	/**
+	 * Returns a recycled or new event that contains the given initial
+	 * attributes. The given map is not retained by the event.
+	 */
+	@Override
+	public PooledEvent createEvent(Event.ID id, Map<String, Object> attributes) {
+		PooledEvent e = createEvent(id);
+		for(Map.Entry<String,Object> entry: attributes.entrySet()) {
+			e.addAttribute(entry.getKey(), entry.getValue());
+		}
+		return e;
+	}
+	
+	/**
+	 * Returns a recycled or new event without attributes.
+	 */
+	@Override
+	public PooledEvent createEvent(Event.ID id) {
+		PooledEvent e = null;
+		synchronized(this) {
+			if(size > 0) {
+				e = pool[--size];
+				pool[size] = null;
+			} else {
+				created++;
+			}
+		}
+		if(e == null)
+			e = newEvent();
+		e.reset(id);
+		return e;
+	}
+	
+	/**
+	 * Creates a new event when the pool is empty. Sub-classes may return
+	 * sub-classes of {@link PooledEvent}, e.g. to provide a custom
+	 * implementation of {@link Event#isNew()}.
+	 */
+	protected PooledEvent newEvent() {
+		return new PooledEvent(this);
+	}
+	
+	/**
+	 * Returns a released event to the pool.
+	 */
+	void recycle(PooledEvent e) {
+		if(debug)
+			return;
+		synchronized(this) {
+			if(size < pool.length)
+				pool[size++] = e;
+		}
+	}
+	
+	/**
+	 * Returns the number of events currently available for reuse.
+	 */
+	public synchronized int getPooledCount() {
+		return size;
+	}
+	
+	/**
+	 * Returns the number of events that had to be allocated because the pool
+	 * was empty.
+	 */
+	public synchronized long getCreatedCount() {
+		return created;
+	}
+}
@@ -0,0 +1,66 @@
+package rit.eyeTracking.SmoothingFilters;
+
+import rit.eyeTracking.Event;
+import rit.eyeTracking.EventBuffer;
+import rit.eyeTracking.EyeTrackingListener;
+
+/**
+ * Passes events from an eye tracker client to another filter via an
+ * {@link EventBuffer}, so the thread receiving samples is not stalled by
+ * the other filter or its readers. The client is configured with this
+ * filter, while readers wait for events of the other filter.
+ *
+ * The buffer needs to be started before events arrive and is started by
+ * the constructor. {@link #stop()} delivers the events remaining in the
+ * buffer and stops its thread, later events are passed on synchronously.
+ *
+ * @param <E> The type of event passed through the filter chain
+ * 	({@link Event} by default)
+ */
+public class BufferedFilter<E extends Event> extends Filter<E> {
+
+	private final EventBuffer<E> buffer;
+
+	/**
+	 * @param filter The filter to pass events to
+	 * @param capacity The capacity of the buffer
+	 * @param overload The policy for events arriving while the buffer is
+	 * 	full
+	 */
+	public BufferedFilter(final Filter<E> filter, int capacity, EventBuffer.Overload overload) {
+		buffer = new EventBuffer<E>(new EyeTrackingListener<E>() {
+				@Override
+				public void notify(E e, EyeTrackingListener<E> listener, Mode mode) {
+					filter.filter(e);
+				}
+			}, capacity, overload);
+		buffer.start();
+	}
+
+	/**
+	 * Adds the event to the buffer.
+	 */
+	@Override
+	public void filter(E e) {
+		buffer.notify(e, null, null);
+	}
+
+	/**
+	 * Delivers the events remaining in the buffer and stops the thread
+	 * delivering events.
+	 *
+	 * @throws InterruptedException If interrupted while waiting for the
+	 * 	events to be delivered
+	 * @see EventBuffer#stop()
+	 */
+	public void stop() throws InterruptedException {
+		buffer.stop();
+	}
+
+	/**
+	 * Returns the buffer, e.g. to read its counters.
+	 */
+	public EventBuffer<E> getBuffer() {
+		return buffer;
+	}
+}
@@ -1,6 +1,15 @@
 package rit.eyeTracking.SmoothingFilters;
 
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import rit.eyeTracking.AttributeKey;
 import rit.eyeTracking.Event;
+import rit.eyeTracking.PooledEventFactory;
+import rit.eyeTracking.SpscQueue;
 
 /**
  * A class representing a filtering algorithm for smoothing jittery raw data
@@ -8,6 +17,20 @@ import rit.eyeTracking.Event;
  * 
  * TODO: split into two filters: one for smooting and one for fixation detection
  * 
+ * Filters hand events to readers via {@link #publish(Event)}, which never
+ * blocks. Published samples, i.e. events with {@link Event.Flags#RAW}, are
+ * put into a single-slot mailbox that holds the latest sample only:
+ * readers waiting via {@link #waitForNewEvent()} always receive the
+ * freshest sample, and samples that are replaced before being read are
+ * counted as {@link #getSupersededCount() superseded}. Other events, e.g.
+ * fixations or calibration events, are never lost: they are queued and
+ * read before the latest sample.
+ * Readers that need every event can enable a bounded queue via
+ * {@link #setQueueCapacity(int)} and take events from it via
+ * {@link #pollQueuedEvent()}. While the queue is enabled, events other
+ * than samples are passed to the queue only, so that they are not held
+ * for {@link #waitForNewEvent()} when no reader waits for them.
+ * 
  * @param <E> The type of event passed through the filter chain
  * 	({@link Event} by default)
  * 
@@ -16,14 +39,78 @@ import rit.eyeTracking.Event;
  */
 public abstract class Filter<E extends Event> {
 	
+	/**
+	 * Name of the {@link Float} attribute that contains the smoothed
+	 * on-screen x coordinate of the point of regard.
+	 */
 	public static final String FILTERED_POR_X = "rit.eyeTracking.SmoothingFilters.FILTERED_POR_X";
+	/**
+	 * Name of the {@link Float} attribute that contains the smoothed
+	 * on-screen y coordinate of the point of regard.
+	 */
 	public static final String FILTERED_POR_Y = "rit.eyeTracking.SmoothingFilters.FILTERED_POR_Y";
+	/**
+	 * Name of the {@link Float} attribute that contains the velocity of the
+	 * point of regard along the x-axis in pixels per second.
+	 */
+	public static final String FILTERED_VELOCITY_X = "rit.eyeTracking.SmoothingFilters.FILTERED_VELOCITY_X";
+	/**
+	 * Name of the {@link Float} attribute that contains the velocity of the
+	 * point of regard along the y-axis in pixels per second.
+	 */
+	public static final String FILTERED_VELOCITY_Y = "rit.eyeTracking.SmoothingFilters.FILTERED_VELOCITY_Y";
+	/**
+	 * Name of the {@link Float} attribute that contains the acceleration of
+	 * the point of regard along the x-axis in pixels per second².
+	 */
+	public static final String FILTERED_ACCELERATION_X = "rit.eyeTracking.SmoothingFilters.FILTERED_ACCELERATION_X";
+	/**
+	 * Name of the {@link Float} attribute that contains the acceleration of
+	 * the point of regard along the y-axis in pixels per second².
+	 */
+	public static final String FILTERED_ACCELERATION_Y = "rit.eyeTracking.SmoothingFilters.FILTERED_ACCELERATION_Y";
+	
+	/**
+	 * {@link AttributeKey}s for the attributes declared by {@link Filter}.
+	 */
+	public static final class Keys {
+		
+		public static final AttributeKey<Float> FILTERED_POR_X = AttributeKey.register(Filter.FILTERED_POR_X, Float.class);
+		public static final AttributeKey<Float> FILTERED_POR_Y = AttributeKey.register(Filter.FILTERED_POR_Y, Float.class);
+		public static final AttributeKey<Float> FILTERED_VELOCITY_X = AttributeKey.register(Filter.FILTERED_VELOCITY_X, Float.class);
+		public static final AttributeKey<Float> FILTERED_VELOCITY_Y = AttributeKey.register(Filter.FILTERED_VELOCITY_Y, Float.class);
+		public static final AttributeKey<Float> FILTERED_ACCELERATION_X = AttributeKey.register(Filter.FILTERED_ACCELERATION_X, Float.class);
+		public static final AttributeKey<Float> FILTERED_ACCELERATION_Y = AttributeKey.register(Filter.FILTERED_ACCELERATION_Y, Float.class);
+		
+		private Keys() {
+		}
+	}
 
 	protected int filterIntensity = 0;
 	protected int filterCounter = 0;
+	/**
+	 * The event most recently taken from the mailbox by the reader.
+	 */
 	protected E newEvent;
+	/**
+	 * @deprecated No longer used, events are published via
+	 * 	{@link #publish(Event)}
+	 */
+	@Deprecated
 	protected boolean newEventAvailable = false;
+	/**
+	 * @deprecated No longer used, {@link #publish(Event)} does not wait
+	 * 	for events to be read
+	 */
+	@Deprecated
 	protected boolean eventRead = false;
+	
+	private final AtomicReference<E> mailbox = new AtomicReference<E>();
+	private final Queue<E> discrete = new ConcurrentLinkedQueue<E>();
+	private final AtomicLong superseded = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private volatile SpscQueue<E> queue;
+	private volatile Thread reader;
 
 	/**
 	 * Constructs a filter with the cursor to be updated, the filter intensity,
@@ -51,6 +138,11 @@ public abstract class Filter<E extends Event> {
 	/**
 	 * Call filter with a string of tokens with new eye position data
 	 * 
+	 * The caller owns the event and may release it to its
+	 * {@link rit.eyeTracking.PooledEventFactory} after this method
+	 * returned. Filters that publish the event after returning need
+	 * to retain it until it has been read.
+	 * 
 	 * @param tokens
 	 *            - {iViewX Command string, time stamp in milli seconds, eye
 	 *            type: l - left|r - right|b - both, left eye x position, right
@@ -58,39 +150,139 @@ public abstract class Filter<E extends Event> {
 	 */
 	public abstract void filter(E e);
 
-	public boolean newEventAvailable() {
-		boolean copy = this.newEventAvailable;
-		newEventAvailable = false;
-		return copy;
+	/**
+	 * Returns true if the event is a sample with a point of regard that can
+	 * be smoothed. Filters should publish other events, e.g. fixations or
+	 * calibration events, unchanged.
+	 */
+	protected boolean isSample(E e) {
+		return e.hasFlags(Event.Flags.RAW) && e.hasAttribute(Event.Keys.POR_X)
+				&& e.hasAttribute(Event.Keys.POR_Y);
 	}
 
 	/**
-	 * Wait until the next coordinate is received to allow other threads to run
+	 * Publishes the event to readers without blocking. Samples replace an
+	 * unread sample in the mailbox, other events are queued, in the queue
+	 * enabled via {@link #setQueueCapacity(int)}, if any. The event is
+	 * retained until it has been superseded or read, so the caller may
+	 * release it after this method returned. Must be invoked by a single
+	 * thread at a time.
 	 */
-	public synchronized void waitForNewEvent() {
-		while (!newEventAvailable) {
-			try {
-				wait();
-			} catch (InterruptedException e) {
-				e.printStackTrace();
+	protected void publish(E e) {
+		SpscQueue<E> queue = this.queue;
+		if(queue != null) {
+			PooledEventFactory.retain(e);
+			if(!queue.offer(e)) {
+				PooledEventFactory.release(e);
+				dropped.incrementAndGet();
+			}
+		}
+		if(e.hasFlags(Event.Flags.RAW)) {
+			PooledEventFactory.retain(e);
+			E previous = mailbox.getAndSet(e);
+			if(previous != null) {
+				superseded.incrementAndGet();
+				PooledEventFactory.release(previous);
 			}
+		} else if(queue == null) {
+			PooledEventFactory.retain(e);
+			discrete.add(e);
+		}
+		Thread reader = this.reader;
+		if(reader != null)
+			LockSupport.unpark(reader);
+	}
+	
+	/**
+	 * Returns whether an event has been published that has not been taken
+	 * by {@link #waitForNewEvent()} yet.
+	 */
+	public boolean newEventAvailable() {
+		return !discrete.isEmpty() || mailbox.get() != null;
+	}
+
+	/**
+	 * Wait until an event has been published that has not been read yet and
+	 * makes it available via {@link #getNewEvent()}: the oldest queued
+	 * event other than a sample, if any, or the latest sample otherwise.
+	 * The event read before is released. If the thread is interrupted while
+	 * waiting, returns with the interrupt status set and no event available.
+	 * Must be invoked by a single reader thread.
+	 */
+	public void waitForNewEvent() {
+		E e;
+		while ((e = takeNewEvent()) == null) {
+			reader = Thread.currentThread();
+			if (!newEventAvailable())
+				LockSupport.park(this);
+			reader = null;
+			if (Thread.currentThread().isInterrupted())
+				break;
 		}
-		eventRead = false;
+		E read = newEvent;
+		newEvent = e;
+		if (read != null)
+			PooledEventFactory.release(read);
+	}
+	
+	private E takeNewEvent() {
+		E e = discrete.poll();
+		return e != null ? e : mailbox.getAndSet(null);
 	}
 
 	/**
-	 * Changes the coordinateRead flag to true, then notifies all.
+	 * Signals that the event returned by {@link #getNewEvent()} has been
+	 * read. Publishing does not wait for events to be read, so this method
+	 * is retained for compatibility only.
+	 */
+	public void notifyEventRead() {
+	}
+	
+	/**
+	 * Enables or disables the queue of events for readers that need every
+	 * event. While the queue is enabled, {@link #waitForNewEvent()} only
+	 * receives samples. Needs to be invoked before events are published.
+	 * 
+	 * @param capacity The minimum capacity of the queue, or 0 to disable it
+	 */
+	public void setQueueCapacity(int capacity) {
+		queue = capacity == 0 ? null : new SpscQueue<E>(capacity);
+	}
+	
+	/**
+	 * Takes the oldest event from the queue. The caller needs to release
+	 * the event to its {@link PooledEventFactory} once it has been read.
+	 * Must be invoked by a single reader thread.
+	 * 
+	 * @return The event, or null if the queue is empty or disabled
+	 * @see #setQueueCapacity(int)
+	 */
+	public E pollQueuedEvent() {
+		SpscQueue<E> queue = this.queue;
+		return queue == null ? null : queue.poll();
+	}
+	
+	/**
+	 * Returns the number of events that were replaced in the mailbox by a
+	 * newer event before being read.
+	 */
+	public long getSupersededCount() {
+		return superseded.get();
+	}
+	
+	/**
+	 * Returns the number of events that were not added to the queue
+	 * because it was full.
 	 */
-	public synchronized void notifyEventRead() {
-		eventRead = true;
-		newEventAvailable = false;
-		notifyAll();
+	public long getDroppedCount() {
+		return dropped.get();
 	}
 
 	/**
 	 * Access the current filtered coordinate.
 	 * 
-	 * @return - the filtered gaze point
+	 * @return - the filtered gaze point, valid until the next invocation
+	 * 	of {@link #waitForNewEvent()}, or null if that was interrupted
 	 */
 	public E getNewEvent() {
 		return newEvent;
@@ -11,18 +11,8 @@ import rit.eyeTracking.Event;
 public class NoFilter<E extends Event> extends Filter<E> {
 
 	@Override
-	public synchronized void filter(E e) {
-		newEvent = e;
-		newEventAvailable = true;
-		notifyAll();
-		while (!eventRead) {
-			try {
-				wait();
-			} catch (InterruptedException ie) {
-				System.err.println("NoFilter: interrupted while waiting for e="+e.getID()+" to be filtered");
-				ie.printStackTrace();
-			}
-		}
+	public void filter(E e) {
+		publish(e);
 	}
 
 }
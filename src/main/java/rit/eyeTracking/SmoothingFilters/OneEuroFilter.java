@@ -0,0 +1,109 @@
+package rit.eyeTracking.SmoothingFilters;
+
+import rit.eyeTracking.Event;
+
+/**
+ * Smoothes the point of regard with the 1€ filter by Casiez, Roussel and
+ * Vogel: a low-pass filter whose cutoff frequency increases with the speed
+ * of the point of regard, so it is smoothed heavily during fixations
+ * while lagging little behind saccades.
+ *
+ * The filter adds {@link #FILTERED_POR_X} and {@link #FILTERED_POR_Y} to
+ * events and publishes them. The time between samples is taken from
+ * {@link Event#TRACKER_TIMESTAMP_MU}, so irregular arrival of samples does
+ * not affect smoothing. Events without that attribute, or with a timestamp
+ * that is not later than the previous one, are assumed to follow the
+ * previous event at the nominal sampling rate. Events other than samples
+ * with a point of regard are published unchanged and affect neither the
+ * state of the filter nor the time between samples.
+ *
+ * @param <E> The type of event passed through the filter chain
+ * 	({@link Event} by default)
+ */
+public class OneEuroFilter<E extends Event> extends Filter<E> {
+
+	private final double samplingRate;
+	private final double minCutoff;
+	private final double beta;
+	private final double derivativeCutoff;
+	private boolean initialized;
+	private long lastTimestamp;
+	private double x, y;
+	private double dx, dy;
+
+	/**
+	 * Creates a filter with a derivative cutoff of 1 Hz.
+	 *
+	 * @see #OneEuroFilter(double, double, double, double)
+	 */
+	public OneEuroFilter(double samplingRate, double minCutoff, double beta) {
+		this(samplingRate, minCutoff, beta, 1.0);
+	}
+
+	/**
+	 * @param samplingRate The nominal sampling rate of the eye tracker in
+	 * 	Hz, used if events have no timestamps
+	 * @param minCutoff The cutoff frequency in Hz while the point of regard
+	 * 	does not move. Lower values reduce jitter during fixations.
+	 * @param beta The increase of the cutoff frequency per pixel per
+	 * 	second of speed. Higher values reduce lag during saccades.
+	 * @param derivativeCutoff The cutoff frequency in Hz for the speed
+	 * @throws IllegalArgumentException If the sampling rate or a cutoff
+	 * 	frequency is not positive or beta is negative
+	 */
+	public OneEuroFilter(double samplingRate, double minCutoff, double beta, double derivativeCutoff) {
+		if(samplingRate <= 0 || minCutoff <= 0 || derivativeCutoff <= 0 || beta < 0)
+			throw new IllegalArgumentException("Invalid parameters: samplingRate="+samplingRate
+					+" minCutoff="+minCutoff+" beta="+beta+" derivativeCutoff="+derivativeCutoff);
+		this.samplingRate = samplingRate;
+		this.minCutoff = minCutoff;
+		this.beta = beta;
+		this.derivativeCutoff = derivativeCutoff;
+	}
+
+	/**
+	 * Adds the attributes {@link #FILTERED_POR_X} and {@link #FILTERED_POR_Y}
+	 * to samples and publishes them. Other events are published unchanged.
+	 */
+	@Override
+	public void filter(E e) {
+		if(!isSample(e)) {
+			publish(e);
+			return;
+		}
+		int rawX = e.getInt(Event.Keys.POR_X);
+		int rawY = e.getInt(Event.Keys.POR_Y);
+		double dt = 1.0/samplingRate;
+		if(e.hasAttribute(Event.Keys.TRACKER_TIMESTAMP_MU)) {
+			long timestamp = e.getLong(Event.Keys.TRACKER_TIMESTAMP_MU);
+			if(initialized && timestamp > lastTimestamp)
+				dt = (timestamp - lastTimestamp) / 1000000.0;
+			lastTimestamp = timestamp;
+		}
+		filterCounter++;
+		if(!initialized) {
+			initialized = true;
+			x = rawX;
+			y = rawY;
+			dx = dy = 0;
+		} else {
+			double derivativeAlpha = alpha(derivativeCutoff, dt);
+			dx += derivativeAlpha * ((rawX - x)/dt - dx);
+			dy += derivativeAlpha * ((rawY - y)/dt - dy);
+			x += alpha(minCutoff + beta*Math.abs(dx), dt) * (rawX - x);
+			y += alpha(minCutoff + beta*Math.abs(dy), dt) * (rawY - y);
+		}
+		e.addAttribute(Keys.FILTERED_POR_X, (float)x);
+		e.addAttribute(Keys.FILTERED_POR_Y, (float)y);
+		publish(e);
+	}
+
+	/**
+	 * Returns the smoothing factor of an exponential low-pass filter with
+	 * the given cutoff frequency for the given time between samples.
+	 */
+	private static double alpha(double cutoff, double dt) {
+		double tau = 1.0/(2*Math.PI*cutoff);
+		return 1.0/(1.0 + tau/dt);
+	}
+}
@@ -0,0 +1,268 @@
+package rit.eyeTracking.SmoothingFilters;
+
+import java.util.Arrays;
+
+import rit.eyeTracking.Event;
+
+/**
+ * Smoothes the point of regard by fitting polynomials of x and y over time
+ * to a sliding window of samples and evaluating them at the time of the
+ * latest sample, which is published with {@link #FILTERED_POR_X} and
+ * {@link #FILTERED_POR_Y}.
+ *
+ * Unlike {@link Regression#linear_equation(double[][], int)}, the sums of the
+ * normal equations are updated incrementally as samples enter and leave
+ * the window, so each sample costs O(order²) independent of the window
+ * size and does not allocate. Times are relative to the mean time of the
+ * window to keep the normal equations well-conditioned, and the sums are
+ * re-computed from the window once per window length to discard rounding
+ * errors.
+ *
+ * Times are taken from {@link Event#TRACKER_TIMESTAMP_MU}, if present, so
+ * irregular sampling is taken into account, or from the sample count
+ * otherwise.
+ *
+ * Only samples with a point of regard are smoothed, other events are
+ * passed on unchanged.
+ *
+ * @param <E> The type of event passed through the filter chain
+ * 	({@link Event} by default)
+ */
+public class RegressionFilter<E extends Event> extends Filter<E> {
+
+	/**
+	 * Pivots whose magnitude is smaller than this fraction of the largest
+	 * sum are treated as zero, reducing the order of the fit.
+	 */
+	private static final double EPSILON = 1e-12;
+
+	private final int order;
+	/** Times in milliseconds relative to {@link #epoch} */
+	private final double[] times;
+	private final double[] xs;
+	private final double[] ys;
+	/** Sums of dt^p for p=0..2*order, dt relative to {@link #center} */
+	private final double[] powerSums;
+	/** Sums of dt^p*x for p=0..order */
+	private final double[] xSums;
+	/** Sums of dt^p*y for p=0..order */
+	private final double[] ySums;
+	private final double[][] binomials;
+	private final double[] shifts;
+	private final double[][] system;
+	private final double[] coefficients;
+	private int first;
+	private int size;
+	private int updates;
+	private long epoch = Long.MIN_VALUE;
+	private double center;
+
+	/**
+	 * @param window The number of samples to fit polynomials to
+	 * @param order The order of the polynomials, e.g. 1 for lines
+	 * @throws IllegalArgumentException If the order is negative or not
+	 * 	smaller than the window
+	 */
+	public RegressionFilter(int window, int order) {
+		super(window);
+		if(order < 0 || order >= window)
+			throw new IllegalArgumentException("Invalid order "+order+" for window "+window);
+		this.order = order;
+		times = new double[window];
+		xs = new double[window];
+		ys = new double[window];
+		powerSums = new double[2*order+1];
+		xSums = new double[order+1];
+		ySums = new double[order+1];
+		binomials = new double[2*order+1][];
+		for(int n=0; n<binomials.length; n++) {
+			binomials[n] = new double[n+1];
+			binomials[n][0] = binomials[n][n] = 1;
+			for(int k=1; k<n; k++)
+				binomials[n][k] = binomials[n-1][k-1] + binomials[n-1][k];
+		}
+		shifts = new double[2*order+1];
+		system = new double[order+1][order+3];
+		coefficients = new double[2*(order+1)];
+	}
+
+	/**
+	 * Adds the attributes {@link #FILTERED_POR_X} and {@link #FILTERED_POR_Y}
+	 * to samples and publishes them. Other events are published unchanged
+	 * and do not enter the window.
+	 */
+	@Override
+	public void filter(E e) {
+		if(!isSample(e)) {
+			publish(e);
+			return;
+		}
+		double time;
+		if(e.hasAttribute(Event.Keys.TRACKER_TIMESTAMP_MU)) {
+			long mu = e.getLong(Event.Keys.TRACKER_TIMESTAMP_MU);
+			if(epoch == Long.MIN_VALUE)
+				epoch = mu;
+			time = (mu - epoch) / 1000.0;
+		} else {
+			time = filterCounter;
+		}
+		filterCounter++;
+		add(time, e.getInt(Event.Keys.POR_X), e.getInt(Event.Keys.POR_Y));
+		int n = solve();
+		double dt = time - center;
+		double x = 0, y = 0;
+		for(int p=n-1; p>=0; p--) {
+			x = x*dt + coefficients[2*p];
+			y = y*dt + coefficients[2*p+1];
+		}
+		e.addAttribute(Keys.FILTERED_POR_X, (float)x);
+		e.addAttribute(Keys.FILTERED_POR_Y, (float)y);
+		publish(e);
+	}
+
+	/**
+	 * Adds a sample to the window, removing the oldest one if the window is
+	 * full, and re-centers the sums at the mean time of the window.
+	 */
+	private void add(double time, double x, double y) {
+		int window = times.length;
+		if(size == window) {
+			accumulate(times[first] - center, xs[first], ys[first], -1);
+			times[first] = time;
+			xs[first] = x;
+			ys[first] = y;
+			first = (first+1) % window;
+		} else {
+			int last = (first+size) % window;
+			times[last] = time;
+			xs[last] = x;
+			ys[last] = y;
+			size++;
+		}
+		if(++updates >= window || size == 1) {
+			recompute();
+		} else {
+			accumulate(time - center, x, y, 1);
+			shift(powerSums[1]/powerSums[0]);
+		}
+	}
+
+	/**
+	 * Adds the powers of a sample to the sums, or subtracts them if the
+	 * sign is -1.
+	 */
+	private void accumulate(double dt, double x, double y, int sign) {
+		double power = sign;
+		for(int p=0; p<powerSums.length; p++) {
+			powerSums[p] += power;
+			if(p < xSums.length) {
+				xSums[p] += power*x;
+				ySums[p] += power*y;
+			}
+			power *= dt;
+		}
+	}
+
+	/**
+	 * Moves the center of the sums by the given offset, using
+	 * sum((t-d)^p) = sum over k of C(p,k) (-d)^(p-k) sum(t^k).
+	 */
+	private void shift(double offset) {
+		shifts[0] = 1;
+		for(int p=1; p<shifts.length; p++)
+			shifts[p] = -offset*shifts[p-1];
+		for(int p=powerSums.length-1; p>0; p--) {
+			double sum = 0;
+			for(int k=0; k<=p; k++)
+				sum += binomials[p][k] * shifts[p-k] * powerSums[k];
+			powerSums[p] = sum;
+			if(p < xSums.length) {
+				double x = 0, y = 0;
+				for(int k=0; k<=p; k++) {
+					x += binomials[p][k] * shifts[p-k] * xSums[k];
+					y += binomials[p][k] * shifts[p-k] * ySums[k];
+				}
+				xSums[p] = x;
+				ySums[p] = y;
+			}
+		}
+		center += offset;
+	}
+
+	/**
+	 * Re-computes the sums from the samples in the window.
+	 */
+	private void recompute() {
+		updates = 0;
+		int window = times.length;
+		double mean = 0;
+		for(int i=0; i<size; i++)
+			mean += times[(first+i) % window];
+		center = mean/size;
+		Arrays.fill(powerSums, 0);
+		Arrays.fill(xSums, 0);
+		Arrays.fill(ySums, 0);
+		for(int i=0; i<size; i++) {
+			int index = (first+i) % window;
+			accumulate(times[index] - center, xs[index], ys[index], 1);
+		}
+	}
+
+	/**
+	 * Solves the normal equations for x and y via Gaussian elimination with
+	 * partial pivoting. Reduces the order if there are too few samples or
+	 * the system is singular.
+	 *
+	 * @return The number of coefficients stored in {@link #coefficients},
+	 * 	interleaved for x and y
+	 */
+	private int solve() {
+		for(int n=Math.min(order+1, size); n>1; n--) {
+			if(eliminate(n))
+				return n;
+		}
+		coefficients[0] = xSums[0]/powerSums[0];
+		coefficients[1] = ySums[0]/powerSums[0];
+		return 1;
+	}
+
+	private boolean eliminate(int n) {
+		double[][] a = system;
+		for(int i=0; i<n; i++) {
+			for(int j=0; j<n; j++)
+				a[i][j] = powerSums[i+j];
+			a[i][n] = xSums[i];
+			a[i][n+1] = ySums[i];
+		}
+		double scale = 0;
+		for(int p=0; p<2*n-1; p++)
+			scale = Math.max(scale, Math.abs(powerSums[p]));
+		for(int j=0; j<n; j++) {
+			int pivot = j;
+			for(int i=j+1; i<n; i++) {
+				if(Math.abs(a[i][j]) > Math.abs(a[pivot][j]))
+					pivot = i;
+			}
+			if(Math.abs(a[pivot][j]) <= EPSILON*scale)
+				return false;
+			double[] row = a[pivot];
+			a[pivot] = a[j];
+			a[j] = row;
+			for(int i=j+1; i<n; i++) {
+				double factor = a[i][j]/a[j][j];
+				for(int k=j; k<n+2; k++)
+					a[i][k] -= factor*a[j][k];
+			}
+		}
+		for(int i=n-1; i>=0; i--) {
+			double x = a[i][n], y = a[i][n+1];
+			for(int k=i+1; k<n; k++) {
+				x -= a[i][k]*coefficients[2*k];
+				y -= a[i][k]*coefficients[2*k+1];
+			}
+			coefficients[2*i] = x/a[i][i];
+			coefficients[2*i+1] = y/a[i][i];
+		}
+		return true;
+	}
+}
@@ -0,0 +1,181 @@
+package rit.eyeTracking.SmoothingFilters;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import rit.eyeTracking.Event;
+
+/**
+ * Smoothes the point of regard and computes its velocity and acceleration
+ * via Savitzky-Golay filtering: polynomials are fitted to a sliding window
+ * of equidistant samples and evaluated at the latest sample. Because the
+ * samples are equidistant, the least-squares fit reduces to weights that
+ * depend on the window and order only. They are computed once and shared
+ * between filters, so each sample costs a few multiply-adds per attribute.
+ *
+ * The filter adds {@link #FILTERED_POR_X}, {@link #FILTERED_POR_Y},
+ * {@link #FILTERED_VELOCITY_X}, {@link #FILTERED_VELOCITY_Y},
+ * {@link #FILTERED_ACCELERATION_X} and {@link #FILTERED_ACCELERATION_Y}
+ * to samples and publishes them. Until the window is full, smaller windows
+ * are used. Velocities are only added if the polynomials fitted are at
+ * least linear, i.e. the order and the number of samples so far are at
+ * least 1, and accelerations only if they are at least quadratic. Events
+ * other than samples with a point of regard are published unchanged.
+ *
+ * @param <E> The type of event passed through the filter chain
+ * 	({@link Event} by default)
+ * @see RegressionFilter
+ */
+public class SavitzkyGolayFilter<E extends Event> extends Filter<E> {
+
+	/**
+	 * The number of derivatives computed, including the 0th.
+	 */
+	static final int DERIVATIVES = 3;
+
+	private static final ConcurrentMap<Long,double[][]> coefficientsCache
+		= new ConcurrentHashMap<Long,double[][]>();
+
+	/** Weights indexed by the number of samples, derivative and sample */
+	private final double[][][] weights;
+	private final int order;
+	private final double samplingRate;
+	private final double[] xs;
+	private final double[] ys;
+	private int next;
+	private int size;
+
+	/**
+	 * @param window The number of samples to fit polynomials to
+	 * @param order The order of the polynomials, at least 1 to compute
+	 * 	velocities and at least 2 to compute accelerations
+	 * @param samplingRate The sampling rate of the eye tracker in Hz, used
+	 * 	to convert derivatives to units per second
+	 * @throws IllegalArgumentException If the order is negative or not
+	 * 	smaller than the window
+	 */
+	public SavitzkyGolayFilter(int window, int order, double samplingRate) {
+		super(window);
+		if(order < 0 || order >= window)
+			throw new IllegalArgumentException("Invalid order "+order+" for window "+window);
+		this.order = order;
+		this.samplingRate = samplingRate;
+		weights = new double[window+1][][];
+		for(int n=1; n<=window; n++)
+			weights[n] = coefficients(n, Math.min(order, n-1));
+		xs = new double[window];
+		ys = new double[window];
+	}
+
+	/**
+	 * Returns the weights of the samples in a window for the derivatives
+	 * of the fitted polynomial at the last sample.
+	 *
+	 * @return The weights indexed by derivative and sample, oldest first
+	 */
+	static double[][] coefficients(int window, int order) {
+		Long key = ((long)window << 32) | order;
+		double[][] coefficients = coefficientsCache.get(key);
+		if(coefficients == null) {
+			coefficients = computeCoefficients(window, order);
+			double[][] previous = coefficientsCache.putIfAbsent(key, coefficients);
+			if(previous != null)
+				coefficients = previous;
+		}
+		return coefficients;
+	}
+
+	/**
+	 * Computes the rows of (J^T J)^-1 J^T, where J contains the powers
+	 * 0..order of the positions of the samples relative to the last sample,
+	 * and multiplies row d by d! to obtain the weights for derivative d.
+	 */
+	private static double[][] computeCoefficients(int window, int order) {
+		int n = order+1;
+		double[][] a = new double[n][n+window];
+		for(int i=0; i<n; i++) {
+			for(int j=0; j<n; j++) {
+				for(int s=0; s<window; s++)
+					a[i][j] += Math.pow(s-window+1, i+j);
+			}
+			for(int s=0; s<window; s++)
+				a[i][n+s] = Math.pow(s-window+1, i);
+		}
+		// Gauss-Jordan elimination with partial pivoting
+		for(int j=0; j<n; j++) {
+			int pivot = j;
+			for(int i=j+1; i<n; i++) {
+				if(Math.abs(a[i][j]) > Math.abs(a[pivot][j]))
+					pivot = i;
+			}
+			double[] row = a[pivot];
+			a[pivot] = a[j];
+			a[j] = row;
+			double divisor = a[j][j];
+			for(int k=j; k<n+window; k++)
+				a[j][k] /= divisor;
+			for(int i=0; i<n; i++) {
+				if(i != j) {
+					double factor = a[i][j];
+					for(int k=j; k<n+window; k++)
+						a[i][k] -= factor*a[j][k];
+				}
+			}
+		}
+		double[][] coefficients = new double[DERIVATIVES][window];
+		double factorial = 1;
+		for(int d=0; d<Math.min(n, DERIVATIVES); d++) {
+			if(d > 0)
+				factorial *= d;
+			for(int s=0; s<window; s++)
+				coefficients[d][s] = factorial*a[d][n+s];
+		}
+		return coefficients;
+	}
+
+	/**
+	 * Adds the smoothed point of regard, its velocity and its acceleration
+	 * to samples and publishes them. Other events are published unchanged.
+	 */
+	@Override
+	public void filter(E e) {
+		if(!isSample(e)) {
+			publish(e);
+			return;
+		}
+		int window = xs.length;
+		xs[next] = e.getInt(Event.Keys.POR_X);
+		ys[next] = e.getInt(Event.Keys.POR_Y);
+		next = (next+1) % window;
+		if(size < window)
+			size++;
+		filterCounter++;
+		double[][] w = weights[size];
+		double x0 = 0, y0 = 0, x1 = 0, y1 = 0, x2 = 0, y2 = 0;
+		int index = (next-size+window) % window;
+		for(int s=0; s<size; s++) {
+			double x = xs[index], y = ys[index];
+			x0 += w[0][s]*x;
+			y0 += w[0][s]*y;
+			x1 += w[1][s]*x;
+			y1 += w[1][s]*y;
+			x2 += w[2][s]*x;
+			y2 += w[2][s]*y;
+			if(++index == window)
+				index = 0;
+		}
+		int fitted = Math.min(order, size-1);
+		e.addAttribute(Keys.FILTERED_POR_X, (float)x0);
+		e.addAttribute(Keys.FILTERED_POR_Y, (float)y0);
+		if(fitted >= 1) {
+			e.addAttribute(Keys.FILTERED_VELOCITY_X, (float)(x1*samplingRate));
+			e.addAttribute(Keys.FILTERED_VELOCITY_Y, (float)(y1*samplingRate));
+		}
+		if(fitted >= 2) {
+			double rate2 = samplingRate*samplingRate;
+			e.addAttribute(Keys.FILTERED_ACCELERATION_X, (float)(x2*rate2));
+			e.addAttribute(Keys.FILTERED_ACCELERATION_Y, (float)(y2*rate2));
+		}
+		publish(e);
+	}
+}
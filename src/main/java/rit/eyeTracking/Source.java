@@ -11,6 +11,7 @@ public interface Source {
 	 * actually have instance of these attributes.
 	 * 
 	 * @return An array of attribute names
+	 * @see AttributeKey#names(AttributeKey...)
 	 */
 	public String[] getAttributesCreated();
 }
@@ -0,0 +1,98 @@
+package rit.eyeTracking;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free queue for exactly one producer thread and one
+ * consumer thread. Offering and polling do not allocate.
+ *
+ * @param <E> The type of elements
+ */
+public class SpscQueue<E> {
+
+	private final AtomicReferenceArray<E> elements;
+	private final int mask;
+	/** The index of the next element to poll, written by the consumer */
+	private final AtomicLong head = new AtomicLong();
+	/** The index of the next element to offer, written by the producer */
+	private final AtomicLong tail = new AtomicLong();
+
+	/**
+	 * @param capacity The minimum capacity, rounded up to a power of two
+	 * @throws IllegalArgumentException If the capacity is smaller than 1 or
+	 * 	larger than 2^30
+	 */
+	public SpscQueue(int capacity) {
+		if(capacity < 1 || capacity > 1 << 30)
+			throw new IllegalArgumentException("Invalid capacity: "+capacity);
+		int size = Integer.highestOneBit(capacity);
+		if(size < capacity)
+			size <<= 1;
+		elements = new AtomicReferenceArray<E>(size);
+		mask = size-1;
+	}
+
+	/**
+	 * Adds an element, if the queue is not full. Must only be invoked by
+	 * the producer thread.
+	 *
+	 * @param e The element, not null
+	 * @return true if the element was added
+	 */
+	public boolean offer(E e) {
+		if(e == null)
+			throw new NullPointerException();
+		long t = tail.get();
+		if(t - head.get() > mask)
+			return false;
+		elements.lazySet((int)t & mask, e);
+		tail.lazySet(t+1);
+		return true;
+	}
+
+	/**
+	 * Removes the oldest element. Must only be invoked by the consumer
+	 * thread.
+	 *
+	 * @return The element, or null if the queue is empty
+	 */
+	public E poll() {
+		long h = head.get();
+		if(h == tail.get())
+			return null;
+		int index = (int)h & mask;
+		E e = elements.get(index);
+		elements.lazySet(index, null);
+		head.lazySet(h+1);
+		return e;
+	}
+
+	/**
+	 * Returns the oldest element without removing it. Must only be invoked
+	 * by the consumer thread.
+	 *
+	 * @return The element, or null if the queue is empty
+	 */
+	public E peek() {
+		long h = head.get();
+		return h == tail.get() ? null : elements.get((int)h & mask);
+	}
+
+	/**
+	 * Returns the number of elements, which may be outdated when it is
+	 * returned.
+	 */
+	public int size() {
+		long h = head.get();
+		return (int)(tail.get() - h);
+	}
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	public int capacity() {
+		return mask+1;
+	}
+}
@@ -0,0 +1,307 @@
+package rit.eyeTracking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A filter chain that is split into stages, so filters with bursty
+ * latency, e.g. for recording to disk, do not delay latency-critical
+ * filters, e.g. those moving a gaze cursor.
+ *
+ * Filters are assigned to stages via {@link #setStage(Filter, int)}. Stage
+ * 0, the default, runs on the thread notifying the chain. While the chain
+ * is started, each further stage runs on a thread of its own and receives
+ * events from the previous stage via a bounded {@link SpscQueue}, so
+ * earlier stages can run ahead of later ones. Each stage processes events
+ * in the order in which they were passed to the chain, and each event is
+ * processed by one stage at a time, so events need not be thread-safe.
+ * If the queue of a stage is full, the previous stage waits. Within a
+ * stage, filters are notified in dependency order.
+ *
+ * Filters must not be assigned to an earlier stage than filters creating
+ * attributes they require. Stages that are assigned filters while the
+ * chain is started are run by the thread of the last stage.
+ *
+ * Pooled events are retained until they have passed the last stage. Filters
+ * that notify this chain of new events from a later stage must not do so
+ * if the queue of the first stage may be full.
+ *
+ * @param <T> The type of configuration object provided when starting
+ * 	/ stopping the filter.
+ * @param <E> The type of event passed through the filter chain
+ * 	({@link Event} by default)
+ */
+public class StagedFilterChain<T,E extends Event> extends FilterChain<T,E> {
+
+	private static final int SPINS = 100;
+	private static final long PARK_NANOS = 50000L;
+
+	private final int queueCapacity;
+	private final Object producerLock = new Object();
+	private Map<Filter<T,E>,Integer> stageOf;
+	private volatile FilterLevels<T,E> stages;
+	private List<Stage<T,E>> threads;
+	private volatile Stage<T,E> first;
+
+	/**
+	 * @param filters The filters, all of which are assigned to stage 0
+	 * @param queueCapacity The minimum capacity of the queue of each stage
+	 */
+	public StagedFilterChain(Filter<T,E>[] filters, int queueCapacity) {
+		super(filters);
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * Assigns a filter to a stage.
+	 *
+	 * @param filter A filter of this chain
+	 * @param stage The stage, 0 for the thread notifying the chain
+	 * @throws IllegalArgumentException If the stage is negative
+	 */
+	public synchronized void setStage(Filter<T,E> filter, int stage) {
+		if(stage < 0)
+			throw new IllegalArgumentException("Negative stage: "+stage);
+		stageOf.put(filter, stage);
+		updateDispatch();
+	}
+
+	public synchronized int getStage(Filter<T,E> filter) {
+		Integer stage = stageOf.get(filter);
+		return stage == null ? 0 : stage;
+	}
+
+	/**
+	 * Returns the number of stages, including stage 0.
+	 */
+	public int getStageCount() {
+		return Math.max(1, stages.filters.length);
+	}
+
+	@Override
+	protected synchronized void updateDispatch() {
+		super.updateDispatch();
+		if(stageOf == null) // Called by the super-constructor
+			stageOf = new IdentityHashMap<Filter<T,E>,Integer>();
+		List<Filter<T,E>> order = getOrder();
+		int count = 1;
+		for(Filter<T,E> filter: order)
+			count = Math.max(count, getStage(filter)+1);
+		List<List<Filter<T,E>>> groups = new ArrayList<List<Filter<T,E>>>();
+		for(int s=0; s<count; s++)
+			groups.add(new ArrayList<Filter<T,E>>());
+		for(Filter<T,E> filter: order)
+			groups.get(getStage(filter)).add(filter);
+		@SuppressWarnings("unchecked")
+		Filter<T,E>[][] filters = new Filter[count][];
+		for(int s=0; s<count; s++)
+			filters[s] = groups.get(s).toArray(new Filter[groups.get(s).size()]);
+		stages = new FilterLevels<T,E>(filters);
+	}
+
+	/**
+	 * Starts the filters and the threads of stages other than 0.
+	 *
+	 * @throws IllegalStateException If the chain has already been started
+	 * 	or if a filter is assigned to an earlier stage than a filter
+	 * 	creating an attribute it requires
+	 * @see FilterChain#start(Object, EyeTrackingListener, Mode)
+	 */
+	@Override
+	public synchronized void start(T obj, EyeTrackingListener<E> listener, Mode mode) {
+		if(threads != null)
+			throw new IllegalStateException("Already started");
+		checkStages();
+		super.start(obj, listener, mode);
+		int count = getStageCount();
+		threads = new ArrayList<Stage<T,E>>();
+		Stage<T,E> next = null;
+		for(int s=count-1; s>0; s--) {
+			next = new Stage<T,E>(s, next, queueCapacity);
+			threads.add(0, next);
+		}
+		for(Stage<T,E> stage: threads)
+			stage.thread.start();
+		synchronized(producerLock) {
+			first = next;
+		}
+	}
+
+	@SuppressWarnings("deprecation")
+	private void checkStages() {
+		for(Filter<T,E> consumer: filters) {
+			String[] required = consumer.getAttributesRequired();
+			if(required == null)
+				continue;
+			for(String attribute: required) {
+				for(Filter<T,E> producer: filters) {
+					String[] created = producer.getAttributesCreated();
+					if(created != null && Arrays.asList(created).contains(attribute)
+							&& getStage(producer) > getStage(consumer))
+						throw new IllegalStateException(consumer.getClass().getName()
+								+" requires "+attribute+" created in a later stage by "
+								+producer.getClass().getName());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Waits until all events have passed all stages, stops the threads
+	 * of the stages and then stops the filters. Events passed to the chain
+	 * afterwards are processed by all stages on the thread notifying the
+	 * chain.
+	 */
+	@Override
+	public void stop(T obj, EyeTrackingListener<E> listener, Mode mode) {
+		List<Stage<T,E>> threads;
+		synchronized(this) {
+			threads = this.threads;
+			this.threads = null;
+		}
+		synchronized(producerLock) {
+			first = null;
+		}
+		if(threads != null) {
+			for(Stage<T,E> stage: threads)
+				stage.finish();
+		}
+		super.stop(obj, listener, mode);
+	}
+
+	/**
+	 * Notifies the filters of stage 0 and passes the event on to the next
+	 * stage. If the queue of the next stage is full, waits until an event
+	 * has been taken from it.
+	 */
+	@Override
+	public void notify(E e, EyeTrackingListener<E> listener, Mode mode) {
+		synchronized(producerLock) {
+			FilterLevels<T,E> stages = this.stages;
+			Stage<T,E> first = this.first;
+			stages.notify(0, e, listener, mode);
+			if(stages.filters.length < 2)
+				return;
+			if(first == null) {
+				for(int s=1; s<stages.filters.length; s++)
+					stages.notify(s, e, listener, mode);
+				return;
+			}
+			PooledEventFactory.retain(e);
+			first.put(new Item<T,E>(e, listener, mode, stages));
+		}
+	}
+
+	/**
+	 * An event passed between stages together with the arguments of
+	 * {@link StagedFilterChain#notify(Event, EyeTrackingListener, Mode)}.
+	 */
+	private static final class Item<T,E extends Event> {
+		private final E event;
+		private final EyeTrackingListener<E> listener;
+		private final Mode mode;
+		private final FilterLevels<T,E> stages;
+
+		private Item(E event, EyeTrackingListener<E> listener, Mode mode, FilterLevels<T,E> stages) {
+			this.event = event;
+			this.listener = listener;
+			this.mode = mode;
+			this.stages = stages;
+		}
+	}
+
+	/**
+	 * A stage other than 0 with its queue and thread.
+	 */
+	private static final class Stage<T,E extends Event> implements Runnable {
+
+		private final int index;
+		private final Stage<T,E> next;
+		private final SpscQueue<Item<T,E>> queue;
+		private final Thread thread;
+		private volatile boolean running = true;
+		private volatile boolean parked;
+
+		private Stage(int index, Stage<T,E> next, int queueCapacity) {
+			this.index = index;
+			this.next = next;
+			this.queue = new SpscQueue<Item<T,E>>(queueCapacity);
+			thread = new Thread(this, "StagedFilterChain-"+index);
+			thread.setDaemon(true);
+		}
+
+		/**
+		 * Adds the item to the queue, waiting while the queue is full.
+		 * Invoked by the previous stage only.
+		 */
+		private void put(Item<T,E> item) {
+			while(!queue.offer(item))
+				LockSupport.parkNanos(PARK_NANOS);
+			if(parked)
+				LockSupport.unpark(thread);
+		}
+
+		@Override
+		public void run() {
+			int idle = 0;
+			while(true) {
+				Item<T,E> item = queue.poll();
+				if(item != null) {
+					idle = 0;
+					process(item);
+				} else if(!running) {
+					if(queue.isEmpty())
+						return;
+				} else if(++idle < SPINS) {
+					Thread.yield();
+				} else {
+					parked = true;
+					if(queue.isEmpty() && running)
+						LockSupport.parkNanos(PARK_NANOS);
+					parked = false;
+				}
+			}
+		}
+
+		private void process(Item<T,E> item) {
+			FilterLevels<T,E> stages = item.stages;
+			int end = next == null ? stages.filters.length : Math.min(index+1, stages.filters.length);
+			try {
+				for(int s=index; s<end; s++) {
+					try {
+						stages.notify(s, item.event, item.listener, item.mode);
+					} catch(RuntimeException re) {
+						re.printStackTrace();
+					}
+				}
+			} finally {
+				if(next != null)
+					next.put(item);
+				else
+					PooledEventFactory.release(item.event);
+			}
+		}
+
+		/**
+		 * Processes the remaining items and waits for the thread to end.
+		 */
+		private void finish() {
+			running = false;
+			LockSupport.unpark(thread);
+			boolean interrupted = false;
+			while(thread.isAlive()) {
+				try {
+					thread.join();
+				} catch(InterruptedException ie) {
+					interrupted = true;
+				}
+			}
+			if(interrupted)
+				Thread.currentThread().interrupt();
+		}
+	}
+}
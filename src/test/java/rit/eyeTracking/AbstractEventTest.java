@@ -3,10 +3,14 @@ package rit.eyeTracking;
 import static org.junit.Assert.*;
 import static org.hamcrest.CoreMatchers.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ObjectInputStream;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
 
 import nl.jqno.equalsverifier.EqualsVerifier;
+import nl.jqno.equalsverifier.Warning;
 
 import org.jmock.Expectations;
 import org.jmock.integration.junit4.JUnitRuleMockery;
@@ -126,11 +130,104 @@ public class AbstractEventTest {
 		assertThat(serializableEvent.getID(), is(sameInstance(id)));
 	}
 
+	@SuppressWarnings("serial")
+	private static AbstractEvent createEvent() {
+		Map<String,Object> attributes = new HashMap<String,Object>();
+		attributes.put("attribute0Name", "attribute0Value");
+		return new AbstractEvent(Event.RAW_EVENT, attributes) {
+			@Override
+			public boolean isNew() {
+				return false;
+			}};
+	}
+	
+	@Test
+	public void testCachedAttributesAndHashCode() {
+		AbstractEvent event = createEvent();
+		int hashCode = event.hashCode();
+		assertThat(event.getAttributes(), is(sameInstance(event.getAttributes())));
+		event.addAttribute("attribute1Name", "attribute1Value");
+		assertThat(event.getAttributes().size(), is(2));
+		assertThat(event.hashCode(), is(not(hashCode)));
+		assertThat(event.hashCode(), is(createEvent().hashCode() + ("attribute1Name".hashCode() ^ "attribute1Value".hashCode())*31));
+	}
+	
+	/**
+	 * An event that does not cache its hash code, since EqualsVerifier
+	 * can only check cached hash codes of immutable classes, while the ID
+	 * of events is replaced when pooled events are recycled.
+	 */
+	@SuppressWarnings("serial")
+	private static class UncachedEvent extends AbstractEvent {
+
+		UncachedEvent(ID id, Map<String,Object> attributes) {
+			super(id, attributes);
+		}
+
+		@Override
+		public boolean isNew() {
+			return false;
+		}
+
+		@Override
+		public int hashCode() {
+			return computeHashCode();
+		}
+	}
+
+	/**
+	 * A {@link RecordedEvent} with ID RAW_EVENT and POR_X=3, serialized
+	 * before events had flags.
+	 */
+	private static final String RECORDED_EVENT =
+		"rO0ABXNyAC9yaXQuZXllVHJhY2tpbmcuQWJzdHJhY3RFdmVudFRlc3QkUmVjb3JkZWRFdmVudAAAAAAAAAABAgAAeHIAHXJp"
+		+"dC5leWVUcmFja2luZy5BYnN0cmFjdEV2ZW50or/7tYwlLq0CAAJMAAphdHRyaWJ1dGVzdAAPTGphdmEvdXRpbC9NYXA7TAAC"
+		+"aWR0ABpMcml0L2V5ZVRyYWNraW5nL0V2ZW50JElEO3hwc3IAEWphdmEudXRpbC5IYXNoTWFwBQfawcMWYNEDAAJGAApsb2Fk"
+		+"RmFjdG9ySQAJdGhyZXNob2xkeHA/QAAAAAAADHcIAAAAEAAAAAF0AAVQT1JfWHNyABFqYXZhLmxhbmcuSW50ZWdlchLioKT3"
+		+"gYc4AgABSQAFdmFsdWV4cgAQamF2YS5sYW5nLk51bWJlcoaslR0LlOCLAgAAeHAAAAADeHNyABxyaXQuZXllVHJhY2tpbmcu"
+		+"RXZlbnQkSURJbXBsRDc8K5krCMICAAFMAAJpZHQAEkxqYXZhL2xhbmcvU3RyaW5nO3hwdAADUkFX";
+
+	private static class RecordedEvent extends AbstractEvent {
+
+		private static final long serialVersionUID = 1L;
+
+		RecordedEvent(ID id, Map<String,Object> attributes) {
+			super(id, attributes);
+		}
+
+		@Override
+		public boolean isNew() {
+			return false;
+		}
+	}
+
+	@Test
+	public void testReadEventWithoutFlags() throws Exception {
+		byte[] bytes = Base64.getDecoder().decode(RECORDED_EVENT);
+		Event event = (Event)new ObjectInputStream(new ByteArrayInputStream(bytes)).readObject();
+
+		assertThat(event.getID(), is(sameInstance(Event.RAW_EVENT)));
+		assertThat(event.getFlags(), is(Event.Flags.RAW));
+		assertThat(event.<Integer>getAttribute(Event.POR_X), is(3));
+	}
+
+	@Test
+	public void testEqualsComparesAddedFlags() {
+		AbstractEvent event = createEvent();
+		AbstractEvent blinkEnd = createEvent();
+		blinkEnd.addFlags(Event.Flags.BLINK_END);
+		assertThat(event.equals(blinkEnd), is(false));
+		assertThat(event.hashCode(), is(not(blinkEnd.hashCode())));
+		event.addFlags(Event.Flags.BLINK_END);
+		assertThat(event.equals(blinkEnd), is(true));
+	}
+
 	@Test
 	public void testEqualsContract() {
 		EqualsVerifier
-			.forClass(AbstractEvent.class)
+			.forClass(UncachedEvent.class)
 			.usingGetClass()
+			.suppress(Warning.NONFINAL_FIELDS)
 			.verify();
 	}
 
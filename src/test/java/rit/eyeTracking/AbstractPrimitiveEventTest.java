@@ -0,0 +1,187 @@
+package rit.eyeTracking;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import rit.eyeTracking.SmoothingFilters.Filter;
+
+public class AbstractPrimitiveEventTest {
+
+	@SuppressWarnings("serial")
+	private static AbstractPrimitiveEvent createEvent(Map<String,Object> attributes) {
+		return new AbstractPrimitiveEvent(Event.RAW_EVENT, attributes) {
+			@Override
+			public boolean isNew() {
+				return false;
+			}};
+	}
+
+	@Test
+	public void testTypedAccessors() {
+		AbstractPrimitiveEvent event = createEvent(new HashMap<String,Object>());
+
+		assertThat(event.hasAttribute(Event.POR_X), is(false));
+		event.addAttribute(Event.POR_X, 42);
+		event.addAttribute(Event.TRACKER_TIMESTAMP_MU, 123456789012L);
+		event.addAttribute(Event.PUPIL_DIA_L_PX, 3.5f);
+		event.addAttribute(Event.EYE_TYPE, "b");
+
+		assertThat(event.hasAttribute(Event.POR_X), is(true));
+		assertThat(event.getInt(Event.POR_X), is(42));
+		assertThat(event.getLong(Event.TRACKER_TIMESTAMP_MU), is(123456789012L));
+		assertThat(event.getFloat(Event.PUPIL_DIA_L_PX), is(3.5f));
+		assertThat(event.<Integer>getAttribute(Event.POR_X), is(42));
+		assertThat(event.<String>getAttribute(Event.EYE_TYPE), is("b"));
+		assertThat(event.getAttributes().size(), is(4));
+	}
+
+	@Test
+	public void testKeyAccessors() {
+		AbstractPrimitiveEvent event = createEvent(new HashMap<String,Object>());
+
+		event.addAttribute(Event.Keys.POR_Y, 13);
+		event.addAttribute(Event.Keys.CLIENT_TIMESTAMP_MS, 99L);
+		event.addAttribute(Event.Keys.EYE_X_R, -1.25f);
+		event.addAttribute(Event.Keys.EYE_TYPE, "r");
+
+		assertThat(event.hasAttribute(Event.Keys.POR_Y), is(true));
+		assertThat(event.hasAttribute(Event.Keys.POR_X), is(false));
+		assertThat(event.getInt(Event.Keys.POR_Y), is(13));
+		assertThat(event.getInt(Event.POR_Y), is(13));
+		assertThat(event.getLong(Event.Keys.CLIENT_TIMESTAMP_MS), is(99L));
+		assertThat(event.getFloat(Event.Keys.EYE_X_R), is(-1.25f));
+		assertThat(event.getAttribute(Event.Keys.EYE_TYPE), is("r"));
+		assertThat(event.<String>getAttribute(Event.EYE_TYPE), is("r"));
+	}
+
+	@Test
+	public void testUnregisteredAttribute() {
+		AbstractPrimitiveEvent event = createEvent(new HashMap<String,Object>());
+		event.addAttribute("test.unregistered", 5);
+		assertThat(event.getInt("test.unregistered"), is(5));
+		assertThat(event.getAttributes().get("test.unregistered"), is((Object)5));
+	}
+
+	@Test
+	public void testInitialAttributesAreMovedToSlots() {
+		Map<String,Object> attributes = new HashMap<String,Object>();
+		attributes.put(Event.POR_Y, 7);
+		attributes.put(Event.EYE_TYPE, "l");
+		AbstractPrimitiveEvent event = createEvent(attributes);
+
+		assertThat(attributes.containsKey(Event.POR_Y), is(false));
+		assertThat(event.getInt(Event.POR_Y), is(7));
+		assertThat(event.<String>getAttribute(Event.EYE_TYPE), is("l"));
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testMissingAttribute() {
+		createEvent(new HashMap<String,Object>()).getInt(Event.POR_X);
+	}
+
+	@Test
+	public void testClear() {
+		AbstractPrimitiveEvent event = createEvent(new HashMap<String,Object>());
+		event.addAttribute(Event.POR_X, 1);
+		event.clear();
+		assertThat(event.hasAttribute(Event.POR_X), is(false));
+		assertThat(event.getAttributes().isEmpty(), is(true));
+	}
+
+	@Test
+	public void testEqualsBoxedAndPrimitive() {
+		AbstractPrimitiveEvent primitive = createEvent(new HashMap<String,Object>());
+		primitive.addAttribute(Event.POR_X, 1);
+		AbstractPrimitiveEvent boxed = createEvent(new HashMap<String,Object>());
+		boxed.addAttribute(Event.POR_X, Integer.valueOf(1));
+		assertThat(primitive, is(boxed));
+		assertThat(primitive.hashCode(), is(boxed.hashCode()));
+	}
+
+	@Test
+	public void testAttributesViewAndHashCode() {
+		AbstractPrimitiveEvent event = createEvent(new HashMap<String,Object>());
+		Map<String,Object> view = event.getAttributes();
+		event.addAttribute(Event.Keys.POR_X, 3);
+		event.addAttribute(Event.Keys.PUPIL_DIA_R_PX, 1.5f);
+		event.addAttribute("test.unregistered", "value");
+		assertThat(event.getAttributes(), is(sameInstance(view)));
+		assertThat(view.size(), is(3));
+		Map<String,Object> copy = new HashMap<String,Object>(view);
+		assertThat(copy.get(Event.POR_X), is((Object)3));
+		assertThat(event.hashCode(), is(31*(31+copy.hashCode()) + Event.RAW_EVENT.hashCode()));
+	}
+
+	@Test
+	public void testGetSerializable() {
+		AbstractPrimitiveEvent event = createEvent(new HashMap<String,Object>());
+		event.addAttribute(Event.Keys.POR_X, 4);
+		event.addAttribute(Event.Keys.EYE_TYPE, "b");
+		event.addAttribute(Event.Keys.TET_STATE, new Object());
+		event.addAttribute("test.nonSerializable", new Object());
+		event.addAttribute("test.serializable", "value");
+		event.addFlags(Event.Flags.SACCADE_END);
+
+		Event copy = new EventFactory<Event>() {
+			@Override
+			public Event createEvent(Event.ID id, Map<String, Object> attributes) {
+				return AbstractPrimitiveEventTest.createEvent(attributes);
+			}}.createSerializable(event);
+
+		assertThat(copy, is(instanceOf(AbstractPrimitiveEvent.class)));
+		assertThat(copy.getInt(Event.Keys.POR_X), is(4));
+		assertThat(copy.getAttribute(Event.Keys.EYE_TYPE), is("b"));
+		assertThat(copy.hasAttribute(Event.Keys.TET_STATE), is(false));
+		assertThat(copy.hasAttribute("test.nonSerializable"), is(false));
+		assertThat(copy.<String>getAttribute("test.serializable"), is("value"));
+		assertThat(copy.getAttributes().size(), is(3));
+		assertThat(copy.hasFlags(Event.Flags.SACCADE_END), is(true));
+	}
+
+	/**
+	 * Deserializes an event in a class loader of its own that registers
+	 * a key before the standard keys, so ordinals differ from this one.
+	 */
+	@Test
+	public void testSerializationIsIndependentOfKeyOrdinals() throws Exception {
+		PooledEvent event = new PooledEventFactory(1).createEvent(Event.RAW_EVENT);
+		event.addAttribute(Event.Keys.POR_X, 3);
+		event.addAttribute(Event.Keys.EYE_TYPE, "l");
+		event.addAttribute(Filter.Keys.FILTERED_POR_X, 12.5f);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(event);
+		out.close();
+
+		URL classes = AbstractPrimitiveEvent.class.getProtectionDomain().getCodeSource().getLocation();
+		final ClassLoader loader = new URLClassLoader(new URL[] { classes },
+				ClassLoader.getSystemClassLoader().getParent());
+		loader.loadClass(AttributeKey.class.getName())
+			.getMethod("register", String.class, Class.class)
+			.invoke(null, "test.registeredFirst", Integer.class);
+		InputStream in = new ByteArrayInputStream(bytes.toByteArray());
+		Object copy = new ObjectInputStream(in) {
+			@Override
+			protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+				return Class.forName(desc.getName(), false, loader);
+			}
+		}.readObject();
+
+		assertThat(copy.getClass().getClassLoader(), is(loader));
+		assertThat(copy.getClass().getMethod("getAttributes").invoke(copy), is((Object)event.getAttributes()));
+	}
+}
@@ -0,0 +1,34 @@
+package rit.eyeTracking;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+
+import org.junit.Test;
+
+public class AttributeKeyTest {
+
+	@Test
+	public void testRegisterReturnsInternedKey() {
+		AttributeKey<Integer> key = AttributeKey.register("AttributeKeyTest.interned", Integer.class);
+		assertThat(AttributeKey.register("AttributeKeyTest.interned", Integer.class), is(sameInstance(key)));
+		assertThat(AttributeKey.forName("AttributeKeyTest.interned"), is(sameInstance((Object)key)));
+		assertThat(AttributeKey.forOrdinal(key.getOrdinal()), is(sameInstance((Object)key)));
+		assertThat(key.getOrdinal() < AttributeKey.size(), is(true));
+		assertThat(key.isPrimitive(), is(true));
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testRegisterWithDifferentType() {
+		AttributeKey.register("AttributeKeyTest.typed", Integer.class);
+		AttributeKey.register("AttributeKeyTest.typed", Long.class);
+	}
+
+	@Test
+	public void testStandardKeys() {
+		assertThat(Event.Keys.POR_X.getName(), is(Event.POR_X));
+		assertThat(Event.Keys.POR_X.getType() == Integer.class, is(true));
+		assertThat(Event.Keys.EYE_TYPE.isPrimitive(), is(false));
+		assertThat(AttributeKey.forName(Event.TRACKER_TIMESTAMP_MU), is(sameInstance((Object)Event.Keys.TRACKER_TIMESTAMP_MU)));
+		assertThat(AttributeKey.names(Event.Keys.POR_X, Event.Keys.POR_Y), is(new String[] { Event.POR_X, Event.POR_Y }));
+	}
+}
@@ -0,0 +1,65 @@
+package rit.eyeTracking;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+
+import java.util.HashMap;
+
+import org.junit.Test;
+
+public class EventBatchTest {
+
+	@Test
+	public void testColumns() {
+		EventBatch batch = new EventBatch(3);
+		for(int i=0; i<3; i++) {
+			int row = batch.add(Event.RAW_EVENT);
+			batch.setInt(row, Event.Keys.POR_X, i*10);
+			batch.setLong(row, Event.Keys.TRACKER_TIMESTAMP_MU, 1000L*i);
+		}
+		assertThat(batch.isFull(), is(true));
+		int[] x = batch.getIntColumn(Event.Keys.POR_X);
+		assertThat(x[2], is(20));
+		assertThat(batch.getLong(1, Event.Keys.TRACKER_TIMESTAMP_MU), is(1000L));
+		assertThat(batch.has(0, Event.Keys.POR_Y), is(false));
+		assertThat(batch.getFlags(0), is(Event.Flags.RAW));
+	}
+
+	@Test
+	public void testCursor() {
+		EventBatch batch = new EventBatch(2);
+		batch.add(Event.RAW_EVENT);
+		batch.add(Event.FIXATION_START);
+		EventBatch.Cursor cursor = batch.cursor().moveTo(1);
+		cursor.addAttribute(Event.POR_Y, 7);
+		cursor.addAttribute(Event.EYE_TYPE, "b");
+		assertThat(cursor.getID(), is(Event.FIXATION_START));
+		assertThat(cursor.getInt(Event.Keys.POR_Y), is(7));
+		assertThat(cursor.<String>getAttribute(Event.EYE_TYPE), is("b"));
+		assertThat(cursor.getAttributes().size(), is(2));
+		assertThat(cursor.moveTo(0).hasAttribute(Event.POR_Y), is(false));
+	}
+
+	@SuppressWarnings("serial")
+	@Test
+	public void testAddEvent() {
+		Event event = new AbstractPrimitiveEvent(Event.RAW_EVENT, new HashMap<String,Object>()) {
+			@Override
+			public boolean isNew() {
+				return true;
+			}};
+		event.addAttribute(Event.Keys.PUPIL_DIA_L_PX, 2.5f);
+		EventBatch batch = new EventBatch(1);
+		int row = batch.add(event);
+		assertThat(batch.getFloat(row, Event.Keys.PUPIL_DIA_L_PX), is(2.5f));
+		batch.clear();
+		assertThat(batch.size(), is(0));
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testUnregisteredAttribute() {
+		EventBatch batch = new EventBatch(1);
+		batch.add(Event.RAW_EVENT);
+		batch.cursor().addAttribute("EventBatchTest.unregistered", 1);
+	}
+}
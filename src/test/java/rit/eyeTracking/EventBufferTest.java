@@ -0,0 +1,137 @@
+package rit.eyeTracking;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import rit.eyeTracking.EyeTrackingListener.Mode;
+
+public class EventBufferTest {
+
+	/**
+	 * Records events and blocks the first delivery until released.
+	 */
+	private static class SlowListener implements EyeTrackingListener<Event> {
+
+		private final CountDownLatch entered = new CountDownLatch(1);
+		private final CountDownLatch proceed = new CountDownLatch(1);
+		private final List<Integer> xs = new ArrayList<Integer>();
+
+		@Override
+		public void notify(Event e, EyeTrackingListener<Event> listener, Mode mode) {
+			entered.countDown();
+			try {
+				proceed.await();
+			} catch(InterruptedException ie) {
+				throw new RuntimeException(ie);
+			}
+			synchronized(xs) {
+				xs.add(e.getInt(Event.Keys.POR_X));
+			}
+		}
+	}
+
+	private List<Integer> deliver(EventBuffer.Overload overload, int capacity, PooledEventFactory factory,
+			EventBuffer<Event>[] bufferOut) throws InterruptedException {
+		return deliver(overload, capacity, factory, bufferOut, Event.RAW_EVENT, Event.RAW_EVENT,
+				Event.RAW_EVENT, Event.RAW_EVENT, Event.RAW_EVENT);
+	}
+
+	/**
+	 * Passes events with the given IDs and their index as POR_X to a
+	 * buffer while the first one is being delivered.
+	 */
+	private List<Integer> deliver(EventBuffer.Overload overload, int capacity, PooledEventFactory factory,
+			EventBuffer<Event>[] bufferOut, Event.ID... ids) throws InterruptedException {
+		SlowListener listener = new SlowListener();
+		EventBuffer<Event> buffer = new EventBuffer<Event>(listener, capacity, overload);
+		bufferOut[0] = buffer;
+		buffer.start();
+		for(int i=0; i<ids.length; i++) {
+			PooledEvent e = factory.createEvent(ids[i]);
+			e.addAttribute(Event.Keys.POR_X, i);
+			buffer.notify(e, null, Mode.TRACKING_MODE);
+			e.release();
+			if(i == 0)
+				listener.entered.await();
+		}
+		listener.proceed.countDown();
+		buffer.stop();
+		return listener.xs;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testDropOldest() throws InterruptedException {
+		EventBuffer<Event>[] buffer = new EventBuffer[1];
+		PooledEventFactory factory = new PooledEventFactory(16);
+		List<Integer> xs = deliver(EventBuffer.Overload.DROP_OLDEST, 2, factory, buffer);
+		assertThat(xs, is(java.util.Arrays.asList(0, 3, 4)));
+		assertThat(buffer[0].getDroppedCount(), is(2L));
+		assertThat(buffer[0].getDeliveredCount(), is(3L));
+		assertThat(factory.getPooledCount(), is((int)factory.getCreatedCount()));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testDropNewest() throws InterruptedException {
+		EventBuffer<Event>[] buffer = new EventBuffer[1];
+		List<Integer> xs = deliver(EventBuffer.Overload.DROP_NEWEST, 2, new PooledEventFactory(16), buffer);
+		assertThat(xs, is(java.util.Arrays.asList(0, 1, 2)));
+		assertThat(buffer[0].getDroppedCount(), is(2L));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testCoalesce() throws InterruptedException {
+		EventBuffer<Event>[] buffer = new EventBuffer[1];
+		List<Integer> xs = deliver(EventBuffer.Overload.COALESCE, 4, new PooledEventFactory(16), buffer);
+		assertThat(xs, is(java.util.Arrays.asList(0, 4)));
+		assertThat(buffer[0].getCoalescedCount(), is(3L));
+		assertThat(buffer[0].getOfferedCount(), is(5L));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testCoalesceKeepsOtherEvents() throws InterruptedException {
+		EventBuffer<Event>[] buffer = new EventBuffer[1];
+		PooledEventFactory factory = new PooledEventFactory(16);
+		List<Integer> xs = deliver(EventBuffer.Overload.COALESCE, 3, factory, buffer, Event.RAW_EVENT,
+				Event.RAW_EVENT, Event.FIXATION_START, Event.RAW_EVENT, Event.FIXATION_END,
+				Event.BLINK_START, Event.RAW_EVENT);
+		assertThat(xs, is(java.util.Arrays.asList(0, 4, 5, 6)));
+		assertThat(buffer[0].getCoalescedCount(), is(2L));
+		assertThat(buffer[0].getDroppedCount(), is(1L));
+		assertThat(factory.getPooledCount(), is((int)factory.getCreatedCount()));
+	}
+
+	@Test(timeout=5000)
+	public void testDeliversSynchronouslyWhenNotStarted() throws InterruptedException {
+		final List<Integer> xs = new ArrayList<Integer>();
+		EventBuffer<Event> buffer = new EventBuffer<Event>(new EyeTrackingListener<Event>() {
+				@Override
+				public void notify(Event e, EyeTrackingListener<Event> listener, Mode mode) {
+					xs.add(e.getInt(Event.Keys.POR_X));
+				}
+			}, 1, EventBuffer.Overload.BLOCK);
+		PooledEventFactory factory = new PooledEventFactory(16);
+		for(int x=0; x<4; x++) {
+			if(x == 1)
+				buffer.start();
+			if(x == 3)
+				buffer.stop();
+			PooledEvent e = factory.createEvent(Event.RAW_EVENT);
+			e.addAttribute(Event.Keys.POR_X, x);
+			buffer.notify(e, null, Mode.TRACKING_MODE);
+			e.release();
+		}
+		assertThat(xs, is(java.util.Arrays.asList(0, 1, 2, 3)));
+		assertThat(buffer.getDeliveredCount(), is(4L));
+		assertThat(factory.getPooledCount(), is((int)factory.getCreatedCount()));
+	}
+}
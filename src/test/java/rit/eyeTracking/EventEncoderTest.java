@@ -0,0 +1,87 @@
+package rit.eyeTracking;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class EventEncoderTest {
+
+	private static final EventFactory<Event> FACTORY = new EventFactory<Event>() {
+		@SuppressWarnings("serial")
+		@Override
+		public Event createEvent(Event.ID id, Map<String, Object> attributes) {
+			return new AbstractPrimitiveEvent(id, attributes) {
+				@Override
+				public boolean isNew() {
+					return false;
+				}};
+		}};
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		Event[] events = new Event[100];
+		for(int i=0; i<events.length; i++) {
+			Event e = FACTORY.createEvent(i%10 == 0 ? Event.FIXATION_START : Event.RAW_EVENT);
+			e.addAttribute(Event.Keys.TRACKER_TIMESTAMP_MU, 1000000000L+i*4000L);
+			e.addAttribute(Event.Keys.POR_X, 512+(i%7));
+			e.addAttribute(Event.Keys.POR_Y, 384-(i%5));
+			e.addAttribute(Event.Keys.PUPIL_DIA_L_PX, 3.25f);
+			e.addAttribute(Event.Keys.EYE_TYPE, "b");
+			e.addAttribute("test.double", i/3.0);
+			e.addAttribute("test.nonSerializable", new Object());
+			if(i == 42)
+				e.addFlags(Event.Flags.BLINK_END);
+			events[i] = e;
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		EventEncoder encoder = new EventEncoder(bytes);
+		for(Event e: events)
+			encoder.write(e);
+		encoder.close();
+
+		EventDecoder<Event> decoder = new EventDecoder<Event>(new ByteArrayInputStream(bytes.toByteArray()), FACTORY);
+		for(Event e: events) {
+			Event decoded = decoder.read();
+			assertThat(decoded, is(e.getSerializable(FACTORY)));
+			assertThat(decoded.getFlags(), is(e.getFlags()));
+		}
+		assertThat(decoder.read(), is(nullValue()));
+		decoder.close();
+	}
+
+	private static Event decode(int... records) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(EventEncoder.MAGIC);
+		for(int b: records)
+			out.writeByte(b);
+		out.close();
+		EventDecoder<Event> decoder = new EventDecoder<Event>(new ByteArrayInputStream(bytes.toByteArray()), FACTORY);
+		try {
+			return decoder.read();
+		} finally {
+			decoder.close();
+		}
+	}
+
+	@Test(expected=StreamCorruptedException.class)
+	public void testUndefinedID() throws Exception {
+		decode(EventEncoder.EVENT, 20, 0, 0);
+	}
+
+	@Test(expected=StreamCorruptedException.class)
+	public void testNegativeLocalID() throws Exception {
+		// A local ID of -1 encoded as a variable-length number
+		decode(EventEncoder.DEFINE_ID, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0x01);
+	}
+}
@@ -0,0 +1,477 @@
+package rit.eyeTracking;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.junit.Test;
+
+import rit.eyeTracking.EyeTrackingListener.Mode;
+import rit.eyeTracking.EyeTrackerUtilities.udpClients.IViewX;
+
+public class FilterChainTest {
+
+	private static final Event.ID OTHER = new Event.IDImpl("FilterChainTest.OTHER");
+
+	@SuppressWarnings("deprecation")
+	private static class RecordingFilter implements FlagFilter<Object,Event> {
+
+		private final int mask;
+		private final String[] required;
+		private final String[] created;
+		protected final List<Event> events = new ArrayList<Event>();
+
+		private RecordingFilter(int mask) {
+			this(mask, new String[0], new String[0]);
+		}
+
+		private RecordingFilter(int mask, String[] required, String[] created) {
+			this.mask = mask;
+			this.required = required;
+			this.created = created;
+		}
+
+		@Override
+		public void notify(Event event, EyeTrackingListener<Event> listener, Mode mode) {
+			events.add(event);
+			for(String attribute: created)
+				event.addAttribute(attribute, attribute);
+		}
+
+		@Override
+		public int getFlagsOfInterest() {
+			return mask;
+		}
+
+		@Override
+		public void start(Object obj, EyeTrackingListener<Event> listener, Mode mode) {
+		}
+
+		@Override
+		public void stop(Object obj, EyeTrackingListener<Event> listener, Mode mode) {
+		}
+
+		@Override
+		public String[] getAttributesRequired() {
+			return required;
+		}
+
+		@Override
+		public String[] getAttributesDesired() {
+			return new String[0];
+		}
+
+		@Override
+		public String[] getAttributesCreated() {
+			return created;
+		}
+	}
+
+	private static class IDRecordingFilter extends RecordingFilter implements IDFilter<Object,Event> {
+
+		private final Event.ID[] ids;
+
+		private IDRecordingFilter(Event.ID[] ids, String[] required) {
+			super(Event.Flags.ALL, required, new String[0]);
+			this.ids = ids;
+		}
+
+		@Override
+		public Event.ID[] getIDsOfInterest() {
+			return ids;
+		}
+	}
+
+	private static class BatchRecordingFilter extends RecordingFilter implements BatchFilter<Object,Event> {
+
+		private final List<Integer> batchSizes = new ArrayList<Integer>();
+
+		private BatchRecordingFilter() {
+			super(Event.Flags.ALL);
+		}
+
+		@Override
+		public void notifyBatch(List<Event> events, EyeTrackingListener<Event> listener, Mode mode) {
+			batchSizes.add(events.size());
+			this.events.addAll(events);
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private static Event createEvent(Event.ID id) {
+		return new AbstractPrimitiveEvent(id, new HashMap<String,Object>()) {
+			@Override
+			public boolean isNew() {
+				return true;
+			}};
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testBatchRows() {
+		RecordingFilter fixations = new RecordingFilter(Event.Flags.FIXATION);
+		FilterChain<Object,Event> chain = new FilterChain<Object,Event>(
+				new Filter[] { fixations }, Event.class);
+		EventBatch batch = new EventBatch(3);
+		batch.add(Event.RAW_EVENT);
+		batch.add(Event.FIXATION_START);
+		batch.add(Event.RAW_EVENT);
+		chain.notify(batch, null, Mode.BATCH_MODE);
+		assertThat(fixations.events.size(), is(1));
+		assertThat(fixations.events.get(0), is(instanceOf(EventBatch.Cursor.class)));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test(expected=UnsupportedOperationException.class)
+	public void testBatchRowsRequireEventChain() {
+		FilterChain<Object,Event> chain = new FilterChain<Object,Event>(
+				new Filter[] { new RecordingFilter(Event.Flags.ALL) });
+		EventBatch batch = new EventBatch(1);
+		batch.add(Event.RAW_EVENT);
+		chain.notify(batch, null, Mode.BATCH_MODE);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testFlagsOfInterest() {
+		RecordingFilter fixations = new RecordingFilter(Event.Flags.FIXATION);
+		RecordingFilter all = new RecordingFilter(Event.Flags.ALL);
+		FilterChain<Object,Event> chain = new FilterChain<Object,Event>(new Filter[] { fixations });
+		chain.add(all);
+
+		Event raw = createEvent(Event.RAW_EVENT);
+		Event fixationEnd = createEvent(Event.FIXATION_END);
+		Event other = createEvent(OTHER);
+		chain.notify(raw, chain, Mode.TRACKING_MODE);
+		chain.notify(fixationEnd, chain, Mode.TRACKING_MODE);
+		chain.notify(other, chain, Mode.TRACKING_MODE);
+
+		assertThat(fixations.events.size(), is(1));
+		assertThat(fixations.events.get(0), is(sameInstance(fixationEnd)));
+		assertThat(all.events.size(), is(3));
+	}
+
+	@Test
+	public void testAddedFlags() {
+		Event raw = createEvent(Event.RAW_EVENT);
+		assertThat(raw.getFlags(), is(Event.Flags.RAW));
+		raw.addFlags(Event.Flags.SACCADE_START);
+		assertThat(raw.hasFlags(Event.Flags.SACCADE), is(true));
+		assertThat(raw.hasFlags(Event.Flags.BLINK), is(false));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testDependencyOrder() {
+		RecordingFilter consumer = new RecordingFilter(Event.Flags.ALL, new String[] { "b" }, new String[0]);
+		RecordingFilter independent = new RecordingFilter(Event.Flags.ALL);
+		RecordingFilter producer = new RecordingFilter(Event.Flags.ALL, new String[] { "a" }, new String[] { "b" });
+		FilterChain<Object,Event> chain = new FilterChain<Object,Event>(
+				new Filter[] { consumer, independent, producer });
+		chain.setSources(new Source() {
+			@Override
+			public String[] getAttributesCreated() {
+				return new String[] { "a" };
+			}});
+		chain.start(null, chain, Mode.TRACKING_MODE);
+
+		assertThat(chain.getOrder().get(0), is(sameInstance((Filter<Object,Event>)independent)));
+		assertThat(chain.getOrder().get(1), is(sameInstance((Filter<Object,Event>)producer)));
+		assertThat(chain.getOrder().get(2), is(sameInstance((Filter<Object,Event>)consumer)));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test(expected=IllegalStateException.class)
+	public void testCycle() {
+		new FilterChain<Object,Event>(new Filter[] {
+				new RecordingFilter(Event.Flags.ALL, new String[] { "a" }, new String[] { "b" }),
+				new RecordingFilter(Event.Flags.ALL, new String[] { "b" }, new String[] { "a" })
+			}).start(null, null, Mode.TRACKING_MODE);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test(expected=IllegalStateException.class)
+	public void testMissingProducer() {
+		FilterChain<Object,Event> chain = new FilterChain<Object,Event>(new Filter[] {
+				new RecordingFilter(Event.Flags.ALL, new String[] { "a" }, new String[0])
+			});
+		chain.setSources();
+		chain.start(null, chain, Mode.TRACKING_MODE);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testParallelLevels() {
+		RecordingFilter consumer = new RecordingFilter(Event.Flags.ALL, new String[] { "b", "c" }, new String[] { "d" });
+		RecordingFilter producerB = new RecordingFilter(Event.Flags.ALL, new String[] { "a" }, new String[] { "b" });
+		RecordingFilter producerC = new RecordingFilter(Event.Flags.ALL, new String[] { "a" }, new String[] { "c" });
+		ParallelFilterChain<Object> chain = new ParallelFilterChain<Object>(
+				new Filter[] { consumer, producerB, producerC });
+		assertThat(chain.getLevelCount(), is(2));
+		assertThat(chain.getLevel(0).length, is(2));
+		assertThat(chain.getLevel(1)[0], is(sameInstance((Filter<Object,Event>)consumer)));
+
+		Event e = createEvent(Event.RAW_EVENT);
+		e.addAttribute("a", "a");
+		chain.notify(e, chain, Mode.TRACKING_MODE);
+
+		assertThat(producerB.events.get(0), is(not(sameInstance(e))));
+		assertThat(consumer.events.get(0), is(sameInstance(e)));
+		assertThat(e.<String>getAttribute("b"), is("b"));
+		assertThat(e.<String>getAttribute("c"), is("c"));
+		assertThat(e.<String>getAttribute("d"), is("d"));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testParallelFailureAndRetainedLayers() {
+		RecordingFilter failing = new RecordingFilter(Event.Flags.ALL, new String[0], new String[] { "b" }) {
+			@Override
+			public void notify(Event event, EyeTrackingListener<Event> listener, Mode mode) {
+				throw new IllegalStateException("failing");
+			}
+		};
+		RecordingFilter retaining = new RecordingFilter(Event.Flags.ALL, new String[0], new String[] { "c" }) {
+			@Override
+			public void notify(Event event, EyeTrackingListener<Event> listener, Mode mode) {
+				super.notify(event, listener, mode);
+				PooledEventFactory.retain(event);
+			}
+		};
+		ParallelFilterChain<Object> chain = new ParallelFilterChain<Object>(
+				new Filter[] { failing, retaining });
+		PooledEventFactory factory = new PooledEventFactory(16);
+		PooledEvent e = factory.createEvent(Event.RAW_EVENT);
+		try {
+			chain.notify(e, chain, Mode.TRACKING_MODE);
+			fail("Exception expected");
+		} catch(IllegalStateException ise) {
+			assertThat(ise.getMessage(), is("failing"));
+		}
+
+		assertThat(e.<String>getAttribute("c"), is("c"));
+		assertThat(e.hasAttribute("b"), is(false));
+		e.release();
+		assertThat(e.getReferenceCount(), is(1));
+		PooledEventFactory.release(retaining.events.get(0));
+		assertThat(factory.getPooledCount(), is(1));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testDisruptorHandsOverEvents() {
+		RecordingFilter consumer = new RecordingFilter(Event.Flags.ALL, new String[] { "b" }, new String[0]);
+		RecordingFilter producer = new RecordingFilter(Event.Flags.ALL, new String[0], new String[] { "b" });
+		DisruptorFilterChain<Object,Event> chain = new DisruptorFilterChain<Object,Event>(
+				new Filter[] { consumer, producer }, 4, DisruptorFilterChain.Wait.YIELDING);
+		PooledEventFactory factory = new PooledEventFactory(16);
+		chain.start(null, chain, Mode.TRACKING_MODE);
+		for(int i=0; i<10; i++) {
+			PooledEvent e = factory.createEvent(Event.RAW_EVENT);
+			chain.notify(e, chain, Mode.TRACKING_MODE);
+			e.release();
+		}
+		chain.stop(null, chain, Mode.TRACKING_MODE);
+
+		assertThat(producer.events.size(), is(10));
+		assertThat(consumer.events.size(), is(10));
+		assertThat(factory.getPooledCount(), is((int)factory.getCreatedCount()));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testInstrumentation() throws Exception {
+		RecordingFilter fixations = new RecordingFilter(Event.Flags.FIXATION);
+		RecordingFilter all = new RecordingFilter(Event.Flags.ALL);
+		InstrumentedFilterChain<Object,Event> chain = new InstrumentedFilterChain<Object,Event>(
+				new Filter[] { fixations, all });
+		chain.notify(createEvent(Event.RAW_EVENT), chain, Mode.TRACKING_MODE);
+		chain.notify(createEvent(Event.FIXATION_START), chain, Mode.TRACKING_MODE);
+		chain.setEnabled(false);
+		chain.notify(createEvent(Event.RAW_EVENT), chain, Mode.TRACKING_MODE);
+
+		List<FilterStatistics> statistics = chain.getStatistics();
+		assertThat(statistics.get(0).getCount(), is(1L));
+		assertThat(statistics.get(1).getCount(), is(2L));
+		assertThat(chain.getStatisticsByID().size(), is(3));
+		assertThat(all.events.size(), is(3));
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName("rit.eyeTracking:type=FilterChainTest");
+		server.registerMBean(chain, name);
+		try {
+			CompositeData[] data = (CompositeData[])server.getAttribute(name, "Statistics");
+			assertThat(data[1].get("count"), is((Object)2L));
+		} finally {
+			server.unregisterMBean(name);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testIDsOfInterest() {
+		IDRecordingFilter calibration = new IDRecordingFilter(
+				new Event.ID[] { IViewX.CALIBRATION_POINT_DATA }, new String[0]);
+		IDRecordingFilter smoothing = new IDRecordingFilter(
+				new Event.ID[] { Event.RAW_EVENT }, new String[] { Event.Keys.POR_X.getName() });
+		IDRecordingFilter any = new IDRecordingFilter(null, new String[0]);
+		FilterChain<Object,Event> chain = new FilterChain<Object,Event>(
+				new Filter[] { calibration, smoothing, any });
+
+		Event raw = createEvent(Event.RAW_EVENT);
+		raw.addAttribute(Event.Keys.POR_X, 1);
+		Event rawWithoutPOR = createEvent(Event.RAW_EVENT);
+		Event calibrationPoint = createEvent(IViewX.CALIBRATION_POINT_DATA);
+		Event other = createEvent(OTHER);
+		for(Event e: new Event[] { raw, rawWithoutPOR, calibrationPoint, other })
+			chain.notify(e, chain, Mode.TRACKING_MODE);
+
+		assertThat(calibration.events.size(), is(1));
+		assertThat(calibration.events.get(0), is(sameInstance(calibrationPoint)));
+		assertThat(smoothing.events.size(), is(1));
+		assertThat(smoothing.events.get(0), is(sameInstance(raw)));
+		assertThat(any.events.size(), is(4));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testBatching() {
+		BatchRecordingFilter batches = new BatchRecordingFilter();
+		RecordingFilter single = new RecordingFilter(Event.Flags.ALL);
+		BatchingFilterChain<Object,Event> chain = new BatchingFilterChain<Object,Event>(
+				new Filter[] { batches, single }, 3, Long.MAX_VALUE/1000);
+		PooledEventFactory factory = new PooledEventFactory(16);
+		for(int i=0; i<7; i++) {
+			PooledEvent e = factory.createEvent(Event.RAW_EVENT);
+			chain.notify(e, chain, Mode.BATCH_MODE);
+			e.release();
+		}
+		assertThat(batches.batchSizes, is(java.util.Arrays.asList(3, 3)));
+		assertThat(single.events.size(), is(6));
+		assertThat(factory.getPooledCount(), is((int)factory.getCreatedCount()-1));
+
+		chain.notify(createEvent(Event.RAW_EVENT), chain, Mode.TRACKING_MODE);
+		assertThat(batches.batchSizes, is(java.util.Arrays.asList(3, 3, 1)));
+		assertThat(batches.events.size(), is(8));
+		assertThat(single.events.size(), is(8));
+		assertThat(factory.getPooledCount(), is((int)factory.getCreatedCount()));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test(timeout=5000)
+	public void testBatchingTimeout() throws InterruptedException {
+		BatchRecordingFilter batches = new BatchRecordingFilter();
+		BatchingFilterChain<Object,Event> chain = new BatchingFilterChain<Object,Event>(
+				new Filter[] { batches }, 100, 20000);
+		PooledEventFactory factory = new PooledEventFactory(16);
+		for(int i=0; i<2; i++) {
+			PooledEvent e = factory.createEvent(Event.RAW_EVENT);
+			chain.notify(e, chain, Mode.BATCH_MODE);
+			e.release();
+		}
+		// No further events arrive, the timer delivers the batch
+		while(true) {
+			synchronized(chain) {
+				if(!batches.batchSizes.isEmpty())
+					break;
+			}
+			Thread.sleep(5);
+		}
+		synchronized(chain) {
+			assertThat(batches.batchSizes, is(java.util.Arrays.asList(2)));
+		}
+		assertThat(factory.getPooledCount(), is((int)factory.getCreatedCount()));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testStages() {
+		RecordingFilter cursor = new RecordingFilter(Event.Flags.ALL, new String[0], new String[] { "b" });
+		RecordingFilter recorder = new RecordingFilter(Event.Flags.ALL, new String[] { "b" }, new String[0]);
+		StagedFilterChain<Object,Event> chain = new StagedFilterChain<Object,Event>(
+				new Filter[] { cursor, recorder }, 2);
+		chain.setStage(recorder, 1);
+		assertThat(chain.getStageCount(), is(2));
+		PooledEventFactory factory = new PooledEventFactory(16);
+		chain.start(null, chain, Mode.TRACKING_MODE);
+		List<Event> events = new ArrayList<Event>();
+		for(int i=0; i<20; i++) {
+			PooledEvent e = factory.createEvent(Event.RAW_EVENT);
+			events.add(e);
+			chain.notify(e, chain, Mode.TRACKING_MODE);
+			e.release();
+		}
+		chain.stop(null, chain, Mode.TRACKING_MODE);
+
+		assertThat(cursor.events.size(), is(20));
+		assertThat(recorder.events, is(cursor.events));
+		assertThat(factory.getPooledCount(), is((int)factory.getCreatedCount()));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test(expected=IllegalStateException.class)
+	public void testConsumerInEarlierStage() {
+		RecordingFilter producer = new RecordingFilter(Event.Flags.ALL, new String[0], new String[] { "b" });
+		RecordingFilter consumer = new RecordingFilter(Event.Flags.ALL, new String[] { "b" }, new String[0]);
+		StagedFilterChain<Object,Event> chain = new StagedFilterChain<Object,Event>(
+				new Filter[] { producer, consumer }, 2);
+		chain.setStage(producer, 1);
+		chain.start(null, chain, Mode.TRACKING_MODE);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testFreeze() {
+		RecordingFilter fixations = new RecordingFilter(Event.Flags.FIXATION);
+		RecordingFilter all = new RecordingFilter(Event.Flags.ALL);
+		IDRecordingFilter other = new IDRecordingFilter(new Event.ID[] { OTHER }, new String[0]);
+		FilterChain<Object,Event> chain = new FilterChain<Object,Event>(
+				new Filter[] { fixations, all, other });
+		FilterDispatcher<Event> dispatcher = chain.freeze();
+		assertThat(dispatcher, is(not(instanceOf(FilterDispatcher.Loop.class))));
+		assertThat(dispatcher.getFilters().size(), is(3));
+
+		Event raw = createEvent(Event.RAW_EVENT);
+		Event fixationEnd = createEvent(Event.FIXATION_END);
+		Event otherEvent = createEvent(OTHER);
+		for(Event e: new Event[] { raw, fixationEnd, otherEvent })
+			dispatcher.notify(e, chain, Mode.TRACKING_MODE);
+
+		assertThat(fixations.events, is(java.util.Arrays.asList(fixationEnd)));
+		assertThat(all.events.size(), is(3));
+		assertThat(other.events, is(java.util.Arrays.asList(otherEvent)));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testLookups() {
+		RecordingFilter recording = new RecordingFilter(Event.Flags.ALL);
+		IDRecordingFilter ids = new IDRecordingFilter(new Event.ID[] { OTHER }, new String[0]);
+		FilterChain<Object,Event> chain = new FilterChain<Object,Event>(new Filter[] { recording });
+
+		assertThat(chain.hasFilter(RecordingFilter.class), is(true));
+		assertThat(chain.hasFilter(IDRecordingFilter.class), is(false));
+		assertThat(chain.findFilters(FlagFilter.class).size(), is(1));
+		assertThat(chain.findFilters(IDFilter.class).isEmpty(), is(true));
+
+		chain.add(ids);
+		assertThat(chain.<IDRecordingFilter>getFilter(IDRecordingFilter.class), is(ids));
+		assertThat(chain.<RecordingFilter>getFilter(RecordingFilter.class), is(recording));
+		assertThat(chain.findFilters(FlagFilter.class),
+				is(java.util.Arrays.<Filter<Object,Event>>asList(recording, ids)));
+		assertThat(chain.findFilters(IDFilter.class),
+				is(java.util.Arrays.<Filter<Object,Event>>asList(ids)));
+
+		chain.remove(ids);
+		assertThat(chain.hasFilter(IDRecordingFilter.class), is(false));
+		assertThat(chain.findFilters(FlagFilter.class).size(), is(1));
+	}
+}
@@ -0,0 +1,143 @@
+package rit.eyeTracking;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import rit.eyeTracking.EyeTrackingListener.Mode;
+
+/**
+ * Compares notifying filters via {@link FilterChain#notify(Event, EyeTrackingListener, Mode)}
+ * with notifying them via a dispatcher created by {@link FilterChain#freeze()}.
+ * The filters are of distinct classes, so calls from the loop of the chain
+ * are megamorphic.
+ *
+ * Run via {@link #main(String[])} from the test class path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterDispatchBenchmark {
+
+	private FilterChain<Object,Event> chain;
+	private FilterDispatcher<Event> dispatcher;
+	private Event event;
+
+	@SuppressWarnings("unchecked")
+	@Setup
+	public void setUp() {
+		chain = new FilterChain<Object,Event>(new Filter[] {
+				new CountingFilter1(), new CountingFilter2(), new CountingFilter3(),
+				new CountingFilter4(), new CountingFilter5(), new CountingFilter6()
+			});
+		dispatcher = chain.freeze();
+		event = new AbstractPrimitiveEvent(Event.RAW_EVENT, new HashMap<String,Object>()) {
+				@Override
+				public boolean isNew() {
+					return true;
+				}
+			};
+	}
+
+	@Benchmark
+	public void loop() {
+		chain.notify(event, chain, Mode.TRACKING_MODE);
+	}
+
+	@Benchmark
+	public void frozen() {
+		dispatcher.notify(event, chain, Mode.TRACKING_MODE);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(FilterDispatchBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+
+	@SuppressWarnings("deprecation")
+	private static abstract class CountingFilter implements Filter<Object,Event> {
+
+		long count;
+
+		@Override
+		public void start(Object obj, EyeTrackingListener<Event> listener, Mode mode) {
+		}
+
+		@Override
+		public void stop(Object obj, EyeTrackingListener<Event> listener, Mode mode) {
+		}
+
+		@Override
+		public String[] getAttributesRequired() {
+			return null;
+		}
+
+		@Override
+		public String[] getAttributesDesired() {
+			return null;
+		}
+
+		@Override
+		public String[] getAttributesCreated() {
+			return null;
+		}
+	}
+
+	private static final class CountingFilter1 extends CountingFilter {
+		@Override
+		public void notify(Event e, EyeTrackingListener<Event> listener, Mode mode) {
+			count++;
+		}
+	}
+
+	private static final class CountingFilter2 extends CountingFilter {
+		@Override
+		public void notify(Event e, EyeTrackingListener<Event> listener, Mode mode) {
+			count += 2;
+		}
+	}
+
+	private static final class CountingFilter3 extends CountingFilter {
+		@Override
+		public void notify(Event e, EyeTrackingListener<Event> listener, Mode mode) {
+			count += 3;
+		}
+	}
+
+	private static final class CountingFilter4 extends CountingFilter {
+		@Override
+		public void notify(Event e, EyeTrackingListener<Event> listener, Mode mode) {
+			count += 4;
+		}
+	}
+
+	private static final class CountingFilter5 extends CountingFilter {
+		@Override
+		public void notify(Event e, EyeTrackingListener<Event> listener, Mode mode) {
+			count += 5;
+		}
+	}
+
+	private static final class CountingFilter6 extends CountingFilter {
+		@Override
+		public void notify(Event e, EyeTrackingListener<Event> listener, Mode mode) {
+			count += 6;
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package rit.eyeTracking;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import rit.eyeTracking.EyeTrackingListener.Mode;
+
+public class FixationDetectorTest {
+
+	/**
+	 * Records the fixation events passed through the chain as
+	 * "ID start end duration x y".
+	 */
+	@SuppressWarnings("deprecation")
+	private static class FixationRecorder implements IDFilter<Object,Event> {
+
+		private final List<String> fixations = new ArrayList<String>();
+
+		@Override
+		public void start(Object obj, EyeTrackingListener<Event> listener, Mode mode) {
+		}
+
+		@Override
+		public void stop(Object obj, EyeTrackingListener<Event> listener, Mode mode) {
+		}
+
+		@Override
+		public String[] getAttributesRequired() {
+			return new String[] { Event.FIXATION_START_TIMESTAMP_MS };
+		}
+
+		@Override
+		public String[] getAttributesDesired() {
+			return null;
+		}
+
+		@Override
+		public String[] getAttributesCreated() {
+			return null;
+		}
+
+		@Override
+		public Event.ID[] getIDsOfInterest() {
+			return new Event.ID[] { Event.FIXATION_START, Event.FIXATION_END };
+		}
+
+		@Override
+		public void notify(Event e, EyeTrackingListener<Event> listener, Mode mode) {
+			String s = e.getID()+" "+e.getLong(Event.Keys.FIXATION_START_TIMESTAMP_MS);
+			if(e.getID() == Event.FIXATION_END)
+				s += " "+e.getLong(Event.Keys.FIXATION_END_TIMESTAMP_MS)
+					+" "+e.getLong(Event.Keys.FIXATION_DURATION_MS);
+			fixations.add(s+" "+e.getInt(Event.Keys.POR_X)+" "+e.getInt(Event.Keys.POR_Y));
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testDetectsFixations() {
+		PooledEventFactory factory = new PooledEventFactory(16);
+		FixationRecorder recorder = new FixationRecorder();
+		FilterChain<Object,Event> chain = new FilterChain<Object,Event>(new Filter[] {
+				recorder, new FixationDetector<Object>(factory, 20, 100)
+			});
+		chain.start(null, chain, Mode.BATCH_MODE);
+		long mu = 5000000L;
+		// 150 ms fixation around (100,100), 30 ms saccade, 120 ms fixation
+		// around (400,300) that ends when the chain is stopped
+		for(int i=0; i<300; i++, mu += 1000) {
+			int x, y;
+			if(i < 150) {
+				x = 100 + (i % 3) * 4;
+				y = 100 - (i % 2) * 4;
+			} else if(i < 180) {
+				x = 100 + (i-150)*10;
+				y = 100 + (i-150)*7;
+			} else {
+				x = 400 + (i % 2) * 6;
+				y = 300;
+			}
+			PooledEvent e = factory.createEvent(Event.RAW_EVENT);
+			e.addAttribute(Event.Keys.TRACKER_TIMESTAMP_MU, mu);
+			e.addAttribute(Event.Keys.POR_X, x);
+			e.addAttribute(Event.Keys.POR_Y, y);
+			chain.notify(e, chain, Mode.BATCH_MODE);
+			PooledEventFactory.release(e);
+		}
+		chain.stop(null, chain, Mode.BATCH_MODE);
+
+		assertThat(recorder.fixations.size(), is(4));
+		assertThat(recorder.fixations.get(0), is("FS 5000 104 98"));
+		assertThat(recorder.fixations.get(1), is("FE 5000 5150 150 104 98"));
+		assertThat(recorder.fixations.get(2), is("FS 5179 403 300"));
+		assertThat(recorder.fixations.get(3), is("FE 5179 5299 120 403 300"));
+		assertThat(factory.getPooledCount(), is((int)factory.getCreatedCount()));
+	}
+}
@@ -0,0 +1,53 @@
+package rit.eyeTracking;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Test;
+
+import rit.eyeTracking.Event.ID;
+import rit.eyeTracking.Event.IDImpl;
+
+public class IDImplTest {
+
+	@Test
+	public void testFixedOrdinals() {
+		assertThat(Event.RAW_EVENT.getOrdinal(), is(Event.RAW_EVENT_ORDINAL));
+		assertThat(Event.BLINK_END.getOrdinal(), is(Event.BLINK_END_ORDINAL));
+		assertThat(IDImpl.forOrdinal(Event.FIXATION_START_ORDINAL), is(sameInstance(Event.FIXATION_START)));
+		assertThat(IDImpl.forLoggableID(Event.SACCADE_END_ID), is(sameInstance(Event.SACCADE_END)));
+	}
+
+	@Test
+	public void testDynamicOrdinal() {
+		ID id = new IDImpl("IDImplTest.dynamic");
+		assertThat(id.getOrdinal() >= IDImpl.FIRST_DYNAMIC_ORDINAL, is(true));
+		assertThat(IDImpl.forOrdinal(id.getOrdinal()), is(sameInstance(id)));
+		assertThat(IDImpl.ordinalBound() > id.getOrdinal(), is(true));
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testLoggableIDClash() {
+		new IDImpl(Event.RAW_EVENT_ID);
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testOrdinalClash() {
+		new IDImpl("IDImplTest.clash", Event.RAW_EVENT_ORDINAL);
+	}
+
+	@Test
+	public void testDeserializedIDIsCanonical() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(Event.FIXATION_END);
+		out.close();
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		assertThat(in.readObject(), is(sameInstance((Object)Event.FIXATION_END)));
+	}
+}
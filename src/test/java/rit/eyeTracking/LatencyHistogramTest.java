@@ -0,0 +1,38 @@
+package rit.eyeTracking;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void testBuckets() {
+		for(long value: new long[] { 0, 1, 15, 16, 17, 31, 32, 33, 1000, 123456789L, Long.MAX_VALUE }) {
+			int bucket = LatencyHistogram.bucket(value);
+			assertThat(bucket < LatencyHistogram.BUCKETS, is(true));
+			assertThat(LatencyHistogram.highestValue(bucket) >= value, is(true));
+			assertThat(LatencyHistogram.highestValue(bucket) - value <= value/16, is(true));
+			if(bucket > 0)
+				assertThat(LatencyHistogram.highestValue(bucket-1) < value, is(true));
+		}
+	}
+
+	@Test
+	public void testPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for(int i=1; i<=100; i++)
+			histogram.record(i*1000);
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		assertThat(snapshot.getCount(), is(100L));
+		assertThat(snapshot.getMax(), is(100000L));
+		assertThat(snapshot.getMean(), is(50500.0));
+		long median = snapshot.getValueAtPercentile(50.0);
+		assertThat(median >= 50000 && median <= 50000+50000/16, is(true));
+		assertThat(snapshot.getValueAtPercentile(100.0), is(100000L));
+
+		histogram.reset();
+		assertThat(histogram.snapshot().getCount(), is(0L));
+	}
+}
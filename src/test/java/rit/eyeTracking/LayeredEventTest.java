@@ -0,0 +1,68 @@
+package rit.eyeTracking;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+
+import org.junit.Test;
+
+public class LayeredEventTest {
+
+	@SuppressWarnings("serial")
+	private static Event createBase() {
+		Event base = new AbstractPrimitiveEvent(Event.RAW_EVENT, new HashMap<String,Object>()) {
+			@Override
+			public boolean isNew() {
+				return false;
+			}};
+		base.addAttribute(Event.Keys.POR_X, 10);
+		base.addAttribute(Event.Keys.POR_Y, 20);
+		return base;
+	}
+
+	@Test
+	public void testLayer() {
+		Event base = createBase();
+		LayeredEvent layer = new LayeredEvent(base, true);
+		layer.addAttribute(Event.Keys.POR_X, 11);
+		layer.addAttribute("test.filtered", "yes");
+
+		assertThat(layer.getInt(Event.Keys.POR_X), is(11));
+		assertThat(layer.getInt(Event.POR_Y), is(20));
+		assertThat(base.getInt(Event.Keys.POR_X), is(10));
+		assertThat(base.hasAttribute("test.filtered"), is(false));
+		assertThat(layer.getAttributes().size(), is(3));
+		assertThat(layer.getAttributes().get(Event.POR_X), is((Object)11));
+		assertThat(layer.hasFlags(Event.Flags.RAW), is(true));
+	}
+
+	@Test
+	public void testDerive() {
+		LayeredEvent first = new LayeredEvent(createBase(), true);
+		first.addAttribute(Event.Keys.POR_X, 11);
+		LayeredEvent second = first.derive();
+
+		assertThat(second.isNew(), is(false));
+		assertThat(second.getBase(), is(sameInstance(first.getBase())));
+		assertThat(second.getInt(Event.Keys.POR_X), is(10));
+		second.addAttribute(Event.Keys.POR_X, 11);
+		assertThat(second, is(first));
+		assertThat(second.hashCode(), is(first.hashCode()));
+	}
+
+	@Test
+	public void testEmptyLayerAndClear() {
+		LayeredEvent layer = new LayeredEvent(createBase(), true).derive();
+		assertThat(layer.getLayerAttributes(), is(Collections.<String,Object>emptyMap()));
+		assertThat(layer, is(new LayeredEvent(layer.getBase(), false)));
+
+		layer.addAttribute(Event.Keys.POR_X, 11);
+		int hashCode = layer.hashCode();
+		layer.clear();
+		assertThat(layer.getInt(Event.Keys.POR_X), is(10));
+		assertThat(layer.getLayerAttributes().isEmpty(), is(true));
+		assertThat(layer.hashCode(), is(not(hashCode)));
+	}
+}
@@ -0,0 +1,52 @@
+package rit.eyeTracking;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+
+import org.junit.Test;
+
+public class PooledEventFactoryTest {
+
+	@Test
+	public void testRecycling() {
+		PooledEventFactory factory = new PooledEventFactory(1);
+		PooledEvent first = factory.createEvent(Event.RAW_EVENT);
+		first.addAttribute(Event.Keys.POR_X, 1);
+		first.release();
+		assertThat(factory.getPooledCount(), is(1));
+
+		PooledEvent second = factory.createEvent(Event.FIXATION_START);
+		assertThat(second, is(sameInstance(first)));
+		assertThat(second.getID(), is(Event.FIXATION_START));
+		assertThat(second.hasAttribute(Event.Keys.POR_X), is(false));
+		assertThat(factory.getCreatedCount(), is(1L));
+	}
+
+	@Test
+	public void testRetain() {
+		PooledEventFactory factory = new PooledEventFactory(1);
+		PooledEvent event = factory.createEvent(Event.RAW_EVENT);
+		PooledEventFactory.retain(event);
+		PooledEventFactory.release(event);
+		assertThat(event.getReferenceCount(), is(1));
+		assertThat(factory.getPooledCount(), is(0));
+		PooledEventFactory.release(event);
+		assertThat(factory.getPooledCount(), is(1));
+	}
+
+	@Test(expected=IllegalStateException.class)
+	public void testReleasedTwice() {
+		PooledEvent event = new PooledEventFactory(1).createEvent(Event.RAW_EVENT);
+		event.release();
+		event.release();
+	}
+
+	@Test(expected=IllegalStateException.class)
+	public void testDebugDetectsUseAfterRelease() {
+		PooledEventFactory factory = new PooledEventFactory(1, true);
+		PooledEvent event = factory.createEvent(Event.RAW_EVENT);
+		event.release();
+		assertThat(factory.getPooledCount(), is(0));
+		event.getInt(Event.Keys.POR_X);
+	}
+}
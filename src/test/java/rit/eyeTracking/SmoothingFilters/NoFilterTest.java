@@ -0,0 +1,124 @@
+package rit.eyeTracking.SmoothingFilters;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+
+import org.junit.Test;
+
+import rit.eyeTracking.Event;
+import rit.eyeTracking.PooledEvent;
+import rit.eyeTracking.PooledEventFactory;
+
+public class NoFilterTest {
+
+	private static void filter(Filter<Event> filter, PooledEventFactory factory, int x) {
+		PooledEvent e = factory.createEvent(Event.RAW_EVENT);
+		e.addAttribute(Event.Keys.POR_X, x);
+		filter.filter(e);
+		PooledEventFactory.release(e);
+	}
+
+	@Test
+	public void testLatestEventSupersedesUnreadEvents() {
+		PooledEventFactory factory = new PooledEventFactory(16);
+		NoFilter<Event> filter = new NoFilter<Event>();
+		for(int x=0; x<3; x++)
+			filter(filter, factory, x);
+
+		assertThat(filter.newEventAvailable(), is(true));
+		assertThat(filter.getSupersededCount(), is(2L));
+		filter.waitForNewEvent();
+		assertThat(filter.getNewEvent().getInt(Event.Keys.POR_X), is(2));
+		assertThat(filter.newEventAvailable(), is(false));
+		assertThat(factory.getPooledCount(), is((int)factory.getCreatedCount()-1));
+
+		filter(filter, factory, 3);
+		filter.waitForNewEvent();
+		assertThat(filter.getNewEvent().getInt(Event.Keys.POR_X), is(3));
+		assertThat(factory.getPooledCount(), is((int)factory.getCreatedCount()-1));
+	}
+
+	@Test
+	public void testNonSampleEventsAreNotSuperseded() {
+		PooledEventFactory factory = new PooledEventFactory(16);
+		NoFilter<Event> filter = new NoFilter<Event>();
+		filter(filter, factory, 0);
+		PooledEvent fixation = factory.createEvent(Event.FIXATION_START);
+		filter.filter(fixation);
+		PooledEventFactory.release(fixation);
+		filter(filter, factory, 1);
+
+		assertThat(filter.getSupersededCount(), is(1L));
+		filter.waitForNewEvent();
+		assertThat(filter.getNewEvent().getID(), is(Event.FIXATION_START));
+		assertThat(filter.newEventAvailable(), is(true));
+		filter.waitForNewEvent();
+		assertThat(filter.getNewEvent().getID(), is(Event.RAW_EVENT));
+		assertThat(filter.getNewEvent().getInt(Event.Keys.POR_X), is(1));
+		assertThat(filter.newEventAvailable(), is(false));
+		assertThat(factory.getPooledCount(), is((int)factory.getCreatedCount()-1));
+	}
+
+	@Test
+	public void testQueueKeepsEveryEvent() {
+		PooledEventFactory factory = new PooledEventFactory(16);
+		NoFilter<Event> filter = new NoFilter<Event>();
+		filter.setQueueCapacity(2);
+		for(int x=0; x<3; x++)
+			filter(filter, factory, x);
+
+		assertThat(filter.getDroppedCount(), is(1L));
+		for(int x=0; x<2; x++) {
+			Event e = filter.pollQueuedEvent();
+			assertThat(e.getInt(Event.Keys.POR_X), is(x));
+			PooledEventFactory.release(e);
+		}
+		assertThat(filter.pollQueuedEvent(), is(nullValue()));
+	}
+
+	@Test
+	public void testQueueOnlyReaderReleasesEvents() {
+		PooledEventFactory factory = new PooledEventFactory(16);
+		NoFilter<Event> filter = new NoFilter<Event>();
+		filter.setQueueCapacity(8);
+		for(int i=0; i<3; i++) {
+			filter(filter, factory, i);
+			PooledEvent fixation = factory.createEvent(Event.FIXATION_START);
+			filter.filter(fixation);
+			PooledEventFactory.release(fixation);
+		}
+
+		for(int i=0; i<6; i++) {
+			Event e = filter.pollQueuedEvent();
+			assertThat(e.getID(), is(i%2 == 0 ? Event.RAW_EVENT : Event.FIXATION_START));
+			PooledEventFactory.release(e);
+		}
+		assertThat(filter.pollQueuedEvent(), is(nullValue()));
+		// Only the latest sample is held by the mailbox
+		assertThat(factory.getPooledCount(), is((int)factory.getCreatedCount()-1));
+		filter.waitForNewEvent();
+		assertThat(filter.getNewEvent().getInt(Event.Keys.POR_X), is(2));
+		assertThat(filter.newEventAvailable(), is(false));
+	}
+
+	@Test(timeout=5000)
+	public void testReaderWaitsForPublisher() throws InterruptedException {
+		final PooledEventFactory factory = new PooledEventFactory(16);
+		final NoFilter<Event> filter = new NoFilter<Event>();
+		Thread publisher = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(50);
+				} catch(InterruptedException ie) {
+					return;
+				}
+				filter(filter, factory, 7);
+			}
+		};
+		publisher.start();
+		filter.waitForNewEvent();
+		assertThat(filter.getNewEvent().getInt(Event.Keys.POR_X), is(7));
+		publisher.join();
+	}
+}
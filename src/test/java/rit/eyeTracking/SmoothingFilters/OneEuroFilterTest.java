@@ -0,0 +1,75 @@
+package rit.eyeTracking.SmoothingFilters;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import rit.eyeTracking.Event;
+import rit.eyeTracking.PooledEvent;
+import rit.eyeTracking.PooledEventFactory;
+
+public class OneEuroFilterTest {
+
+	private final PooledEventFactory factory = new PooledEventFactory(16);
+
+	private float filter(Filter<Event> filter, long mu, int x) {
+		PooledEvent e = factory.createEvent(Event.RAW_EVENT);
+		e.addAttribute(Event.Keys.TRACKER_TIMESTAMP_MU, mu);
+		e.addAttribute(Event.Keys.POR_X, x);
+		e.addAttribute(Event.Keys.POR_Y, 0);
+		filter.filter(e);
+		float filtered = e.getFloat(Filter.Keys.FILTERED_POR_X);
+		PooledEventFactory.release(e);
+		return filtered;
+	}
+
+	@Test
+	public void testSmoothesFixationsAndFollowsSaccades() {
+		OneEuroFilter<Event> filter = new OneEuroFilter<Event>(1000, 1.0, 0.05);
+		long mu = 0;
+		float min = Float.MAX_VALUE, max = -Float.MAX_VALUE;
+		for(int i=0; i<200; i++) {
+			float x = filter(filter, mu += 1000, 100 + (i % 2 == 0 ? 5 : -5));
+			if(i >= 100) {
+				min = Math.min(min, x);
+				max = Math.max(max, x);
+			}
+		}
+		assertTrue("jitter of "+(max-min)+" px", max - min < 2);
+
+		float x = 0;
+		for(int i=0; i<20; i++)
+			x = filter(filter, mu += 1000, 600);
+		assertEquals(600, x, 5);
+	}
+
+	@Test
+	public void testUsesTrackerTimestamps() {
+		OneEuroFilter<Event> regular = new OneEuroFilter<Event>(1000, 1.0, 0);
+		OneEuroFilter<Event> delayed = new OneEuroFilter<Event>(1000, 1.0, 0);
+		filter(regular, 0, 0);
+		filter(delayed, 0, 0);
+		float afterOneMs = filter(regular, 1000, 100);
+		float afterTenMs = filter(delayed, 10000, 100);
+		assertTrue(afterTenMs > 5*afterOneMs);
+	}
+
+	@Test
+	public void testIgnoresOtherEvents() {
+		OneEuroFilter<Event> plain = new OneEuroFilter<Event>(1000, 1.0, 0.05);
+		OneEuroFilter<Event> interleaved = new OneEuroFilter<Event>(1000, 1.0, 0.05);
+		filter(plain, 0, 0);
+		filter(interleaved, 0, 0);
+		PooledEvent fixation = factory.createEvent(Event.FIXATION_START);
+		fixation.addAttribute(Event.Keys.TRACKER_TIMESTAMP_MU, 500L);
+		fixation.addAttribute(Event.Keys.POR_X, 900);
+		fixation.addAttribute(Event.Keys.POR_Y, 900);
+		interleaved.filter(fixation);
+		assertFalse(fixation.hasAttribute(Filter.Keys.FILTERED_POR_X));
+		PooledEventFactory.release(fixation);
+
+		assertEquals(filter(plain, 1000, 100), filter(interleaved, 1000, 100), 0);
+		interleaved.waitForNewEvent();
+		assertSame(Event.FIXATION_START, interleaved.getNewEvent().getID());
+	}
+}
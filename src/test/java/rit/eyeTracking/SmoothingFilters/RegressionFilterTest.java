@@ -0,0 +1,92 @@
+package rit.eyeTracking.SmoothingFilters;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import rit.eyeTracking.Event;
+import rit.eyeTracking.PooledEvent;
+import rit.eyeTracking.PooledEventFactory;
+import rit.eyeTracking.EyeTrackerUtilities.udpClients.IViewX;
+
+public class RegressionFilterTest {
+
+	private static Event filter(Filter<Event> filter, PooledEventFactory factory, long mu, int x, int y) {
+		PooledEvent e = factory.createEvent(Event.RAW_EVENT);
+		if(mu >= 0)
+			e.addAttribute(Event.Keys.TRACKER_TIMESTAMP_MU, mu);
+		e.addAttribute(Event.Keys.POR_X, x);
+		e.addAttribute(Event.Keys.POR_Y, y);
+		filter.filter(e);
+		return e;
+	}
+
+	@Test
+	public void testReproducesQuadraticMotion() {
+		PooledEventFactory factory = new PooledEventFactory(16);
+		RegressionFilter<Event> filter = new RegressionFilter<Event>(8, 2);
+		long mu = 1000000000L;
+		for(int i=0; i<40; i++) {
+			// Irregular sampling at about 1000 Hz
+			mu += 1000 + (i % 3) * 250;
+			double t = (mu - 1000000000L) / 1000.0;
+			int x = (int)Math.round(100 + 2*t + 0.05*t*t);
+			int y = (int)Math.round(500 - 3*t);
+			Event e = filter(filter, factory, mu, x, y);
+			if(i >= 2) {
+				assertEquals(x, e.getFloat(Filter.Keys.FILTERED_POR_X), 1.0);
+				assertEquals(y, e.getFloat(Filter.Keys.FILTERED_POR_Y), 1.0);
+			}
+			PooledEventFactory.release(e);
+		}
+	}
+
+	@Test
+	public void testSmoothesNoiseWithoutTimestamps() {
+		PooledEventFactory factory = new PooledEventFactory(16);
+		RegressionFilter<Event> filter = new RegressionFilter<Event>(10, 1);
+		float last = 0;
+		for(int i=0; i<35; i++) {
+			Event e = filter(filter, factory, -1, 200 + (i % 2 == 0 ? 4 : -4), 300);
+			last = e.getFloat(Filter.Keys.FILTERED_POR_X);
+			assertEquals(300, e.getFloat(Filter.Keys.FILTERED_POR_Y), 1e-3);
+			PooledEventFactory.release(e);
+		}
+		assertEquals(200, last, 2.0);
+	}
+
+	@Test
+	public void testPublishesOtherEventsUnchanged() {
+		PooledEventFactory factory = new PooledEventFactory(16);
+		RegressionFilter<Event> filter = new RegressionFilter<Event>(4, 1);
+		for(int i=0; i<4; i++)
+			PooledEventFactory.release(filter(filter, factory, -1, 100, 100));
+
+		PooledEvent calibration = factory.createEvent(IViewX.CALIBRATION_STARTED);
+		filter.filter(calibration);
+		PooledEventFactory.release(calibration);
+		PooledEvent fixation = factory.createEvent(Event.FIXATION_START);
+		fixation.addAttribute(Event.Keys.POR_X, 900);
+		fixation.addAttribute(Event.Keys.POR_Y, 900);
+		filter.filter(fixation);
+		PooledEventFactory.release(fixation);
+
+		Event e = filter(filter, factory, -1, 100, 100);
+		assertEquals(100, e.getFloat(Filter.Keys.FILTERED_POR_X), 1e-3);
+		assertEquals(100, e.getFloat(Filter.Keys.FILTERED_POR_Y), 1e-3);
+		PooledEventFactory.release(e);
+
+		filter.waitForNewEvent();
+		assertSame(IViewX.CALIBRATION_STARTED, filter.getNewEvent().getID());
+		filter.waitForNewEvent();
+		assertSame(Event.FIXATION_START, filter.getNewEvent().getID());
+		assertFalse(filter.getNewEvent().hasAttribute(Filter.Keys.FILTERED_POR_X));
+		filter.waitForNewEvent();
+		assertSame(Event.RAW_EVENT, filter.getNewEvent().getID());
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testOrderMustBeSmallerThanWindow() {
+		new RegressionFilter<Event>(3, 3);
+	}
+}
@@ -0,0 +1,75 @@
+package rit.eyeTracking.SmoothingFilters;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+
+import org.junit.Test;
+
+import rit.eyeTracking.Event;
+import rit.eyeTracking.PooledEvent;
+import rit.eyeTracking.PooledEventFactory;
+
+public class SavitzkyGolayFilterTest {
+
+	@Test
+	public void testCoefficientsAreShared() {
+		double[][] coefficients = SavitzkyGolayFilter.coefficients(7, 2);
+		assertThat(SavitzkyGolayFilter.coefficients(7, 2), is(sameInstance(coefficients)));
+		double sum0 = 0, sum1 = 0;
+		for(int s=0; s<7; s++) {
+			sum0 += coefficients[0][s];
+			sum1 += coefficients[1][s];
+		}
+		assertEquals(1, sum0, 1e-9);
+		assertEquals(0, sum1, 1e-9);
+	}
+
+	@Test
+	public void testQuadraticMotion() {
+		PooledEventFactory factory = new PooledEventFactory(16);
+		SavitzkyGolayFilter<Event> filter = new SavitzkyGolayFilter<Event>(9, 2, 1000);
+		for(int i=0; i<30; i++) {
+			// x = 3*i*i + 5*i px with samples 1 ms apart
+			PooledEvent e = factory.createEvent(Event.RAW_EVENT);
+			e.addAttribute(Event.Keys.POR_X, 3*i*i + 5*i);
+			e.addAttribute(Event.Keys.POR_Y, 200);
+			filter.filter(e);
+			if(i >= 2) {
+				assertEquals(3*i*i + 5*i, e.getFloat(Filter.Keys.FILTERED_POR_X), 1e-2);
+				assertEquals((6*i + 5)*1000.0, e.getFloat(Filter.Keys.FILTERED_VELOCITY_X), 1);
+				assertEquals(6*1000000.0, e.getFloat(Filter.Keys.FILTERED_ACCELERATION_X), 1);
+				assertEquals(200, e.getFloat(Filter.Keys.FILTERED_POR_Y), 1e-3);
+				assertEquals(0, e.getFloat(Filter.Keys.FILTERED_VELOCITY_Y), 1e-3);
+			}
+			PooledEventFactory.release(e);
+		}
+	}
+
+	@Test
+	public void testOmitsDerivativesTheOrderCannotFit() {
+		PooledEventFactory factory = new PooledEventFactory(16);
+		SavitzkyGolayFilter<Event> filter = new SavitzkyGolayFilter<Event>(5, 1, 1000);
+		for(int i=0; i<5; i++) {
+			PooledEvent e = factory.createEvent(Event.RAW_EVENT);
+			e.addAttribute(Event.Keys.POR_X, 10*i);
+			e.addAttribute(Event.Keys.POR_Y, 200);
+			filter.filter(e);
+			assertThat(e.hasAttribute(Filter.Keys.FILTERED_VELOCITY_X), is(i >= 1));
+			assertThat(e.hasAttribute(Filter.Keys.FILTERED_ACCELERATION_X), is(false));
+			PooledEventFactory.release(e);
+		}
+	}
+
+	@Test
+	public void testPublishesOtherEventsUnchanged() {
+		PooledEventFactory factory = new PooledEventFactory(16);
+		SavitzkyGolayFilter<Event> filter = new SavitzkyGolayFilter<Event>(5, 2, 1000);
+		PooledEvent e = factory.createEvent(Event.FIXATION_END);
+		filter.filter(e);
+		assertThat(e.hasAttribute(Filter.Keys.FILTERED_POR_X), is(false));
+		PooledEventFactory.release(e);
+
+		filter.waitForNewEvent();
+		assertThat(filter.getNewEvent().getID(), is(sameInstance(Event.FIXATION_END)));
+	}
+}